@@ -0,0 +1,112 @@
+package com.example.ecom.cache;
+
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.model.Category;
+import com.example.ecom.payload.CategoryDTO;
+import com.example.ecom.repositories.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of all categories, rebuilt from the database and swapped in one volatile write.
+ * Active categories are kept pre-sorted as DTOs so a listing page is a subList of the snapshot.
+ *
+ * CategoryServiceImpl reloads it after every category write; the scheduled refresh picks up writes
+ * made on other nodes or straight through the repository (seed data).
+ */
+@Slf4j
+@Component
+public class CategoryCache {
+
+    private final CategoryRepository categoryRepository;
+    private volatile Snapshot snapshot;
+
+    public CategoryCache(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.cache.category.refresh-ms:60000}",
+            fixedDelayString = "${app.cache.category.refresh-ms:60000}")
+    public synchronized void reload() {
+        List<Category> categories = categoryRepository.findAll();
+
+        Map<Long, Entry> byId = categories.stream()
+                .collect(Collectors.toUnmodifiableMap(Category::getCategoryId, Entry::of));
+        List<CategoryDTO> activeById = categories.stream()
+                .filter(category -> Boolean.TRUE.equals(category.getActive()))
+                .sorted(Comparator.comparing(Category::getCategoryId))
+                .map(category -> new CategoryDTO(category.getCategoryId(), category.getCategoryName()))
+                .toList();
+        List<CategoryDTO> activeByName = activeById.stream()
+                .sorted(Comparator.comparing(CategoryDTO::getCategoryName, String.CASE_INSENSITIVE_ORDER)
+                        .thenComparing(CategoryDTO::getCategoryId))
+                .toList();
+
+        snapshot = new Snapshot(byId, Map.of("categoryId", activeById, "categoryName", activeByName));
+        log.debug("Category snapshot reloaded: {} categories, {} active", byId.size(), activeById.size());
+    }
+
+    /**
+     * Returns a detached copy of the category (active or not), or null if there is none. The copy carries
+     * no products; it is meant for reads and for setting the association on a product.
+     */
+    public Category findById(Long categoryId) {
+        Entry entry = snapshot().byId().get(categoryId);
+        return entry != null ? entry.toCategory() : null;
+    }
+
+    /**
+     * Active categories sorted by categoryId or categoryName. The returned list is unmodifiable and shared,
+     * so its DTOs must not be changed.
+     */
+    public List<CategoryDTO> active(String sortBy, String sortOrder) {
+        List<CategoryDTO> sorted = snapshot().activeBySortKey().get(sortBy);
+        if (sorted == null) {
+            throw new APIException("Categories cannot be sorted by: " + sortBy);
+        }
+        return sortOrder.equalsIgnoreCase("asc") ? sorted : sorted.reversed();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private record Snapshot(Map<Long, Entry> byId, Map<String, List<CategoryDTO>> activeBySortKey) {
+    }
+
+    private record Entry(Long categoryId, String categoryName, Boolean active, Instant updatedAt) {
+
+        private static Entry of(Category category) {
+            return new Entry(category.getCategoryId(), category.getCategoryName(), category.getActive(),
+                    category.getUpdatedAt());
+        }
+
+        private Category toCategory() {
+            Category category = new Category();
+            category.setCategoryId(categoryId);
+            category.setCategoryName(categoryName);
+            category.setActive(active);
+            category.setUpdatedAt(updatedAt);
+            return category;
+        }
+    }
+}
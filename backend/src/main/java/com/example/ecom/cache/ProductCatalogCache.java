@@ -0,0 +1,68 @@
+package com.example.ecom.cache;
+
+import com.example.ecom.payload.ProductDetail;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of fully mapped product details keyed by productId, each with the ETag and
+ * Last-Modified of the row it was mapped from, so a hit needs no database round trip at all.
+ * Only active products are stored. Every write of a product's shown columns on this node evicts the
+ * entry after it commits: product edits, checkout stock decrements, hot SKU mode switches and the hot SKU
+ * flush; category edits clear the whole cache. Writes made on another node show up once the entry
+ * expires (ttl-seconds).
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final Cache<Long, ProductDetail> cache;
+
+    public ProductCatalogCache(@Value("${app.cache.product.max-size:10000}") long maxSize,
+            @Value("${app.cache.product.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The cached product, or a fresh load. An eviction that runs while the load is in progress waits
+     * for it and removes its result, so a load that read the row before a commit is not kept.
+     */
+    public ProductDetail get(Long productId, Function<Long, ProductDetail> loader) {
+        return cache.get(productId, loader);
+    }
+
+    public void evict(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    public void evictAll(Iterable<Long> productIds) {
+        cache.invalidateAll(productIds);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("size", cache.estimatedSize());
+        response.put("hits", stats.hitCount());
+        response.put("misses", stats.missCount());
+        response.put("hitRate", stats.hitRate());
+        response.put("evictions", stats.evictionCount());
+        response.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return response;
+    }
+}
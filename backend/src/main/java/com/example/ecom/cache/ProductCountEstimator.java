@@ -0,0 +1,38 @@
+package com.example.ecom.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Approximate product row count from the planner statistics (pg_class.reltuples),
+ * refreshed on an interval so count-free listings can still show a rough total.
+ * Includes soft-deleted rows; null until Postgres has analyzed the table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCountEstimator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Long approximateCount;
+
+    public Long getApproximateCount() {
+        return approximateCount;
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.approximate-count.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            Long estimate = jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE relname = 'product'", Long.class);
+            approximateCount = estimate != null && estimate >= 0 ? estimate : null;
+        } catch (DataAccessException e) {
+            log.debug("Could not read approximate product count: {}", e.getMessage());
+        }
+    }
+}
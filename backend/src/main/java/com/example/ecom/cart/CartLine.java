@@ -0,0 +1,29 @@
+package com.example.ecom.cart;
+
+import com.example.ecom.payload.ProductDTO;
+
+import java.math.BigDecimal;
+
+/**
+ * A product line of a cart held by the CartStore. product is the product as it was when the line was
+ * loaded or last changed, for rendering the cart; its quantity is the product's, not the line's.
+ */
+public record CartLine(
+        ProductDTO product,
+        int quantity,
+        BigDecimal discount,
+        BigDecimal productPrice,
+        Long priceRevision) {
+
+    public Long productId() {
+        return product.getProductId();
+    }
+
+    public CartLine withQuantity(int newQuantity) {
+        return new CartLine(product, newQuantity, discount, productPrice, priceRevision);
+    }
+
+    public CartLine withPrice(BigDecimal newPrice, BigDecimal newDiscount, Long newRevision) {
+        return new CartLine(product, quantity, newDiscount, newPrice, newRevision);
+    }
+}
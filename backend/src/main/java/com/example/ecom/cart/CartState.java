@@ -0,0 +1,122 @@
+package com.example.ecom.cart;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One user's cart as held by the CartStore. Only touched under its lock; changed and removed record which
+ * lines differ from the carts/cart_items rows until the next flush.
+ */
+public class CartState {
+
+    final Long userId;
+    final String email;
+    final ReentrantLock lock = new ReentrantLock();
+
+    boolean loaded;
+    boolean evicted;
+    volatile long lastAccessMillis = System.currentTimeMillis();
+
+    private Long cartId;
+    private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+    private final Set<Long> changed = new HashSet<>();
+    private final Set<Long> removed = new HashSet<>();
+    private BigDecimal totalPrice = BigDecimal.ZERO;
+
+    CartState(Long userId, String email) {
+        this.userId = userId;
+        this.email = email;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public void setCartId(Long cartId) {
+        this.cartId = cartId;
+    }
+
+    public CartLine getLine(Long productId) {
+        return lines.get(productId);
+    }
+
+    public Collection<CartLine> getLines() {
+        return Collections.unmodifiableCollection(lines.values());
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void putLine(CartLine line) {
+        lines.put(line.productId(), line);
+        changed.add(line.productId());
+        removed.remove(line.productId());
+        recalculateTotal();
+    }
+
+    public CartLine removeLine(Long productId) {
+        CartLine line = lines.remove(productId);
+        if (line != null) {
+            changed.remove(productId);
+            removed.add(productId);
+            recalculateTotal();
+        }
+        return line;
+    }
+
+    // Several changes with one total recalculation
+    public void applyLines(Collection<CartLine> put, Collection<Long> remove) {
+        for (CartLine line : put) {
+            lines.put(line.productId(), line);
+            changed.add(line.productId());
+            removed.remove(line.productId());
+        }
+        for (Long productId : remove) {
+            if (lines.remove(productId) != null) {
+                changed.remove(productId);
+                removed.add(productId);
+            }
+        }
+        recalculateTotal();
+    }
+
+    boolean isDirty() {
+        return !changed.isEmpty() || !removed.isEmpty();
+    }
+
+    Set<Long> changed() {
+        return changed;
+    }
+
+    Set<Long> removed() {
+        return removed;
+    }
+
+    void markClean() {
+        changed.clear();
+        removed.clear();
+    }
+
+    // Loading and repricing: the rows already hold these lines
+    void putLoadedLine(CartLine line) {
+        lines.put(line.productId(), line);
+        recalculateTotal();
+    }
+
+    // Same total as CartRepository.recalculateTotals computes from the rows
+    private void recalculateTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartLine line : lines.values()) {
+            total = total.add(line.productPrice().multiply(BigDecimal.valueOf(line.quantity())));
+        }
+        totalPrice = total.setScale(2, RoundingMode.HALF_UP);
+    }
+}
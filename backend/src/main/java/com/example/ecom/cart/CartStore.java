@@ -0,0 +1,420 @@
+package com.example.ecom.cart;
+
+import com.example.ecom.payload.CategoryDTO;
+import com.example.ecom.payload.CheckoutLine;
+import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.repositories.CartItemRepository;
+import com.example.ecom.repositories.CartRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Write-behind cart tier. Active carts are held in memory by user id and changed under a per-cart lock,
+ * so +/- clicks cost no database write; dirty carts are written back to carts/cart_items every flush-ms,
+ * all of them in one transaction with one JDBC batch per statement. A cart is loaded lazily on its first
+ * use and dropped after idle-ms without use.
+ *
+ * Every write of a cart's rows happens under its lock: the flusher skips carts that are busy (tryLock)
+ * and holds the ones it writes until its transaction ends, and checkout holds the buyer's cart from the
+ * flush until its own transaction ends, so a flush can never put back lines checkout has just removed.
+ * Prices written back never go below the revision already in cart_items, so a repricing that ran while
+ * the cart was held is not undone.
+ *
+ * The in-memory carts belong to this node: several nodes need requests for one user to stay on one node,
+ * or app.cart.write-behind.enabled=false, which writes each change through and keeps nothing.
+ */
+@Slf4j
+@Component
+public class CartStore {
+
+    static final String UPDATE_ITEM_SQL = "UPDATE cart_items SET quantity = ?, "
+            + "product_price = CASE WHEN price_revision > ? THEN product_price ELSE ? END, "
+            + "discount = CASE WHEN price_revision > ? THEN discount ELSE ? END, "
+            + "price_revision = GREATEST(price_revision, ?) WHERE cart_id = ? AND product_id = ?";
+    static final String INSERT_ITEM_SQL = "INSERT INTO cart_items "
+            + "(cart_id, product_id, quantity, discount, product_price, price_revision) VALUES (?, ?, ?, ?, ?, ?)";
+    static final String DELETE_ITEM_SQL = "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ?";
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final long idleMs;
+
+    private final ConcurrentHashMap<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder mutations = new LongAdder();
+    private final LongAdder cartsFlushed = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushTransactions = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CartStore(CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.cart.write-behind.enabled:false}") boolean writeBehind,
+            @Value("${app.cart.write-behind.batch-size:500}") int batchSize,
+            @Value("${app.cart.write-behind.idle-ms:1800000}") long idleMs) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Background and write-through flushes commit on their own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeBehind = writeBehind;
+        this.batchSize = batchSize;
+        this.idleMs = idleMs;
+    }
+
+    /**
+     * Runs reader on the user's cart under its lock.
+     */
+    public <T> T read(Long userId, String email, Function<CartState, T> reader) {
+        CartState cart = acquire(userId, email);
+        try {
+            return reader.apply(cart);
+        } finally {
+            release(cart);
+        }
+    }
+
+    /**
+     * Runs mutation on the user's cart under its lock; what it changed is written back later (or right
+     * away with write-behind off). A mutation that throws must not have changed the cart.
+     */
+    public <T> T update(Long userId, String email, Function<CartState, T> mutation) {
+        CartState cart = acquire(userId, email);
+        try {
+            T result = mutation.apply(cart);
+            mutations.increment();
+            if (cart.isDirty()) {
+                if (writeBehind) {
+                    dirty.add(userId);
+                } else {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> write(List.of(cart)));
+                        cart.markClean();
+                    } finally {
+                        evict(cart);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            release(cart);
+        }
+    }
+
+    /**
+     * Writes the buyer's pending cart changes in the checkout transaction and keeps the cart locked until
+     * that transaction ends. On commit the cart is dropped (checkout emptied it); on rollback it stays as
+     * it was, still dirty.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void flushForCheckout(Long userId, String email) {
+        writeInCallerTransaction(lockEntry(userId, email), true);
+    }
+
+    /**
+     * Writes the user's pending cart changes now, for readers of the cart rows (payment start). Inside a
+     * transaction they are written in it, on its connection, and the cart stays locked until it ends;
+     * outside one they get a transaction of their own.
+     */
+    public void flush(Long userId) {
+        CartState cart = carts.get(userId);
+        if (cart == null) {
+            return;
+        }
+        cart.lock.lock();
+        if (cart.evicted) {
+            cart.lock.unlock();
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            writeInCallerTransaction(cart, false);
+            return;
+        }
+        try {
+            if (cart.loaded && cart.isDirty()) {
+                transactionTemplate.executeWithoutResult(status -> write(List.of(cart)));
+                cart.markClean();
+                dirty.remove(userId);
+            }
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending cart change, waiting for busy carts; on shutdown.
+     */
+    @PreDestroy
+    public void flushAll() {
+        for (Long userId : new ArrayList<>(dirty)) {
+            flush(userId);
+        }
+    }
+
+    /**
+     * Applies a product price change cart repricing has written to cart_items to the carts held here.
+     */
+    public void applyPrice(Long productId, BigDecimal price, BigDecimal discount, Long revision) {
+        for (CartState cart : carts.values()) {
+            cart.lock.lock();
+            try {
+                CartLine line = cart.loaded ? cart.getLine(productId) : null;
+                if (line != null && line.priceRevision() < revision) {
+                    cart.putLoadedLine(line.withPrice(price, discount, revision));
+                }
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.cart.write-behind.flush-ms:2000}",
+            fixedDelayString = "${app.cart.write-behind.flush-ms:2000}")
+    public void flushDirty() {
+        List<CartState> batch = new ArrayList<>();
+        for (Long userId : new ArrayList<>(dirty)) {
+            CartState cart = carts.get(userId);
+            if (cart == null || !cart.lock.tryLock()) {
+                continue;
+            }
+            if (cart.evicted || !cart.isDirty()) {
+                dirty.remove(userId);
+                cart.lock.unlock();
+                continue;
+            }
+            batch.add(cart);
+            if (batch.size() == batchSize) {
+                writeLocked(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeLocked(batch);
+        }
+        evictIdle();
+    }
+
+    public Map<String, Object> stats() {
+        long transactions = flushTransactions.sum();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("writeBehind", writeBehind);
+        response.put("carts", carts.size());
+        response.put("dirty", dirty.size());
+        response.put("hits", hits.sum());
+        response.put("loads", loads.sum());
+        response.put("mutations", mutations.sum());
+        response.put("flushTransactions", transactions);
+        response.put("cartsFlushed", cartsFlushed.sum());
+        response.put("rowsWritten", rowsWritten.sum());
+        response.put("mutationsPerFlushTransaction", transactions > 0 ? (double) mutations.sum() / transactions : 0.0);
+        response.put("flushFailures", flushFailures.sum());
+        response.put("evictions", evictions.sum());
+        return response;
+    }
+
+    // Writes a cart the caller has locked in the caller's transaction; the lock is held until that
+    // transaction ends and the changes count as written only if it commits
+    private void writeInCallerTransaction(CartState cart, boolean evictOnCommit) {
+        boolean handedOver = false;
+        try {
+            if (cart.loaded && cart.isDirty()) {
+                write(List.of(cart));
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            cart.markClean();
+                            dirty.remove(cart.userId);
+                            if (evictOnCommit) {
+                                evict(cart);
+                            }
+                        }
+                        if (!cart.loaded) {
+                            evict(cart);
+                        }
+                    } finally {
+                        cart.lock.unlock();
+                    }
+                }
+            });
+            handedOver = true;
+        } finally {
+            if (!handedOver) {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    // Writes carts the caller has locked, in one transaction, then unlocks them
+    private void writeLocked(List<CartState> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+            for (CartState cart : batch) {
+                cart.markClean();
+                dirty.remove(cart.userId);
+            }
+        } catch (RuntimeException e) {
+            // Left dirty for the next run
+            flushFailures.increment();
+            log.warn("Cart flush of {} carts failed: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.forEach(cart -> cart.lock.unlock());
+        }
+    }
+
+    // Statements for the changed and removed lines of every cart, then the totals from the rows
+    private void write(List<CartState> batch) {
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        Set<Long> cartIds = new LinkedHashSet<>();
+        for (CartState cart : batch) {
+            Long cartId = cart.getCartId();
+            if (cartId == null) {
+                continue;
+            }
+            cartIds.add(cartId);
+            for (Long productId : cart.changed()) {
+                CartLine line = cart.getLine(productId);
+                updates.add(new Object[] { line.quantity(), line.priceRevision(), line.productPrice(),
+                        line.priceRevision(), line.discount(), line.priceRevision(), cartId, productId });
+            }
+            for (Long productId : cart.removed()) {
+                deletes.add(new Object[] { cartId, productId });
+            }
+        }
+        if (!updates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_ITEM_SQL, updates);
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    Object[] update = updates.get(i);
+                    // cart_id, product_id, quantity, discount, product_price, price_revision
+                    inserts.add(new Object[] { update[6], update[7], update[0], update[4], update[2], update[5] });
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
+            }
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, deletes);
+        }
+        if (!cartIds.isEmpty()) {
+            cartRepository.recalculateTotals(cartIds);
+        }
+        flushTransactions.increment();
+        cartsFlushed.add(cartIds.size());
+        rowsWritten.add(updates.size() + deletes.size() + cartIds.size());
+    }
+
+    private CartState acquire(Long userId, String email) {
+        CartState cart = lockEntry(userId, email);
+        try {
+            if (cart.loaded) {
+                hits.increment();
+            } else {
+                load(cart);
+            }
+            cart.lastAccessMillis = System.currentTimeMillis();
+            return cart;
+        } catch (RuntimeException e) {
+            cart.lock.unlock();
+            throw e;
+        }
+    }
+
+    private void release(CartState cart) {
+        cart.lock.unlock();
+    }
+
+    // The user's entry, locked; retries when it was evicted while waiting for the lock
+    private CartState lockEntry(Long userId, String email) {
+        while (true) {
+            CartState cart = carts.computeIfAbsent(userId, id -> new CartState(id, email));
+            cart.lock.lock();
+            if (!cart.evicted) {
+                return cart;
+            }
+            cart.lock.unlock();
+        }
+    }
+
+    private void load(CartState cart) {
+        Long cartId = cartRepository.findCartIdByUserId(cart.userId);
+        cart.setCartId(cartId);
+        if (cartId != null) {
+            for (CheckoutLine line : cartItemRepository.findCheckoutLinesByUserId(cart.userId)) {
+                CategoryDTO category = line.categoryId() != null
+                        ? new CategoryDTO(line.categoryId(), line.categoryName())
+                        : null;
+                ProductDTO product = new ProductDTO(line.productId(), line.productName(), line.image(),
+                        line.productQuantity(), line.description(), line.price(), line.specialPrice(),
+                        line.productDiscount(), category);
+                cart.putLoadedLine(new CartLine(product, line.quantity(), line.discount(), line.unitPrice(),
+                        line.priceRevision()));
+            }
+        }
+        cart.loaded = true;
+        loads.increment();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        for (CartState cart : carts.values()) {
+            if (cart.lastAccessMillis < cutoff && cart.lock.tryLock()) {
+                try {
+                    if (!cart.isDirty()) {
+                        evict(cart);
+                    }
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void evict(CartState cart) {
+        if (!cart.evicted) {
+            cart.evicted = true;
+            carts.remove(cart.userId, cart);
+            dirty.remove(cart.userId);
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.ecom.checkout;
+
+import com.example.ecom.exceptions.CheckoutRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded admission in front of order placement. At most {@code concurrency} checkouts run at once, so a
+ * sale cannot take every pooled connection away from the catalog; the rest wait here, before their
+ * transaction starts and without holding a connection.
+ *
+ * Waiting checkouts are kept per user: users are served round-robin and each user's checkouts in FIFO
+ * order, so one client retrying in a loop cannot push everyone else back. A full queue (or a user over
+ * the per-user limit) is rejected immediately, a checkout not admitted within max-wait is rejected when
+ * the wait runs out; both carry a Retry-After estimated from the current backlog and checkout time.
+ */
+@Slf4j
+@Component
+public class CheckoutAdmissionQueue {
+
+    // Upper bounds (ms) of the wait time histogram; the last bucket takes everything above
+    private static final long[] WAIT_BUCKETS_MS = { 1, 10, 50, 100, 500, 1000, 5000 };
+
+    private final int concurrency;
+    private final int queueDepth;
+    private final int perUserDepth;
+    private final long maxWaitMs;
+
+    // Guarded by this
+    private final LinkedHashMap<String, ArrayDeque<Ticket>> waiting = new LinkedHashMap<>();
+    private int running;
+    private int queued;
+    private double avgCheckoutMs = 100;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedUserLimit = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(WAIT_BUCKETS_MS.length + 1);
+
+    public CheckoutAdmissionQueue(@Value("${app.checkout.admission.concurrency:5}") int concurrency,
+            @Value("${app.checkout.admission.queue-depth:200}") int queueDepth,
+            @Value("${app.checkout.admission.per-user-depth:2}") int perUserDepth,
+            @Value("${app.checkout.admission.max-wait-ms:5000}") long maxWaitMs) {
+        this.concurrency = concurrency;
+        this.queueDepth = queueDepth;
+        this.perUserDepth = perUserDepth;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Runs the checkout once admitted. Throws CheckoutRejectedException (429 for a user over its limit,
+     * 503 for a full queue or an expired wait) without running it.
+     */
+    public <T> T submit(String user, Supplier<T> checkout) {
+        long queuedAt = System.nanoTime();
+        admit(user);
+        long startedAt = System.nanoTime();
+        recordWait(startedAt - queuedAt);
+        try {
+            return checkout.get();
+        } finally {
+            release((System.nanoTime() - startedAt) / 1e6);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long admittedCount = admitted.sum();
+        Map<String, Object> response = new LinkedHashMap<>();
+        synchronized (this) {
+            response.put("concurrencyLimit", concurrency);
+            response.put("queueDepthLimit", queueDepth);
+            response.put("running", running);
+            response.put("queued", queued);
+            response.put("avgCheckoutMillis", Math.round(avgCheckoutMs));
+        }
+        response.put("admitted", admittedCount);
+        response.put("rejectedQueueFull", rejectedQueueFull.sum());
+        response.put("rejectedUserLimit", rejectedUserLimit.sum());
+        response.put("rejectedTimeout", rejectedTimeout.sum());
+        response.put("avgWaitMillis", admittedCount > 0 ? totalWaitNanos.sum() / admittedCount / 1e6 : 0.0);
+        response.put("maxWaitMillis", maxWaitNanos.get() / 1e6);
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < WAIT_BUCKETS_MS.length; i++) {
+            histogram.put("<=" + WAIT_BUCKETS_MS[i] + "ms", waitHistogram.get(i));
+        }
+        histogram.put(">" + WAIT_BUCKETS_MS[WAIT_BUCKETS_MS.length - 1] + "ms",
+                waitHistogram.get(WAIT_BUCKETS_MS.length));
+        response.put("waitHistogram", histogram);
+        return response;
+    }
+
+    private void admit(String user) {
+        Ticket ticket;
+        synchronized (this) {
+            if (running < concurrency && queued == 0) {
+                running++;
+                return;
+            }
+            ArrayDeque<Ticket> userQueue = waiting.get(user);
+            if (userQueue != null && userQueue.size() >= perUserDepth) {
+                rejectedUserLimit.increment();
+                throw new CheckoutRejectedException(HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds(),
+                        "Too many checkouts in progress for this account");
+            }
+            if (queued >= queueDepth) {
+                rejectedQueueFull.increment();
+                throw new CheckoutRejectedException(HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds(),
+                        "Checkout is busy, please retry shortly");
+            }
+            ticket = new Ticket();
+            waiting.computeIfAbsent(user, key -> new ArrayDeque<>()).addLast(ticket);
+            queued++;
+        }
+
+        boolean signalled;
+        try {
+            signalled = ticket.latch.await(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            signalled = false;
+        }
+        if (signalled) {
+            return;
+        }
+        synchronized (this) {
+            if (ticket.admitted) {
+                // Admitted just as the wait ran out
+                return;
+            }
+            ArrayDeque<Ticket> userQueue = waiting.get(user);
+            userQueue.remove(ticket);
+            if (userQueue.isEmpty()) {
+                waiting.remove(user);
+            }
+            queued--;
+            rejectedTimeout.increment();
+            throw new CheckoutRejectedException(HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds(),
+                    "Checkout is busy, please retry shortly");
+        }
+    }
+
+    private synchronized void release(double checkoutMs) {
+        avgCheckoutMs = avgCheckoutMs * 0.9 + checkoutMs * 0.1;
+        running--;
+        // Round-robin over users: take the head user's oldest ticket, then move that user to the back
+        while (running < concurrency && queued > 0) {
+            Iterator<Map.Entry<String, ArrayDeque<Ticket>>> users = waiting.entrySet().iterator();
+            Map.Entry<String, ArrayDeque<Ticket>> next = users.next();
+            Ticket ticket = next.getValue().pollFirst();
+            users.remove();
+            if (!next.getValue().isEmpty()) {
+                waiting.put(next.getKey(), next.getValue());
+            }
+            queued--;
+            running++;
+            ticket.admitted = true;
+            ticket.latch.countDown();
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        admitted.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS_MS.length && waitMs > WAIT_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        waitHistogram.incrementAndGet(bucket);
+    }
+
+    // Time for the current backlog to drain at the observed checkout rate; called holding the lock
+    private long retryAfterSeconds() {
+        double drainMs = (queued + 1) * avgCheckoutMs / concurrency;
+        return Math.max(1, (long) Math.ceil(drainMs / 1000));
+    }
+
+    private static final class Ticket {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        // Guarded by the queue's lock
+        private boolean admitted;
+    }
+}
@@ -3,7 +3,10 @@ package com.example.ecom.config;
 public class AppConstants {
     public static final String PAGE_NUMBER = "1";
     public static final String PAGE_SIZE = "50";
+    // Order history pages are zero-based
+    public static final String ORDER_PAGE_NUMBER = "0";
     public static final String SORT_CATEGORIES_BY = "categoryId";
     public static final String SORT_PRODUCTS_BY = "productId";
     public static final String SORT_DIR = "asc";
+    public static final String HOT_SKU_SHARDS = "8";
 }
@@ -0,0 +1,53 @@
+package com.example.ecom.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Slf4j
+@Configuration
+@EnableAsync(proxyTargetClass = true)
+public class AsyncConfig {
+
+    // Bulk product imports; a full queue rejects new imports instead of piling them up
+    @Bean
+    public ThreadPoolTaskExecutor productImportExecutor(@Value("${app.import.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("product-import-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Cart repricing after price changes; work that does not fit the queue is left to the periodic sweep
+    @Bean
+    public ThreadPoolTaskExecutor cartRepricingExecutor(@Value("${app.cart.repricing.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("cart-repricing-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                log.warn("Cart repricing queue is full, leaving the work to the repricing sweep"));
+        executor.initialize();
+        return executor;
+    }
+
+    // Async order placement; a full queue leaves the request QUEUED in the database for the checkout sweep
+    @Bean
+    public ThreadPoolTaskExecutor checkoutExecutor(@Value("${app.checkout.async.workers:4}") int workers,
+            @Value("${app.checkout.async.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("checkout-");
+        executor.initialize();
+        return executor;
+    }
+}
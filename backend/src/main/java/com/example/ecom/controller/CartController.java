@@ -1,16 +1,18 @@
 package com.example.ecom.controller;
 
-import com.example.ecom.model.Cart;
+import com.example.ecom.cart.CartStore;
 import com.example.ecom.payload.CartDTO;
-import com.example.ecom.repositories.CartRepository;
+import com.example.ecom.payload.CartOperation;
 import com.example.ecom.service.CartService;
 import com.example.ecom.util.AuthUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/carts")
@@ -19,7 +21,7 @@ public class CartController {
 
     private final CartService cartService;
     private final AuthUtil authUtil;
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
 
     @PostMapping("/products/{productId}/quantity/{quantity}")
     public ResponseEntity<CartDTO> addProductToCart(@PathVariable Long productId,
@@ -28,7 +30,9 @@ public class CartController {
         return new ResponseEntity<>(cartDTO, HttpStatus.CREATED);
     }
 
+    // Admin: every cart as last written back (changes held by the cart store show up after its next flush)
     @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<CartDTO>> getCarts() {
         List<CartDTO> cartDTOS = cartService.getAllCarts();
         return new ResponseEntity<List<CartDTO>>(cartDTOS, HttpStatus.OK);
@@ -36,19 +40,17 @@ public class CartController {
 
     @GetMapping("/users/cart")
     public ResponseEntity<CartDTO> getCartById() {
-        String emailId = authUtil.loggedInEmail();
-        Cart cart = cartRepository.findCartByEmail(emailId);
-        if (cart == null) {
-            CartDTO emptyCart = new CartDTO();
-            emptyCart.setProducts(List.of());
-            emptyCart.setTotalPrice(java.math.BigDecimal.ZERO);
-            return new ResponseEntity<>(emptyCart, HttpStatus.OK);
-        }
-        Long cartId = cart.getCartId();
-        CartDTO cartDTO = cartService.getCart(emailId, cartId);
+        CartDTO cartDTO = cartService.getUserCart();
         return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
     }
 
+    // Write-behind cart store: held and dirty carts, hit rate, flushes and rows written
+    @GetMapping("/admin/store/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCartStoreStats() {
+        return ResponseEntity.ok(cartStore.stats());
+    }
+
     @PutMapping("/products/{productId}/quantity/{operation}")
     public ResponseEntity<CartDTO> updateCartProduct(@PathVariable Long productId,
             @PathVariable String operation) {
@@ -58,6 +60,13 @@ public class CartController {
         return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
     }
 
+    // Several add/set/remove changes in one request, e.g. from the cart screen
+    @PutMapping("/products")
+    public ResponseEntity<CartDTO> updateCart(@RequestBody List<CartOperation> operations) {
+        CartDTO cartDTO = cartService.updateCart(operations);
+        return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
+    }
+
     @DeleteMapping("/{cartId}/product/{productId}")
     public ResponseEntity<String> deleteProductFromCart(@PathVariable Long cartId,
             @PathVariable Long productId) {
@@ -4,19 +4,25 @@ import com.example.ecom.config.AppConstants;
 import com.example.ecom.model.Category;
 import com.example.ecom.payload.CategoryDTO;
 import com.example.ecom.payload.CategoryResponse;
+import com.example.ecom.service.CatalogVersionService;
 import com.example.ecom.service.CategoryService;
+import com.example.ecom.util.HttpCaching;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api")
 public class CategoryController {
     private final CategoryService categoryService;
+    private final CatalogVersionService catalogVersionService;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersionService catalogVersionService) {
         this.categoryService = categoryService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping("/public/categories")
@@ -24,10 +30,14 @@ public class CategoryController {
             @RequestParam(value = "pageNumber" , defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageSize,
             @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_CATEGORIES_BY ,required = false ) String sortBy,
-            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR , required = false) String sortOrder
+            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR , required = false) String sortOrder,
+            WebRequest webRequest
             ){
+        if (HttpCaching.notModified(webRequest, catalogVersionService.catalogVersion())) {
+            return null;
+        }
         CategoryResponse categories = categoryService.getAllCategories(pageNumber, pageSize, sortBy, sortOrder);
-        return new ResponseEntity<>(categories, HttpStatus.OK);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(categories);
     }
 
 
@@ -1,21 +1,39 @@
 package com.example.ecom.controller;
 
+import com.example.ecom.checkout.CheckoutAdmissionQueue;
+import com.example.ecom.config.AppConstants;
+import com.example.ecom.outbox.OutboxDispatcher;
+import com.example.ecom.payload.CheckoutStatus;
 import com.example.ecom.payload.OrderDTO;
 import com.example.ecom.payload.OrderRequestDTO;
+import com.example.ecom.payload.OrderResponse;
 import com.example.ecom.payload.StripePaymentDto;
 import com.example.ecom.security.response.MessageResponse;
+import com.example.ecom.service.AsyncCheckoutService;
+import com.example.ecom.service.CheckoutIdempotencyService;
+import com.example.ecom.service.OrderExportService;
 import com.example.ecom.service.OrderService;
+import com.example.ecom.service.OrderViewService;
 import com.example.ecom.service.StripeService;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -23,23 +41,48 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String STRIPE_SESSION_KEY_PREFIX = "stripe:";
+
     private final OrderService orderService;
     private final StripeService stripeService;
+    private final CheckoutAdmissionQueue checkoutAdmissionQueue;
+    private final CheckoutIdempotencyService checkoutIdempotencyService;
+    private final AsyncCheckoutService asyncCheckoutService;
+    private final OutboxDispatcher outboxDispatcher;
+    private final OrderExportService orderExportService;
+    private final OrderViewService orderViewService;
 
+    // A repeat with the same Idempotency-Key returns the orders of the first request
     @PostMapping("/users/payments/{paymentMethod}")
     public ResponseEntity<List<OrderDTO>> orderProduct(@PathVariable String paymentMethod,
-            @RequestBody OrderRequestDTO orderRequestDTO) {
-        List<OrderDTO> orderDTOs = orderService.placeOrder(
-                paymentMethod,
-                orderRequestDTO.getAddressId(),
-                orderRequestDTO.getPgPaymentId(),
-                orderRequestDTO.getPgStatus(),
-                orderRequestDTO.getPgResponseMessage(),
-                orderRequestDTO.getPgName());
+            @RequestBody OrderRequestDTO orderRequestDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // Queued before the order transaction starts, see CheckoutAdmissionQueue
+        List<OrderDTO> orderDTOs = checkoutIdempotencyService.placeOrderOnce(idempotencyKey,
+                () -> orderService.placeOrder(
+                        paymentMethod,
+                        orderRequestDTO.getAddressId(),
+                        orderRequestDTO.getPgPaymentId(),
+                        orderRequestDTO.getPgStatus(),
+                        orderRequestDTO.getPgResponseMessage(),
+                        orderRequestDTO.getPgName()));
 
         return new ResponseEntity<>(orderDTOs, HttpStatus.CREATED);
     }
 
+    // Async checkout: 202 with an order token right away, poll the token for the placed orders
+    @PostMapping("/users/payments/{paymentMethod}/async")
+    public ResponseEntity<CheckoutStatus> orderProductAsync(@PathVariable String paymentMethod,
+            @RequestBody OrderRequestDTO orderRequestDTO) {
+        CheckoutStatus status = asyncCheckoutService.submit(paymentMethod, orderRequestDTO);
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/users/checkouts/{token}")
+    public ResponseEntity<CheckoutStatus> getCheckoutStatus(@PathVariable String token) {
+        return ResponseEntity.ok(asyncCheckoutService.getStatus(token));
+    }
+
     @PostMapping("/stripe/create-session")
     public ResponseEntity<?> createStripeSession(@RequestBody StripePaymentDto stripePaymentDto) {
         try {
@@ -54,8 +97,14 @@ public class OrderController {
         }
     }
 
+    // The success page may be loaded many times; the session id makes placing its order idempotent
     @GetMapping("/stripe/validate")
     public ResponseEntity<?> validateStripeSession(@RequestParam String sessionId) {
+        String idempotencyKey = STRIPE_SESSION_KEY_PREFIX + sessionId;
+        Optional<List<OrderDTO>> placed = checkoutIdempotencyService.findCompleted(idempotencyKey);
+        if (placed.isPresent()) {
+            return new ResponseEntity<>(placed.get(), HttpStatus.CREATED);
+        }
         try {
             Session session = Session.retrieve(sessionId);
             if ("paid".equals(session.getPaymentStatus())) {
@@ -65,13 +114,14 @@ public class OrderController {
 
                 // Assuming paymentMethod is STRIPE and getting other details from session if
                 // needed
-                List<OrderDTO> orderDTOs = orderService.placeOrder(
-                        "STRIPE",
-                        addressId,
-                        session.getPaymentIntent(), // Use PaymentIntent ID as pgPaymentId
-                        session.getPaymentStatus(),
-                        "Payment Successful",
-                        "STRIPE");
+                List<OrderDTO> orderDTOs = checkoutIdempotencyService.placeOrderOnce(idempotencyKey,
+                        () -> orderService.placeOrder(
+                                "STRIPE",
+                                addressId,
+                                session.getPaymentIntent(), // Use PaymentIntent ID as pgPaymentId
+                                session.getPaymentStatus(),
+                                "Payment Successful",
+                                "STRIPE"));
 
                 return new ResponseEntity<>(orderDTOs, HttpStatus.CREATED);
             } else {
@@ -86,15 +136,23 @@ public class OrderController {
     }
 
     @GetMapping("/users/orders")
-    public ResponseEntity<?> getUserOrders() {
-        List<OrderDTO> orders = orderService.getUserOrders();
+    public ResponseEntity<OrderResponse> getUserOrders(
+            @RequestParam(value = "pageNumber", defaultValue = AppConstants.ORDER_PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        OrderResponse orders = orderService.getUserOrders(pageNumber, pageSize, from, to);
         return ResponseEntity.ok(orders);
     }
 
     // NEW: Get seller orders
     @GetMapping("/seller/orders")
-    public ResponseEntity<?> getSellerOrders() {
-        List<OrderDTO> orders = orderService.getSellerOrders();
+    public ResponseEntity<OrderResponse> getSellerOrders(
+            @RequestParam(value = "pageNumber", defaultValue = AppConstants.ORDER_PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        OrderResponse orders = orderService.getSellerOrders(pageNumber, pageSize, from, to);
         return ResponseEntity.ok(orders);
     }
 
@@ -107,8 +165,72 @@ public class OrderController {
 
     // NEW: Admin - Get all orders
     @GetMapping("/admin/all")
-    public ResponseEntity<?> getAllOrders() {
-        List<OrderDTO> orders = orderService.getAllOrders();
+    public ResponseEntity<OrderResponse> getAllOrders(
+            @RequestParam(value = "pageNumber", defaultValue = AppConstants.ORDER_PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        OrderResponse orders = orderService.getAllOrders(pageNumber, pageSize, from, to);
         return ResponseEntity.ok(orders);
     }
+
+    // Admin - stream orders as NDJSON (one order per line) or CSV (one row per item), optionally gzipped
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(value = "format", defaultValue = "ndjson", required = false) String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "sellerId", required = false) Long sellerId,
+            @RequestParam(value = "gzip", defaultValue = "false", required = false) boolean gzip) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.of(format);
+        String fileName = "orders." + exportFormat.name().toLowerCase(Locale.ROOT) + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == OrderExportService.Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, true)) {
+                    orderExportService.exportOrders(exportFormat, from, to, status, sellerId, gzipOut);
+                }
+            } else {
+                orderExportService.exportOrders(exportFormat, from, to, status, sellerId, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    // Admin - rebuild the order history documents: all of them, or only orders that have none
+    @PostMapping("/admin/order-view/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildOrderView(
+            @RequestParam(value = "missingOnly", defaultValue = "false", required = false) boolean missingOnly) {
+        return ResponseEntity.ok(orderViewService.rebuild(missingOnly));
+    }
+
+    // Admission queue state and wait time distribution
+    @GetMapping("/admin/checkout-queue/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCheckoutQueueStats() {
+        return ResponseEntity.ok(checkoutAdmissionQueue.stats());
+    }
+
+    // Async checkout backlog and workers
+    @GetMapping("/admin/checkout-async/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAsyncCheckoutStats() {
+        return ResponseEntity.ok(asyncCheckoutService.stats());
+    }
+
+    // Order event outbox: undelivered backlog and delivery counters
+    @GetMapping("/admin/outbox/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        return ResponseEntity.ok(outboxDispatcher.stats());
+    }
 }
@@ -1,18 +1,34 @@
 package com.example.ecom.controller;
 
+import com.example.ecom.cache.ProductCatalogCache;
 import com.example.ecom.config.AppConstants;
 import com.example.ecom.model.Product;
+import com.example.ecom.payload.HotSkuStatus;
+import com.example.ecom.payload.ProductCursorResponse;
 import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.payload.ProductDetail;
+import com.example.ecom.payload.ProductFilterResponse;
+import com.example.ecom.payload.ProductImportStatus;
 import com.example.ecom.payload.ProductResponse;
+import com.example.ecom.service.CatalogVersionService;
+import com.example.ecom.service.HotSkuService;
+import com.example.ecom.service.ProductImportService;
 import com.example.ecom.service.ProductService;
+import com.example.ecom.util.HttpCaching;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -20,6 +36,10 @@ import java.io.IOException;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductImportService productImportService;
+    private final CatalogVersionService catalogVersionService;
+    private final HotSkuService hotSkuService;
 
     @PostMapping("/admin/categories/{categoryId}/product")
     public ResponseEntity<ProductDTO> addProduct(@Valid @RequestBody ProductDTO productDTO,
@@ -28,10 +48,30 @@ public class ProductController {
         return new ResponseEntity<>(savedProductDTO, HttpStatus.CREATED);
     }
 
+    // Bulk CSV/NDJSON import; poll the returned job for progress and row errors
+    @PostMapping("/admin/categories/{categoryId}/products/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportStatus> importProducts(@PathVariable Long categoryId,
+            @RequestParam("file") MultipartFile file) {
+        ProductImportStatus status = productImportService.startImport(categoryId, file);
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/admin/products/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportStatus> getImportStatus(@PathVariable String jobId) {
+        ProductImportStatus status = productImportService.getImportStatus(jobId);
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
     @GetMapping("/public/products/{productId}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long productId) {
-        ProductDTO product = productService.getProductById(productId);
-        return new ResponseEntity<>(product, HttpStatus.OK);
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long productId, WebRequest webRequest) {
+        // Body and validators come from the catalog cache together; a hit answers a 304 without the database
+        ProductDetail product = productService.getProductById(productId);
+        if (HttpCaching.notModified(webRequest, product.version())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(product.product());
     }
 
     @GetMapping("/public/products")
@@ -39,9 +79,25 @@ public class ProductController {
             @RequestParam(value = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageSize,
             @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(value = "withTotals", defaultValue = "true", required = false) boolean withTotals,
+            WebRequest webRequest) {
+        if (HttpCaching.notModified(webRequest, catalogVersionService.catalogVersion())) {
+            return null;
+        }
+        ProductResponse productResponse = productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder,
+                withTotals);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(productResponse);
+    }
+
+    @GetMapping("/public/products/cursor")
+    public ResponseEntity<ProductCursorResponse> getAllProductsByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
             @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder) {
-        ProductResponse productResponse = productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+        ProductCursorResponse response = productService.getAllProductsByCursor(cursor, pageSize, sortBy, sortOrder);
+        return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping("/public/categories/{categoryId}/products")
@@ -49,10 +105,26 @@ public class ProductController {
             @RequestParam(value = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageSize,
             @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
-            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder) {
+            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(value = "withTotals", defaultValue = "true", required = false) boolean withTotals,
+            WebRequest webRequest) {
+        if (HttpCaching.notModified(webRequest, catalogVersionService.catalogVersion())) {
+            return null;
+        }
         ProductResponse productResponse = productService.searchByCategory(categoryId, pageNumber, pageSize, sortBy,
+                sortOrder, withTotals);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(productResponse);
+    }
+
+    @GetMapping("/public/categories/{categoryId}/products/cursor")
+    public ResponseEntity<ProductCursorResponse> getProductsByCategoryByCursor(@PathVariable Long categoryId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder) {
+        ProductCursorResponse response = productService.searchByCategoryByCursor(categoryId, cursor, pageSize, sortBy,
                 sortOrder);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+        return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping("/public/products/keyword/{keyword}")
@@ -66,6 +138,20 @@ public class ProductController {
         return new ResponseEntity<>(productResponse, HttpStatus.OK);
     }
 
+    @GetMapping("/public/products/filter")
+    public ResponseEntity<ProductFilterResponse> filterProducts(
+            @RequestParam(value = "categoryId", required = false) List<Long> categoryIds,
+            @RequestParam(value = "sellerId", required = false) List<Long> sellerIds,
+            @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(value = "minDiscount", required = false) BigDecimal minDiscount,
+            @RequestParam(value = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize) {
+        ProductFilterResponse response = productService.filterProducts(categoryIds, sellerIds, minPrice, maxPrice,
+                minDiscount, pageNumber, pageSize);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @PutMapping("/admin/products/{productId}")
     public ResponseEntity<ProductDTO> updateProduct(@Valid @RequestBody ProductDTO productDTO,
             @PathVariable Long productId,
@@ -112,4 +198,41 @@ public class ProductController {
         return new ResponseEntity<>(productResponse, HttpStatus.OK);
     }
 
+    @GetMapping("/seller/products/cursor")
+    public ResponseEntity<ProductCursorResponse> getProductsBySellerByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder) {
+        ProductCursorResponse response = productService.getProductsBySellerByCursor(cursor, pageSize, sortBy,
+                sortOrder);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Flash-sale mode: split the product's stock over shards so checkouts stop queueing on one row
+    @PutMapping("/admin/products/{productId}/hot-sku")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<HotSkuStatus> enableHotSku(@PathVariable Long productId,
+            @RequestParam(value = "shards", defaultValue = AppConstants.HOT_SKU_SHARDS, required = false) Integer shards) {
+        return new ResponseEntity<>(hotSkuService.enable(productId, shards), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/admin/products/{productId}/hot-sku")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<HotSkuStatus> disableHotSku(@PathVariable Long productId) {
+        return new ResponseEntity<>(hotSkuService.disable(productId), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/products/{productId}/hot-sku")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<HotSkuStatus> getHotSkuStatus(@PathVariable Long productId) {
+        return new ResponseEntity<>(hotSkuService.status(productId), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/products/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getProductCacheStats() {
+        return new ResponseEntity<>(productCatalogCache.stats(), HttpStatus.OK);
+    }
+
 }
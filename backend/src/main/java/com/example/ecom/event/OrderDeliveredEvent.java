@@ -0,0 +1,11 @@
+package com.example.ecom.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Outbox event for an order reaching Delivered; the seller is paid out from it (WalletSettlementHandler).
+ */
+public record OrderDeliveredEvent(Long orderId, Long sellerId, BigDecimal totalAmount) {
+
+    public static final String TYPE = "OrderDelivered";
+}
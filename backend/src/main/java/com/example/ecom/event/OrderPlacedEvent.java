@@ -0,0 +1,11 @@
+package com.example.ecom.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Outbox event for each order written by checkout (one per seller).
+ */
+public record OrderPlacedEvent(Long orderId, String email, Long sellerId, BigDecimal totalAmount) {
+
+    public static final String TYPE = "OrderPlaced";
+}
@@ -0,0 +1,9 @@
+package com.example.ecom.event;
+
+/**
+ * Outbox event for a seller or admin status update on an order.
+ */
+public record OrderStatusChangedEvent(Long orderId, String previousStatus, String status) {
+
+    public static final String TYPE = "OrderStatusChanged";
+}
@@ -0,0 +1,7 @@
+package com.example.ecom.event;
+
+/**
+ * Published after a product's specialPrice or discount changed; carts holding it are repriced asynchronously.
+ */
+public record ProductPriceChangedEvent(Long productId) {
+}
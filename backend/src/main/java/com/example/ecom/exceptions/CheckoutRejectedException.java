@@ -0,0 +1,21 @@
+package com.example.ecom.exceptions;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Checkout turned away by the admission queue before it touched the database. Answered with the status
+ * and a Retry-After header (seconds) by MyGlobalExceptionHandler.
+ */
+@Getter
+public class CheckoutRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public CheckoutRejectedException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.ecom.exceptions;
 
 import com.example.ecom.payload.APIResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -40,6 +41,14 @@ public class MyGlobalExceptionHandler {
         return new ResponseEntity<>(apiResponse, HttpStatus.BAD_REQUEST);
     }
 
+    // Checkout admission queue full or wait expired: tell the client when to come back
+    @ExceptionHandler(CheckoutRejectedException.class)
+    public ResponseEntity<APIResponse> myCheckoutRejectedException(CheckoutRejectedException e) {
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new APIResponse(e.getMessage(), false));
+    }
+
     // IMPORTANT: Handle JPA/Hibernate validation errors (entity-level)
     // Without this, constraint violations fall through to Spring Security and
     // return 401
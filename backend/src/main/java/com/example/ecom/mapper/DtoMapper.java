@@ -0,0 +1,56 @@
+package com.example.ecom.mapper;
+
+import com.example.ecom.model.Address;
+import com.example.ecom.model.Cart;
+import com.example.ecom.model.Category;
+import com.example.ecom.model.Order;
+import com.example.ecom.model.OrderItem;
+import com.example.ecom.model.Payment;
+import com.example.ecom.model.Product;
+import com.example.ecom.payload.AddressDTO;
+import com.example.ecom.payload.CartDTO;
+import com.example.ecom.payload.CategoryDTO;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.payload.OrderItemDTO;
+import com.example.ecom.payload.OrderItemSummary;
+import com.example.ecom.payload.OrderSummary;
+import com.example.ecom.payload.PaymentDTO;
+import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.payload.ProductSummary;
+
+/**
+ * Explicit entity <-> DTO mapping used on the hot paths instead of ModelMapper's reflective matching.
+ */
+public interface DtoMapper {
+
+    ProductDTO toProductDTO(Product product);
+
+    ProductDTO toProductDTO(ProductSummary summary);
+
+    // Copies the editable fields only; id, category, seller and image are set by the caller
+    Product toProduct(ProductDTO productDTO);
+
+    CategoryDTO toCategoryDTO(Category category);
+
+    // Copies the name only; id and active are set by the caller
+    Category toCategory(CategoryDTO categoryDTO);
+
+    AddressDTO toAddressDTO(Address address);
+
+    // Copies the address fields only; id and user are set by the caller
+    Address toAddress(AddressDTO addressDTO);
+
+    // Products carry the quantity in the cart, not the stock quantity
+    CartDTO toCartDTO(Cart cart);
+
+    // Order items are not included; callers add them from the loaded OrderItem rows
+    OrderDTO toOrderDTO(Order order);
+
+    OrderDTO toOrderDTO(OrderSummary summary);
+
+    OrderItemDTO toOrderItemDTO(OrderItem orderItem);
+
+    OrderItemDTO toOrderItemDTO(OrderItemSummary summary);
+
+    PaymentDTO toPaymentDTO(Payment payment);
+}
@@ -0,0 +1,225 @@
+package com.example.ecom.mapper;
+
+import com.example.ecom.model.Address;
+import com.example.ecom.model.Cart;
+import com.example.ecom.model.CartItem;
+import com.example.ecom.model.Category;
+import com.example.ecom.model.Order;
+import com.example.ecom.model.OrderItem;
+import com.example.ecom.model.Payment;
+import com.example.ecom.model.Product;
+import com.example.ecom.payload.AddressDTO;
+import com.example.ecom.payload.CartDTO;
+import com.example.ecom.payload.CategoryDTO;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.payload.OrderItemDTO;
+import com.example.ecom.payload.OrderItemSummary;
+import com.example.ecom.payload.OrderSummary;
+import com.example.ecom.payload.PaymentDTO;
+import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.payload.ProductSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class DtoMapperImpl implements DtoMapper {
+
+    @Override
+    public ProductDTO toProductDTO(Product product) {
+        if (product == null) {
+            return null;
+        }
+        return new ProductDTO(
+                product.getProductId(),
+                product.getProductName(),
+                product.getImage(),
+                product.getQuantity(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getSpecialPrice(),
+                product.getDiscount(),
+                toCategoryDTO(product.getCategory()));
+    }
+
+    @Override
+    public ProductDTO toProductDTO(ProductSummary summary) {
+        CategoryDTO category = summary.categoryId() != null
+                ? new CategoryDTO(summary.categoryId(), summary.categoryName())
+                : null;
+        return new ProductDTO(
+                summary.productId(),
+                summary.productName(),
+                summary.image(),
+                summary.quantity(),
+                summary.description(),
+                summary.price(),
+                summary.specialPrice(),
+                summary.discount(),
+                category);
+    }
+
+    @Override
+    public Product toProduct(ProductDTO productDTO) {
+        Product product = new Product();
+        product.setProductName(productDTO.getProductName());
+        product.setDescription(productDTO.getDescription());
+        product.setQuantity(productDTO.getQuantity());
+        product.setPrice(productDTO.getPrice());
+        product.setDiscount(productDTO.getDiscount());
+        product.setSpecialPrice(productDTO.getSpecialPrice());
+        return product;
+    }
+
+    @Override
+    public CategoryDTO toCategoryDTO(Category category) {
+        if (category == null) {
+            return null;
+        }
+        return new CategoryDTO(category.getCategoryId(), category.getCategoryName());
+    }
+
+    @Override
+    public Category toCategory(CategoryDTO categoryDTO) {
+        Category category = new Category();
+        category.setCategoryName(categoryDTO.getCategoryName());
+        return category;
+    }
+
+    @Override
+    public AddressDTO toAddressDTO(Address address) {
+        if (address == null) {
+            return null;
+        }
+        return new AddressDTO(
+                address.getAddressId(),
+                address.getStreet(),
+                address.getBuildingName(),
+                address.getCity(),
+                address.getState(),
+                address.getCountry(),
+                address.getPincode());
+    }
+
+    @Override
+    public Address toAddress(AddressDTO addressDTO) {
+        Address address = new Address();
+        address.setStreet(addressDTO.getStreet());
+        address.setBuildingName(addressDTO.getBuildingName());
+        address.setCity(addressDTO.getCity());
+        address.setState(addressDTO.getState());
+        address.setCountry(addressDTO.getCountry());
+        address.setPincode(addressDTO.getPincode());
+        return address;
+    }
+
+    @Override
+    public CartDTO toCartDTO(Cart cart) {
+        List<CartItem> cartItems = cart.getCartItems();
+        List<ProductDTO> products = new ArrayList<>(cartItems.size());
+        for (CartItem item : cartItems) {
+            ProductDTO productDTO = toProductDTO(item.getProduct());
+            productDTO.setQuantity(item.getQuantity());
+            products.add(productDTO);
+        }
+        return new CartDTO(cart.getCartId(), cart.getTotalPrice(), products);
+    }
+
+    @Override
+    public OrderDTO toOrderDTO(Order order) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setOrderId(order.getOrderId());
+        orderDTO.setEmail(order.getEmail());
+        orderDTO.setOrderDate(order.getOrderDate());
+        orderDTO.setPayment(toPaymentDTO(order.getPayment()));
+        orderDTO.setTotalAmount(order.getTotalAmount());
+        orderDTO.setOrderStatus(order.getOrderStatus());
+        if (order.getAddress() != null) {
+            orderDTO.setAddressId(order.getAddress().getAddressId());
+            orderDTO.setAddress(toAddressDTO(order.getAddress()));
+        }
+        return orderDTO;
+    }
+
+    @Override
+    public OrderDTO toOrderDTO(OrderSummary summary) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setOrderId(summary.orderId());
+        orderDTO.setEmail(summary.email());
+        orderDTO.setOrderDate(summary.orderDate());
+        orderDTO.setTotalAmount(summary.totalAmount());
+        orderDTO.setOrderStatus(summary.orderStatus());
+        if (summary.paymentId() != null) {
+            orderDTO.setPayment(new PaymentDTO(
+                    summary.paymentId(),
+                    summary.paymentMethod(),
+                    summary.pgPaymentId(),
+                    summary.pgStatus(),
+                    summary.pgName(),
+                    summary.pgResponseMessage()));
+        }
+        if (summary.addressId() != null) {
+            orderDTO.setAddressId(summary.addressId());
+            orderDTO.setAddress(new AddressDTO(
+                    summary.addressId(),
+                    summary.street(),
+                    summary.buildingName(),
+                    summary.city(),
+                    summary.state(),
+                    summary.country(),
+                    summary.pincode()));
+        }
+        return orderDTO;
+    }
+
+    @Override
+    public OrderItemDTO toOrderItemDTO(OrderItem orderItem) {
+        return new OrderItemDTO(
+                orderItem.getOrderItemId(),
+                toProductDTO(orderItem.getProduct()),
+                orderItem.getQuantity(),
+                orderItem.getDiscount(),
+                orderItem.getOrderedProductPrice());
+    }
+
+    @Override
+    public OrderItemDTO toOrderItemDTO(OrderItemSummary summary) {
+        ProductDTO product = null;
+        if (summary.productId() != null) {
+            CategoryDTO category = summary.categoryId() != null
+                    ? new CategoryDTO(summary.categoryId(), summary.categoryName())
+                    : null;
+            product = new ProductDTO(
+                    summary.productId(),
+                    summary.productName(),
+                    summary.image(),
+                    null,
+                    summary.description(),
+                    summary.price(),
+                    summary.specialPrice(),
+                    summary.productDiscount(),
+                    category);
+        }
+        return new OrderItemDTO(
+                summary.orderItemId(),
+                product,
+                summary.quantity(),
+                summary.discount(),
+                summary.orderedProductPrice());
+    }
+
+    @Override
+    public PaymentDTO toPaymentDTO(Payment payment) {
+        if (payment == null) {
+            return null;
+        }
+        return new PaymentDTO(
+                payment.getPaymentId(),
+                payment.getPaymentMethod(),
+                payment.getPgPaymentId(),
+                payment.getPgStatus(),
+                payment.getPgName(),
+                payment.getPgResponseMessage());
+    }
+}
@@ -4,11 +4,12 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", indexes = @Index(name = "idx_cart_items_product", columnList = "product_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,4 +33,9 @@ public class CartItem {
 
     @Column(precision = 19, scale = 2)
     private BigDecimal productPrice = BigDecimal.ZERO;
+
+    // Product.priceRevision that productPrice was taken from
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long priceRevision = 0L;
 }
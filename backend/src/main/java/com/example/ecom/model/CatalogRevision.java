@@ -0,0 +1,31 @@
+package com.example.ecom.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Single-row, catalog-wide revision counter behind the ETags of the public listing endpoints.
+ * Shared through the database so every node hands out the same validators.
+ */
+@Entity
+@Table(name = "catalog_revision")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRevision {
+
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    private Long revision;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,61 @@
+package com.example.ecom.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A checkout accepted for background processing (async order placement), keyed by the order token
+ * handed back to the client. Holds what placeOrder needs, so a worker on any node can run it after a
+ * restart; once processed it keeps the outcome: the placed orders as JSON, or why it failed.
+ */
+@Entity
+@Table(name = "checkout_request", indexes = {
+        @Index(name = "idx_checkout_request_status", columnList = "status, createdAt") })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequest {
+
+    @Id
+    @Column(length = 36)
+    private String token;
+
+    @Column(nullable = false)
+    private String email;
+
+    private Long userId;
+
+    private String paymentMethod;
+    private Long addressId;
+    private String pgPaymentId;
+    private String pgStatus;
+    private String pgResponseMessage;
+    private String pgName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // List<OrderDTO> as JSON once completed
+    @Column(columnDefinition = "text")
+    private String result;
+
+    private String errorMessage;
+
+    private Instant createdAt;
+
+    private Instant finishedAt;
+
+    public enum Status {
+        QUEUED,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.ecom.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a checkout run under an idempotency key (the Idempotency-Key header, or the Stripe session
+ * id), stored by the checkout transaction itself. The primary key is the buyer's email plus the key, so
+ * keys from different buyers never collide.
+ */
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_record_created", columnList = "createdAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 255)
+    private String recordKey;
+
+    @Column(nullable = false)
+    private String email;
+
+    // List<OrderDTO> returned by the checkout, as JSON
+    @Column(columnDefinition = "text")
+    private String response;
+
+    private Instant createdAt;
+}
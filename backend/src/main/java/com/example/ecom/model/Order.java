@@ -12,7 +12,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_email_date", columnList = "email, orderDate"),
+        @Index(name = "idx_orders_seller_date", columnList = "seller_id, orderDate") })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,46 @@
+package com.example.ecom.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Read model for order history: one row per order holding its OrderDTO as JSON (items with the product
+ * name and price as ordered, address, payment), so a history page is one range scan on email or seller
+ * instead of joins over orders, order items, products, categories, addresses and payments. Written by
+ * the same transactions that write the order.
+ */
+@Entity
+@Table(name = "order_view", indexes = {
+        @Index(name = "idx_order_view_email_date", columnList = "email, orderDate, orderId"),
+        @Index(name = "idx_order_view_seller_date", columnList = "sellerId, orderDate, orderId"),
+        @Index(name = "idx_order_view_date", columnList = "orderDate, orderId") })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderView {
+
+    @Id
+    private Long orderId;
+
+    @Column(nullable = false)
+    private String email;
+
+    private Long sellerId;
+
+    private LocalDate orderDate;
+
+    // OrderDTO as JSON
+    @Column(columnDefinition = "text", nullable = false)
+    private String document;
+
+    private Instant updatedAt;
+}
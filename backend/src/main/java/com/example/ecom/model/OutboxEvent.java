@@ -0,0 +1,55 @@
+package com.example.ecom.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A domain event written in the same transaction as the change it describes (transactional outbox).
+ * OutboxDispatcher delivers PENDING events after the commit; a failed delivery is retried at availableAt.
+ */
+@Entity
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "idx_outbox_event_due", columnList = "status, availableAt") })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long eventId;
+
+    @Column(length = 64, nullable = false)
+    private String eventType;
+
+    // Order id for the order events
+    private Long aggregateId;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    private String lastError;
+
+    private Instant createdAt;
+
+    private Instant availableAt;
+
+    private Instant deliveredAt;
+
+    public enum Status {
+        PENDING,
+        DELIVERED,
+        FAILED // gave up after app.outbox.max-attempts
+    }
+}
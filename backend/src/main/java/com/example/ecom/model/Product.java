@@ -6,12 +6,15 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_product_category", columnList = "categoryId"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,6 +43,24 @@ public class Product {
     @Column(precision = 19, scale = 2)
     private BigDecimal specialPrice = BigDecimal.ZERO;
 
+    // Bumped in the database (ProductRepository.incrementPriceRevision) whenever the sale price changes;
+    // cart items remember the revision they were priced at
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long priceRevision = 0L;
+
+    // Units held by live soft reservations (StockReservation); available = quantity - reservedQuantity.
+    // Changed in the database only, by StockReservationServiceImpl and the checkout decrement
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Integer reservedQuantity = 0;
+
+    // Flash-sale mode: stock lives in product_stock_shard rows and quantity is their reconciled sum,
+    // see HotSkuServiceImpl. Changed in the database only (ProductRepository.updateStockMode)
+    @ColumnDefault("false")
+    @Column(nullable = false, updatable = false)
+    private Boolean hotSku = false;
+
     @ManyToOne
     @JoinColumn(name = "categoryId")
     private Category category;
@@ -53,4 +74,13 @@ public class Product {
 
     // Soft delete: false = deleted/inactive
     private Boolean active = true;
+
+    // Drives the product detail ETag / Last-Modified
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = Instant.now();
+    }
 }
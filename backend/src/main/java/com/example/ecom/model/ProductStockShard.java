@@ -0,0 +1,34 @@
+package com.example.ecom.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One slice of a hot SKU's stock. Checkouts decrement a single shard, so concurrent buyers of the same
+ * product lock different rows instead of queueing on the product row.
+ */
+@Entity
+@Table(name = "product_stock_shard",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_stock_shard", columnNames = { "productId", "shardNo" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long shardId;
+
+    private Long productId;
+
+    private Integer shardNo;
+
+    private Integer quantity;
+}
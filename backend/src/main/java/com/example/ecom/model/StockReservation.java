@@ -0,0 +1,39 @@
+package com.example.ecom.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Units of a product held for a buyer between the start of payment and order placement. The held units
+ * are also counted in product.reservedQuantity; this row records who holds them and until when.
+ */
+@Entity
+@Table(name = "stock_reservation", indexes = {
+        @Index(name = "idx_stock_reservation_email", columnList = "email"),
+        @Index(name = "idx_stock_reservation_expires", columnList = "expiresAt") })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long reservationId;
+
+    private String email;
+
+    private Long productId;
+
+    private Integer quantity;
+
+    private Instant expiresAt;
+}
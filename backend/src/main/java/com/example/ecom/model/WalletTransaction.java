@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
  * Types: CREDIT (money in), DEBIT (money out), COMMISSION (platform fee)
  */
 @Entity
-@Table(name = "wallet_transactions")
+// At most one payout and one commission per order, whatever delivers the order's event twice
+@Table(name = "wallet_transactions", uniqueConstraints = @UniqueConstraint(name = "uk_wallet_transactions_order_type",
+        columnNames = { "order_id", "type" }))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,49 @@
+package com.example.ecom.outbox;
+
+import com.example.ecom.model.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox events to the OutboxEventHandler beans of this application, by event type.
+ */
+@Slf4j
+@Component
+public class InProcessOutboxTransport implements OutboxTransport {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, List<OutboxEventHandler<?>>> handlersByType;
+
+    public InProcessOutboxTransport(ObjectMapper objectMapper, List<OutboxEventHandler<?>> handlers) {
+        this.objectMapper = objectMapper;
+        this.handlersByType = handlers.stream()
+                .collect(Collectors.groupingBy(OutboxEventHandler::eventType));
+    }
+
+    @Override
+    public void deliver(OutboxEvent event) {
+        List<OutboxEventHandler<?>> handlers = handlersByType.getOrDefault(event.getEventType(), List.of());
+        if (handlers.isEmpty()) {
+            log.debug("No handler for outbox event {} ({})", event.getEventId(), event.getEventType());
+        }
+        for (OutboxEventHandler<?> handler : handlers) {
+            handle(handler, event);
+        }
+    }
+
+    private <T> void handle(OutboxEventHandler<T> handler, OutboxEvent event) {
+        T payload;
+        try {
+            payload = objectMapper.readValue(event.getPayload(), handler.payloadType());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload in outbox event " + event.getEventId(), e);
+        }
+        handler.handle(payload);
+    }
+}
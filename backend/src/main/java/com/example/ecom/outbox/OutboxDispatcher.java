@@ -0,0 +1,150 @@
+package com.example.ecom.outbox;
+
+import com.example.ecom.model.OutboxEvent;
+import com.example.ecom.repositories.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls the outbox for due events in id order and hands them to the OutboxTransport, one transaction per
+ * event: the event row is locked (skipping rows another node holds), delivered and marked DELIVERED
+ * together. A failed delivery rolls back and is retried with exponential backoff; after max-attempts the
+ * event is parked as FAILED for an operator to look at. Delivered events are purged after the retention.
+ *
+ * Delivery is at least once as seen from outside the database; handlers that only write to the database
+ * run in the delivery transaction and so take effect once.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxTransport outboxTransport;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+    private final Duration retention;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+            OutboxTransport outboxTransport,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.outbox.batch-size:100}") int batchSize,
+            @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${app.outbox.retry-base-ms:1000}") long retryBaseMs,
+            @Value("${app.outbox.retry-max-ms:300000}") long retryMaxMs,
+            @Value("${app.outbox.retention-hours:24}") long retentionHours) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxTransport = outboxTransport;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    // Keeps polling while full batches get delivered, so a backlog drains without waiting for the next tick
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:500}")
+    public void dispatch() {
+        List<Long> due;
+        int sent;
+        do {
+            due = outboxEventRepository.findDueIds(OutboxEvent.Status.PENDING, Instant.now(),
+                    PageRequest.of(0, batchSize));
+            sent = 0;
+            for (Long eventId : due) {
+                if (deliver(eventId)) {
+                    sent++;
+                }
+            }
+        } while (due.size() == batchSize && sent > 0);
+    }
+
+    @Scheduled(initialDelayString = "PT1H", fixedDelayString = "PT1H")
+    public void purgeDelivered() {
+        int purged = transactionTemplate.execute(status -> outboxEventRepository.deleteDeliveredBefore(
+                OutboxEvent.Status.DELIVERED, Instant.now().minus(retention)));
+        if (purged > 0) {
+            log.debug("Purged {} delivered outbox events", purged);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Instant oldest = outboxEventRepository.findOldestCreatedAt(OutboxEvent.Status.PENDING);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("pending", outboxEventRepository.countByStatus(OutboxEvent.Status.PENDING));
+        response.put("failed", outboxEventRepository.countByStatus(OutboxEvent.Status.FAILED));
+        response.put("oldestPendingMillis", oldest != null ? Duration.between(oldest, Instant.now()).toMillis() : 0);
+        response.put("delivered", delivered.sum());
+        response.put("retried", retried.sum());
+        response.put("gaveUp", failed.sum());
+        return response;
+    }
+
+    private boolean deliver(Long eventId) {
+        try {
+            Boolean sent = transactionTemplate.execute(status -> {
+                OutboxEvent event = outboxEventRepository.findByIdForDelivery(eventId).orElse(null);
+                if (event == null || event.getStatus() != OutboxEvent.Status.PENDING) {
+                    return false;
+                }
+                outboxTransport.deliver(event);
+                event.setStatus(OutboxEvent.Status.DELIVERED);
+                event.setAttempts(event.getAttempts() + 1);
+                event.setDeliveredAt(Instant.now());
+                return true;
+            });
+            if (Boolean.TRUE.equals(sent)) {
+                delivered.increment();
+                return true;
+            }
+            return false;
+        } catch (RuntimeException e) {
+            recordFailure(eventId, e);
+            return false;
+        }
+    }
+
+    private void recordFailure(Long eventId, RuntimeException error) {
+        String message = String.valueOf(error.getMessage());
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findByIdForDelivery(eventId)
+                .filter(event -> event.getStatus() == OutboxEvent.Status.PENDING)
+                .ifPresent(event -> {
+                    int attempts = event.getAttempts() + 1;
+                    event.setAttempts(attempts);
+                    event.setLastError(message.length() > MAX_ERROR_LENGTH
+                            ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                    if (attempts >= maxAttempts) {
+                        event.setStatus(OutboxEvent.Status.FAILED);
+                        failed.increment();
+                        log.error("Giving up on outbox event {} ({}) after {} attempts: {}", eventId,
+                                event.getEventType(), attempts, message);
+                    } else {
+                        long backoffMs = Math.min(retryMaxMs, retryBaseMs << Math.min(attempts - 1, 20));
+                        event.setAvailableAt(Instant.now().plusMillis(backoffMs));
+                        retried.increment();
+                        log.warn("Outbox event {} ({}) failed, retrying in {} ms: {}", eventId,
+                                event.getEventType(), backoffMs, message);
+                    }
+                }));
+    }
+}
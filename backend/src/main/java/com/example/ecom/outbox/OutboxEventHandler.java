@@ -0,0 +1,17 @@
+package com.example.ecom.outbox;
+
+/**
+ * Receives one type of outbox event, with the payload read back into payloadType. Every handler bean is
+ * registered with InProcessOutboxTransport.
+ *
+ * A handler runs in the transaction that marks the event delivered, so its database writes commit with
+ * the delivery and roll back (to be retried) if any handler of the event fails.
+ */
+public interface OutboxEventHandler<T> {
+
+    String eventType();
+
+    Class<T> payloadType();
+
+    void handle(T payload);
+}
@@ -0,0 +1,7 @@
+package com.example.ecom.outbox;
+
+/**
+ * An event to add to the outbox; payload is written as JSON.
+ */
+public record OutboxMessage(String eventType, Long aggregateId, Object payload) {
+}
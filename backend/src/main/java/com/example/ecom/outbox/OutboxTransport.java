@@ -0,0 +1,13 @@
+package com.example.ecom.outbox;
+
+import com.example.ecom.model.OutboxEvent;
+
+/**
+ * Where OutboxDispatcher sends events. The in-process transport calls the local handlers; a broker
+ * transport (publishing to a topic named after the event type) can replace it without touching the
+ * writers or the dispatcher. Throwing means the event is retried later.
+ */
+public interface OutboxTransport {
+
+    void deliver(OutboxEvent event);
+}
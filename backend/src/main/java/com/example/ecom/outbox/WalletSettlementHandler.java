@@ -0,0 +1,38 @@
+package com.example.ecom.outbox;
+
+import com.example.ecom.event.OrderDeliveredEvent;
+import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.model.Order;
+import com.example.ecom.repositories.OrderRepository;
+import com.example.ecom.service.WalletService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pays the seller (and the platform commission) for a delivered order, off the status update transaction.
+ * Idempotent per order: WalletService.processOrderCompletion skips an order that already has its payout.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletSettlementHandler implements OutboxEventHandler<OrderDeliveredEvent> {
+
+    private final OrderRepository orderRepository;
+    private final WalletService walletService;
+
+    @Override
+    public String eventType() {
+        return OrderDeliveredEvent.TYPE;
+    }
+
+    @Override
+    public Class<OrderDeliveredEvent> payloadType() {
+        return OrderDeliveredEvent.class;
+    }
+
+    @Override
+    public void handle(OrderDeliveredEvent event) {
+        Order order = orderRepository.findById(event.orderId())
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "orderId", event.orderId()));
+        walletService.processOrderCompletion(order, null);
+    }
+}
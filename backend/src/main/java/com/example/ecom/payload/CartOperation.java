@@ -0,0 +1,33 @@
+package com.example.ecom.payload;
+
+import com.example.ecom.exceptions.APIException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * One change of a batch cart update: add quantity units of a product, set its line to quantity units
+ * (0 removes it) or remove its line.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+    private String action;
+    private Long productId;
+    private Integer quantity;
+
+    public enum Action {
+        ADD, SET, REMOVE;
+
+        public static Action of(String action) {
+            try {
+                return valueOf(action.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new APIException("Unsupported cart operation: " + action);
+            }
+        }
+    }
+}
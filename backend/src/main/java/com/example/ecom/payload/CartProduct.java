@@ -0,0 +1,28 @@
+package com.example.ecom.payload;
+
+import java.math.BigDecimal;
+
+/**
+ * A product as a cart change needs it: the ProductDTO columns plus stock and price revision, loaded for
+ * all products of a batch cart update in one query.
+ */
+public record CartProduct(
+        Long productId,
+        String productName,
+        String image,
+        Integer quantity,
+        Integer reservedQuantity,
+        Boolean hotSku,
+        String description,
+        BigDecimal price,
+        BigDecimal specialPrice,
+        BigDecimal discount,
+        Long priceRevision,
+        Long categoryId,
+        String categoryName) {
+
+    public ProductSummary summary() {
+        return new ProductSummary(productId, productName, image, quantity, description, price, specialPrice,
+                discount, categoryId, categoryName);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.ecom.payload;
+
+import java.time.Instant;
+
+/**
+ * Validators for a conditional GET: a strong ETag (quoted) and the Last-Modified instant.
+ */
+public record CatalogVersion(String etag, Instant lastModified) {
+}
@@ -0,0 +1,33 @@
+package com.example.ecom.payload;
+
+import java.math.BigDecimal;
+
+/**
+ * One cart line as checkout (and the CartStore) needs it: the cart item with its product, category and
+ * seller columns, loaded for the whole cart in one query.
+ */
+public record CheckoutLine(
+        Long cartId,
+        Long productId,
+        Long sellerId,
+        Integer quantity,
+        BigDecimal discount,
+        BigDecimal cartPrice,
+        String productName,
+        String image,
+        Integer productQuantity,
+        String description,
+        BigDecimal price,
+        BigDecimal specialPrice,
+        BigDecimal productDiscount,
+        Long categoryId,
+        String categoryName,
+        Long priceRevision) {
+
+    /**
+     * The price the item was put in the cart at, or the product's special price for items without one.
+     */
+    public BigDecimal unitPrice() {
+        return cartPrice != null ? cartPrice : specialPrice;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.ecom.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutStatus {
+    private String token;
+    private String status; // QUEUED, COMPLETED, FAILED
+    private List<OrderDTO> orders; // once COMPLETED
+    private String message; // why it FAILED
+    private Instant createdAt;
+    private Instant finishedAt;
+}
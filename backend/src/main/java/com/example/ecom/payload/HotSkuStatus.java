@@ -0,0 +1,7 @@
+package com.example.ecom.payload;
+
+/**
+ * Stock mode of a product: shards is 0 when the product is not a hot SKU; quantity is the live total.
+ */
+public record HotSkuStatus(Long productId, boolean hotSku, int shards, int quantity) {
+}
@@ -0,0 +1,24 @@
+package com.example.ecom.payload;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of an order item with the product and category columns shown in order history.
+ * The product's stock is left out: it is not part of what was ordered.
+ */
+public record OrderItemSummary(
+        Long orderItemId,
+        Long orderId,
+        Integer quantity,
+        BigDecimal discount,
+        BigDecimal orderedProductPrice,
+        Long productId,
+        String productName,
+        String image,
+        String description,
+        BigDecimal price,
+        BigDecimal specialPrice,
+        BigDecimal productDiscount,
+        Long categoryId,
+        String categoryName) {
+}
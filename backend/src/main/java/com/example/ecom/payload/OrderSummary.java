@@ -0,0 +1,29 @@
+package com.example.ecom.payload;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of an order row with its seller id, payment and address columns.
+ */
+public record OrderSummary(
+        Long orderId,
+        String email,
+        LocalDate orderDate,
+        BigDecimal totalAmount,
+        String orderStatus,
+        Long paymentId,
+        String paymentMethod,
+        String pgPaymentId,
+        String pgStatus,
+        String pgName,
+        String pgResponseMessage,
+        Long addressId,
+        String street,
+        String buildingName,
+        String city,
+        String state,
+        String country,
+        String pincode,
+        Long sellerId) {
+}
@@ -0,0 +1,17 @@
+package com.example.ecom.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCursorResponse {
+    private List<ProductDTO> content;
+    private Integer pageSize;
+    private String nextCursor; // null when there is no next page
+    private boolean lastPage;
+}
@@ -0,0 +1,8 @@
+package com.example.ecom.payload;
+
+/**
+ * A product detail body with the validators of the row it was mapped from, cached together so the
+ * ETag sent always labels this exact body.
+ */
+public record ProductDetail(ProductDTO product, CatalogVersion version) {
+}
@@ -0,0 +1,23 @@
+package com.example.ecom.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportStatus {
+    private String jobId;
+    private Long categoryId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    private List<ProductImportError> errors; // first app.import.max-errors row errors
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -16,4 +16,6 @@ public class ProductResponse {
     private Long totalElements;
     private Integer totalPages;
     private boolean lastPage;
+    // Only set when totals are skipped (withTotals=false); estimate from planner statistics
+    private Long approximateTotalElements;
 }
@@ -0,0 +1,20 @@
+package com.example.ecom.payload;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of the columns ProductDTO needs, selected with a constructor
+ * expression so list queries skip the seller/roles joins and the persistence context.
+ */
+public record ProductSummary(
+        Long productId,
+        String productName,
+        String image,
+        Integer quantity,
+        String description,
+        BigDecimal price,
+        BigDecimal specialPrice,
+        BigDecimal discount,
+        Long categoryId,
+        String categoryName) {
+}
@@ -0,0 +1,7 @@
+package com.example.ecom.payload;
+
+/**
+ * One line of a stock movement: take (or give back) quantity units of a product.
+ */
+public record StockLine(Long productId, Integer quantity) {
+}
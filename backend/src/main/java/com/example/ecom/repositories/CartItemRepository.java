@@ -1,10 +1,16 @@
 package com.example.ecom.repositories;
 
 import com.example.ecom.model.CartItem;
+import com.example.ecom.payload.CheckoutLine;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     @Query("Select ci From CartItem ci where ci.product.productId = ?1 And ci.cart.cartId = ?2")
@@ -13,4 +19,37 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Modifying
     @Query(value = "DELETE FROM cart_items WHERE product_id = ?1 AND cart_id = ?2", nativeQuery = true)
     void deleteCartItemByProductIdAndCartId(Long productId, Long cartId);
+
+    // Cart repricing: items still priced at an older revision of the product, as (cartItemId, cartId)
+    @Query("SELECT ci.cartItemId, ci.cart.cartId FROM CartItem ci "
+            + "WHERE ci.product.productId = ?1 AND ci.priceRevision < ?2 ORDER BY ci.cartItemId")
+    List<Object[]> findStaleItems(Long productId, Long priceRevision, Pageable pageable);
+
+    // The revision guard makes a replayed or out-of-order repricing a no-op
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.productPrice = ?2, ci.discount = ?3, ci.priceRevision = ?4 "
+            + "WHERE ci.cartItemId IN ?1 AND ci.priceRevision < ?4")
+    int repriceItems(Collection<Long> cartItemIds, BigDecimal productPrice, BigDecimal discount, Long priceRevision);
+
+    // Products whose revision moved past some cart item, for the repricing sweep
+    @Query("SELECT DISTINCT ci.product.productId FROM CartItem ci WHERE ci.priceRevision < ci.product.priceRevision")
+    List<Long> findProductIdsWithStaleCartItems(Pageable pageable);
+
+    String CHECKOUT_LINE = "SELECT new com.example.ecom.payload.CheckoutLine(c.cartId, p.productId, s.userId, "
+            + "ci.quantity, ci.discount, ci.productPrice, p.productName, p.image, p.quantity, p.description, "
+            + "p.price, p.specialPrice, p.discount, cat.categoryId, cat.categoryName, ci.priceRevision) "
+            + "FROM CartItem ci JOIN ci.cart c JOIN c.user u JOIN ci.product p "
+            + "LEFT JOIN p.user s LEFT JOIN p.category cat ";
+
+    // Checkout: the buyer's whole cart with product, category and seller columns in one query
+    @Query(CHECKOUT_LINE + "WHERE u.email = ?1 ORDER BY ci.cartItemId")
+    List<CheckoutLine> findCheckoutLinesByEmail(String email);
+
+    // CartStore: loading a user's cart on a miss
+    @Query(CHECKOUT_LINE + "WHERE u.userId = ?1 ORDER BY ci.cartItemId")
+    List<CheckoutLine> findCheckoutLinesByUserId(Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE cart_id = ?1", nativeQuery = true)
+    int deleteAllByCartId(Long cartId);
 }
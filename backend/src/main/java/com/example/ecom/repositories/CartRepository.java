@@ -2,9 +2,10 @@ package com.example.ecom.repositories;
 
 import com.example.ecom.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
-import java.util.List;
+import java.util.Collection;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
@@ -15,9 +16,21 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c WHERE c.user.email = ?1 AND c.cartId = ?2")
     Cart findCartByEmailAndCartId(String emailId, Long cartId);
 
-    @Query("SELECT c FROM Cart c JOIN FETCH c.cartItems ci JOIN FETCH ci.product p WHERE p.productId = ?1")
-        // join fetch de lay du lieu luon ko bi lazy
-        //lazy la co che tai du lieu khi can thiet
-    List<Cart> findCartByProductId(Long productId);
+    // Totals are recomputed from the items, so running it twice gives the same result.
+    // Bumping version makes a concurrent cart write that read the old total fail its optimistic lock.
+    @Modifying
+    @Query(value = "UPDATE carts SET total_price = COALESCE((SELECT SUM(ci.product_price * ci.quantity) "
+            + "FROM cart_items ci WHERE ci.cart_id = carts.cart_id), 0), version = version + 1 "
+            + "WHERE cart_id IN (?1)", nativeQuery = true)
+    int recalculateTotals(Collection<Long> cartIds);
 
+    boolean existsByUserEmail(String email);
+
+    @Query("SELECT c.cartId FROM Cart c WHERE c.user.userId = ?1")
+    Long findCartIdByUserId(Long userId);
+
+    // Emptying a cart after checkout; like recalculateTotals it bumps version for concurrent cart writes
+    @Modifying
+    @Query(value = "UPDATE carts SET total_price = 0, version = version + 1 WHERE cart_id = ?1", nativeQuery = true)
+    int resetTotal(Long cartId);
 }
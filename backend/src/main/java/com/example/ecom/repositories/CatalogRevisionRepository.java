@@ -0,0 +1,17 @@
+package com.example.ecom.repositories;
+
+import com.example.ecom.model.CatalogRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface CatalogRevisionRepository extends JpaRepository<CatalogRevision, Long> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CatalogRevision c SET c.revision = c.revision + 1, c.updatedAt = ?2 WHERE c.id = ?1")
+    int increment(Long id, Instant updatedAt);
+}
@@ -0,0 +1,31 @@
+package com.example.ecom.repositories;
+
+import com.example.ecom.model.CheckoutRequest;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface CheckoutRequestRepository extends JpaRepository<CheckoutRequest, String> {
+
+    Optional<CheckoutRequest> findByTokenAndEmail(String token, String email);
+
+    // Held until the order transaction ends: a second worker on the same token waits here, then sees it processed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CheckoutRequest c WHERE c.token = ?1")
+    Optional<CheckoutRequest> findByTokenForUpdate(String token);
+
+    // Sweep: requests no worker has picked up (queue was full, or the node stopped), oldest first
+    @Query("SELECT c.token FROM CheckoutRequest c WHERE c.status = ?1 AND c.createdAt < ?2 ORDER BY c.createdAt")
+    List<String> findTokensByStatusCreatedBefore(CheckoutRequest.Status status, Instant cutoff, Pageable pageable);
+
+    long countByStatus(CheckoutRequest.Status status);
+
+    @Query("SELECT MIN(c.createdAt) FROM CheckoutRequest c WHERE c.status = ?1")
+    Instant findOldestCreatedAt(CheckoutRequest.Status status);
+}
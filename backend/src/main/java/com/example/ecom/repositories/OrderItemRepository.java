@@ -2,10 +2,20 @@ package com.example.ecom.repositories;
 
 import com.example.ecom.model.Order;
 import com.example.ecom.model.OrderItem;
+import com.example.ecom.payload.OrderItemSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder(Order order);
+
+    @Query("SELECT new com.example.ecom.payload.OrderItemSummary(oi.orderItemId, oi.order.orderId, oi.quantity, "
+            + "oi.discount, oi.orderedProductPrice, p.productId, p.productName, p.image, p.description, "
+            + " p.price, p.specialPrice, p.discount, c.categoryId, c.categoryName) "
+            + "FROM OrderItem oi LEFT JOIN oi.product p LEFT JOIN p.category c "
+            + "WHERE oi.order.orderId IN ?1 ORDER BY oi.orderItemId")
+    List<OrderItemSummary> findSummariesByOrderIdIn(Collection<Long> orderIds);
 }
@@ -0,0 +1,132 @@
+package com.example.ecom.repositories;
+
+import com.example.ecom.model.Order;
+import com.example.ecom.model.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checkout writes as JDBC batches. Payments, orders and order items use IDENTITY keys, which keeps
+ * Hibernate from batching their inserts (it needs every id right after its insert), so placeOrder
+ * writes each table here in one batch and reads the generated ids back from the batch.
+ *
+ * Runs on the caller's connection, so the rows commit or roll back with the checkout transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderJdbcRepository {
+
+    static final String INSERT_PAYMENT_SQL = "INSERT INTO payments "
+            + "(payment_method, pg_payment_id, pg_status, pg_response_message, pg_name) VALUES (?, ?, ?, ?, ?)";
+    static final String INSERT_ORDER_SQL = "INSERT INTO orders (email, order_date, payment_id, total_amount, "
+            + "order_status, address_id, seller_id, commission_amount, seller_earning) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String INSERT_ORDER_ITEM_SQL = "INSERT INTO order_items "
+            + "(product_id, order_id, quantity, discount, ordered_product_price) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * An order item row to insert; orderId must already be generated.
+     */
+    public record NewOrderItem(Long orderId, Long productId, Integer quantity, BigDecimal discount,
+            BigDecimal orderedProductPrice) {
+    }
+
+    /**
+     * Inserts the payments and sets their generated paymentId.
+     */
+    public void insertPayments(List<Payment> payments) {
+        List<Long> ids = insert(INSERT_PAYMENT_SQL, "payment_id", payments.size(), (ps, i) -> {
+            Payment payment = payments.get(i);
+            ps.setString(1, payment.getPaymentMethod());
+            ps.setString(2, payment.getPgPaymentId());
+            ps.setString(3, payment.getPgStatus());
+            ps.setString(4, payment.getPgResponseMessage());
+            ps.setString(5, payment.getPgName());
+        });
+        for (int i = 0; i < payments.size(); i++) {
+            payments.get(i).setPaymentId(ids.get(i));
+        }
+    }
+
+    /**
+     * Inserts the orders and sets their generated orderId. Payment, address and seller are written as
+     * their ids, so the payments have to be inserted first.
+     */
+    public void insertOrders(List<Order> orders) {
+        List<Long> ids = insert(INSERT_ORDER_SQL, "order_id", orders.size(), (ps, i) -> {
+            Order order = orders.get(i);
+            ps.setString(1, order.getEmail());
+            ps.setObject(2, order.getOrderDate(), Types.DATE);
+            ps.setObject(3, order.getPayment() != null ? order.getPayment().getPaymentId() : null, Types.BIGINT);
+            ps.setBigDecimal(4, order.getTotalAmount());
+            ps.setString(5, order.getOrderStatus());
+            ps.setObject(6, order.getAddress() != null ? order.getAddress().getAddressId() : null, Types.BIGINT);
+            ps.setObject(7, order.getSeller() != null ? order.getSeller().getUserId() : null, Types.BIGINT);
+            ps.setBigDecimal(8, order.getCommissionAmount());
+            ps.setBigDecimal(9, order.getSellerEarning());
+        });
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setOrderId(ids.get(i));
+        }
+    }
+
+    /**
+     * Inserts the order items and returns their generated ids, in the order of the given list.
+     */
+    public List<Long> insertOrderItems(List<NewOrderItem> items) {
+        return insert(INSERT_ORDER_ITEM_SQL, "order_item_id", items.size(), (ps, i) -> {
+            NewOrderItem item = items.get(i);
+            ps.setObject(1, item.productId(), Types.BIGINT);
+            ps.setLong(2, item.orderId());
+            ps.setInt(3, item.quantity());
+            ps.setBigDecimal(4, item.discount());
+            ps.setBigDecimal(5, item.orderedProductPrice());
+        });
+    }
+
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    private List<Long> insert(String sql, String idColumn, int size, RowSetter rowSetter) {
+        if (size == 0) {
+            return List.of();
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[] { idColumn }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        rowSetter.setValues(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                }, keyHolder);
+
+        // Drivers differ in the case of the returned column name, so take the only value of each row
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != size) {
+            throw new IllegalStateException("Expected " + size + " generated ids for " + idColumn
+                    + " but got " + keys.size());
+        }
+        return keys.stream()
+                .map(row -> ((Number) row.values().iterator().next()).longValue())
+                .toList();
+    }
+}
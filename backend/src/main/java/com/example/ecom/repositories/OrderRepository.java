@@ -2,15 +2,26 @@ package com.example.ecom.repositories;
 
 import com.example.ecom.model.Order;
 import com.example.ecom.model.User;
+import com.example.ecom.payload.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    // Status updates: serializes concurrent updates of one order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId = ?1")
+    Optional<Order> findByIdForUpdate(Long orderId);
+
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o")
     Double getTotalRevenue();
 
@@ -20,4 +31,22 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     // For Admin: get all orders
     List<Order> findAllByOrderByOrderDateDesc();
+
+    // Read paths: constructor projections with seller id, payment and address columns only
+    String ORDER_SUMMARY = "SELECT new com.example.ecom.payload.OrderSummary(o.orderId, o.email, o.orderDate, "
+            + "o.totalAmount, o.orderStatus, pay.paymentId, pay.paymentMethod, pay.pgPaymentId, pay.pgStatus, "
+            + "pay.pgName, pay.pgResponseMessage, a.addressId, a.street, a.buildingName, a.city, a.state, "
+            + "a.country, a.pincode, s.userId) "
+            + "FROM Order o LEFT JOIN o.payment pay LEFT JOIN o.address a LEFT JOIN o.seller s ";
+
+    @Query(ORDER_SUMMARY + "WHERE o.orderId IN ?1 ORDER BY o.orderId")
+    List<OrderSummary> findSummariesByOrderIdIn(Collection<Long> orderIds);
+
+    // Order view rebuild: ids in order, one batch at a time
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > ?1 ORDER BY o.orderId")
+    List<Long> findOrderIdsAfter(Long orderId, Pageable pageable);
+
+    // Keeps status updates out while a batch of order views is rebuilt from these rows
+    @Query(value = "SELECT order_id FROM orders WHERE order_id IN (?1) FOR UPDATE", nativeQuery = true)
+    List<Long> lockByOrderIdIn(Collection<Long> orderIds);
 }
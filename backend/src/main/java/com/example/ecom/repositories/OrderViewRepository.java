@@ -0,0 +1,44 @@
+package com.example.ecom.repositories;
+
+import com.example.ecom.model.OrderView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderViewRepository extends JpaRepository<OrderView, Long> {
+
+    // History pages, newest first; the date range is inclusive
+    @Query(value = "SELECT v.document FROM OrderView v WHERE v.email = ?1 AND v.orderDate BETWEEN ?2 AND ?3 "
+            + "ORDER BY v.orderDate DESC, v.orderId DESC",
+            countQuery = "SELECT COUNT(v) FROM OrderView v WHERE v.email = ?1 AND v.orderDate BETWEEN ?2 AND ?3")
+    Page<String> findDocumentsByEmail(String email, LocalDate from, LocalDate to, Pageable pageable);
+
+    @Query(value = "SELECT v.document FROM OrderView v WHERE v.sellerId = ?1 AND v.orderDate BETWEEN ?2 AND ?3 "
+            + "ORDER BY v.orderDate DESC, v.orderId DESC",
+            countQuery = "SELECT COUNT(v) FROM OrderView v WHERE v.sellerId = ?1 AND v.orderDate BETWEEN ?2 AND ?3")
+    Page<String> findDocumentsBySellerId(Long sellerId, LocalDate from, LocalDate to, Pageable pageable);
+
+    @Query(value = "SELECT v.document FROM OrderView v WHERE v.orderDate BETWEEN ?1 AND ?2 "
+            + "ORDER BY v.orderDate DESC, v.orderId DESC",
+            countQuery = "SELECT COUNT(v) FROM OrderView v WHERE v.orderDate BETWEEN ?1 AND ?2")
+    Page<String> findAllDocuments(LocalDate from, LocalDate to, Pageable pageable);
+
+    // Backfill: orders written before the read model existed
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > ?1 "
+            + "AND NOT EXISTS (SELECT v.orderId FROM OrderView v WHERE v.orderId = o.orderId) ORDER BY o.orderId")
+    List<Long> findOrderIdsWithoutViewAfter(Long orderId, Pageable pageable);
+
+    // Current documents of a rebuild batch: (orderId, document)
+    @Query("SELECT v.orderId, v.document FROM OrderView v WHERE v.orderId IN ?1")
+    List<Object[]> findDocumentsByOrderIdIn(Collection<Long> orderIds);
+
+    @Modifying
+    @Query("DELETE FROM OrderView v WHERE v.orderId IN ?1")
+    int deleteByOrderIdIn(Collection<Long> orderIds);
+}
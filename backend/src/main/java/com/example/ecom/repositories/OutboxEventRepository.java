@@ -0,0 +1,37 @@
+package com.example.ecom.repositories;
+
+import com.example.ecom.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.eventId FROM OutboxEvent e WHERE e.status = ?1 AND e.availableAt <= ?2 ORDER BY e.eventId")
+    List<Long> findDueIds(OutboxEvent.Status status, Instant now, Pageable pageable);
+
+    // Skips an event another node is delivering right now instead of waiting for it (-2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.eventId = ?1")
+    Optional<OutboxEvent> findByIdForDelivery(Long eventId);
+
+    long countByStatus(OutboxEvent.Status status);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = ?1")
+    Instant findOldestCreatedAt(OutboxEvent.Status status);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = ?1 AND e.deliveredAt < ?2")
+    int deleteDeliveredBefore(OutboxEvent.Status status, Instant cutoff);
+}
@@ -2,9 +2,28 @@ package com.example.ecom.repositories;
 
 import com.example.ecom.model.Category;
 import com.example.ecom.model.Product;
+import com.example.ecom.payload.CartProduct;
+import com.example.ecom.payload.ProductSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> findByCategoryOrderByPriceAsc(Category category, Pageable pageDetails);
@@ -22,4 +41,146 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     // Active products by seller
     Page<Product> findByUserAndActiveTrue(com.example.ecom.model.User user, Pageable pageable);
+
+    // Keyset (seek) pagination - no offset scan and no count query
+    Window<Product> findByActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Product> findByCategoryAndActiveTrue(Category category, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Product> findByUserAndActiveTrue(com.example.ecom.model.User user, ScrollPosition position, Sort sort,
+            Limit limit);
+
+    // Search index rebuild: only the indexed columns, walked in productId order
+    @Query("SELECT p.productId, p.productName, p.description FROM Product p "
+            + "WHERE p.active = true AND p.productId > ?1 ORDER BY p.productId")
+    List<Object[]> findActiveSearchFieldsAfter(Long lastProductId, Pageable pageable);
+
+    boolean existsByCategory_CategoryIdAndProductNameIgnoreCase(Long categoryId, String productName);
+
+    // Bulk import duplicate check: every name already used in the category, lower-cased
+    @Query("SELECT lower(p.productName) FROM Product p WHERE p.category.categoryId = ?1")
+    List<String> findLowerProductNamesByCategoryId(Long categoryId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.priceRevision = p.priceRevision + 1 WHERE p.productId = ?1")
+    void incrementPriceRevision(Long productId);
+
+    // Admin edits write only the columns they change. Loading the product and saving it back would also write
+    // its stock columns and undo any checkout decrement that committed in between
+    String UPDATE_IMAGE_SQL = "UPDATE product SET image = :image, updated_at = :updatedAt "
+            + "WHERE product_id = :productId";
+    String DEACTIVATE_SQL = "UPDATE product SET active = false, updated_at = :updatedAt "
+            + "WHERE product_id = :productId";
+    String UPDATE_DETAILS_SQL = "UPDATE product SET product_name = :productName, description = :description, "
+            + "price = :price, discount = :discount, special_price = :specialPrice, category_id = :categoryId, "
+            + "updated_at = :updatedAt WHERE product_id = :productId";
+    // Stock set by an admin: only over the value the edit was based on, never below the units held
+    String SET_QUANTITY_SQL = "UPDATE product SET quantity = :quantity, updated_at = :updatedAt "
+            + "WHERE product_id = :productId AND COALESCE(quantity, 0) = :expected "
+            + "AND :quantity >= reserved_quantity";
+
+    // Clears the persistence context, so a product loaded before is not flushed over the update
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = UPDATE_IMAGE_SQL, nativeQuery = true)
+    int updateImage(@Param("productId") Long productId, @Param("image") String image,
+            @Param("updatedAt") Instant updatedAt);
+
+    // Clears the persistence context, so a product loaded before is not flushed over the update
+    @Modifying(clearAutomatically = true)
+    @Query(value = DEACTIVATE_SQL, nativeQuery = true)
+    int deactivate(@Param("productId") Long productId, @Param("updatedAt") Instant updatedAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = UPDATE_DETAILS_SQL, nativeQuery = true)
+    int updateDetails(@Param("productId") Long productId, @Param("productName") String productName,
+            @Param("description") String description, @Param("price") BigDecimal price,
+            @Param("discount") BigDecimal discount, @Param("specialPrice") BigDecimal specialPrice,
+            @Param("categoryId") Long categoryId, @Param("updatedAt") Instant updatedAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = SET_QUANTITY_SQL, nativeQuery = true)
+    int setQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity,
+            @Param("expected") Integer expected, @Param("updatedAt") Instant updatedAt);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.productId = ?1")
+    Optional<Product> findByIdForUpdate(Long productId);
+
+    // Switches a product in or out of hot SKU mode and sets its stock in the same statement.
+    // Hot SKUs take no soft reservations and enable refuses a product with held units, so none are dropped
+    @Modifying
+    @Query("UPDATE Product p SET p.hotSku = ?2, p.quantity = ?3, p.reservedQuantity = 0, p.updatedAt = ?4 "
+            + "WHERE p.productId = ?1")
+    int updateStockMode(Long productId, boolean hotSku, Integer quantity, Instant updatedAt);
+
+    @Query("SELECT p.productId FROM Product p WHERE p.hotSku = true AND p.productId IN ?1")
+    List<Long> findHotSkuIdsIn(Collection<Long> productIds);
+
+    // Hot SKU flush: product.quantity := sum of its shards, only where it drifted
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE product p SET quantity = (SELECT COALESCE(SUM(s.quantity), 0) "
+            + "FROM product_stock_shard s WHERE s.product_id = p.product_id), updated_at = CURRENT_TIMESTAMP "
+            + "WHERE p.hot_sku = true AND p.quantity <> (SELECT COALESCE(SUM(s.quantity), 0) "
+            + "FROM product_stock_shard s WHERE s.product_id = p.product_id)", nativeQuery = true)
+    int reconcileHotSkuQuantities();
+
+    // Current price and revision, for cart repricing: (specialPrice, discount, priceRevision)
+    @Query("SELECT p.specialPrice, p.discount, p.priceRevision FROM Product p WHERE p.productId = ?1")
+    List<Object[]> findPriceRevision(Long productId);
+
+    // Facet index rebuild: productId, categoryId, sellerId, specialPrice, discount, active
+    @Query("SELECT p.productId, c.categoryId, u.userId, p.specialPrice, p.discount, p.active "
+            + "FROM Product p LEFT JOIN p.category c LEFT JOIN p.user u "
+            + "WHERE p.productId > ?1 ORDER BY p.productId")
+    List<Object[]> findFacetFieldsAfter(Long lastProductId, Pageable pageable);
+
+    // Database search backend (app.search.backend=postgres); relies on the columns and
+    // indexes created by PostgresSearchSchemaInitializer. Pass an unsorted Pageable.
+    @Query(value = "SELECT p.* FROM product p, websearch_to_tsquery('simple', :keyword) q "
+            + "WHERE p.active = true AND (p.search_vector @@ q OR p.product_name % :keyword) "
+            + "ORDER BY ts_rank(p.search_vector, q) DESC, similarity(p.product_name, :keyword) DESC, p.product_id",
+            countQuery = "SELECT count(*) FROM product p, websearch_to_tsquery('simple', :keyword) q "
+                    + "WHERE p.active = true AND (p.search_vector @@ q OR p.product_name % :keyword)",
+            nativeQuery = true)
+    Page<Product> searchFullText(@Param("keyword") String keyword, Pageable pageable);
+
+    // Read paths: constructor projections, no managed entities and no seller/roles joins
+    String PRODUCT_SUMMARY = "SELECT new com.example.ecom.payload.ProductSummary(p.productId, p.productName, "
+            + "p.image, p.quantity, p.description, p.price, p.specialPrice, p.discount, c.categoryId, c.categoryName) "
+            + "FROM Product p LEFT JOIN p.category c ";
+
+    @Query(value = PRODUCT_SUMMARY + "WHERE p.active = true",
+            countQuery = "SELECT count(p) FROM Product p WHERE p.active = true")
+    Page<ProductSummary> findActiveSummaries(Pageable pageable);
+
+    // Slice variants fetch pageSize + 1 rows to know if there is a next page and run no count query
+    @Query(PRODUCT_SUMMARY + "WHERE p.active = true")
+    Slice<ProductSummary> findActiveSummarySlice(Pageable pageable);
+
+    // Category listing: every product of the category, inactive ones included, cheapest first and then the
+    // pageable's sort, as findByCategoryOrderByPriceAsc did
+    @Query(PRODUCT_SUMMARY + "WHERE c.categoryId = ?1 ORDER BY p.price ASC")
+    Slice<ProductSummary> findSummarySliceByCategoryId(Long categoryId, Pageable pageable);
+
+    @Query(value = PRODUCT_SUMMARY + "WHERE c.categoryId = ?1 ORDER BY p.price ASC",
+            countQuery = "SELECT count(p) FROM Product p WHERE p.category.categoryId = ?1")
+    Page<ProductSummary> findSummariesByCategoryId(Long categoryId, Pageable pageable);
+
+    @Query(value = PRODUCT_SUMMARY + "WHERE p.active = true AND p.user.userId = ?1",
+            countQuery = "SELECT count(p) FROM Product p WHERE p.active = true AND p.user.userId = ?1")
+    Page<ProductSummary> findActiveSummariesBySellerId(Long sellerId, Pageable pageable);
+
+    @Query(PRODUCT_SUMMARY + "WHERE p.productId IN ?1")
+    List<ProductSummary> findSummariesByProductIdIn(Collection<Long> productIds);
+
+    // Batch cart updates: every product referenced, with its stock columns
+    @Query("SELECT new com.example.ecom.payload.CartProduct(p.productId, p.productName, p.image, p.quantity, "
+            + "p.reservedQuantity, p.hotSku, p.description, p.price, p.specialPrice, p.discount, p.priceRevision, "
+            + "c.categoryId, c.categoryName) FROM Product p LEFT JOIN p.category c WHERE p.productId IN ?1")
+    List<CartProduct> findCartProductsByProductIdIn(Collection<Long> productIds);
 }
@@ -0,0 +1,37 @@
+package com.example.ecom.repositories;
+
+import com.example.ecom.model.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    // Conditional decrement of one shard; 0 when the shard holds too little (or does not exist)
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity - ?3 "
+            + "WHERE s.productId = ?1 AND s.shardNo = ?2 AND s.quantity >= ?3")
+    int decrement(Long productId, Integer shardNo, Integer quantity);
+
+    // All shards of a product, locked in shardNo order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = ?1 ORDER BY s.shardNo")
+    List<ProductStockShard> findByProductIdForUpdate(Long productId);
+
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockShard s WHERE s.productId = ?1")
+    int sumQuantityByProductId(Long productId);
+
+    long countByProductId(Long productId);
+
+    // Hot SKUs and their shard counts: (productId, shards)
+    @Query("SELECT s.productId, COUNT(s) FROM ProductStockShard s GROUP BY s.productId")
+    List<Object[]> countShardsByProduct();
+
+    @Modifying
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = ?1")
+    int deleteByProductId(Long productId);
+}
@@ -0,0 +1,23 @@
+package com.example.ecom.repositories;
+
+import com.example.ecom.model.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByEmail(String email);
+
+    // Startup reload of live reservations, walked in id order
+    List<StockReservation> findByExpiresAtAfterAndReservationIdGreaterThanOrderByReservationId(Instant now,
+            Long lastReservationId, Pageable pageable);
+
+    // Safety sweep: reservations whose wheel entry was lost (node stopped before they expired), in id order
+    @Query("SELECT r.reservationId FROM StockReservation r WHERE r.expiresAt < ?1 AND r.reservationId > ?2 "
+            + "ORDER BY r.reservationId")
+    List<Long> findIdsExpiredBefore(Instant cutoff, Long lastReservationId, Pageable pageable);
+}
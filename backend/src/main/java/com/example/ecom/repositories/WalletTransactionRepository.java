@@ -19,6 +19,8 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
     List<WalletTransaction> findByWalletAndTypeOrderByCreatedAtDesc(Wallet wallet,
             WalletTransaction.TransactionType type);
 
+    boolean existsByRelatedOrder_OrderIdAndType(Long orderId, WalletTransaction.TransactionType type);
+
     @Query("SELECT SUM(t.amount) FROM WalletTransaction t WHERE t.wallet = ?1 AND t.type = ?2")
     BigDecimal sumByWalletAndType(Wallet wallet, WalletTransaction.TransactionType type);
 }
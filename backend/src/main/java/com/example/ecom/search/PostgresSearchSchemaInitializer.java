@@ -0,0 +1,40 @@
+package com.example.ecom.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the database-side search structures that ddl-auto cannot express:
+ * a generated tsvector column with a GIN index for full-text matching, and a
+ * pg_trgm GIN index on product_name for fuzzy matching. Every statement is idempotent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.search.backend", havingValue = "postgres")
+public class PostgresSearchSchemaInitializer implements ApplicationRunner {
+
+    static final String[] STATEMENTS = {
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "ALTER TABLE product ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('simple', coalesce(product_name, '')), 'A') || "
+                    + "setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_product_search_vector ON product USING GIN (search_vector)",
+            "CREATE INDEX IF NOT EXISTS idx_product_name_trgm ON product USING GIN (product_name gin_trgm_ops)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String statement : STATEMENTS) {
+            jdbcTemplate.execute(statement);
+        }
+        log.info("Postgres product search schema is ready");
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.ecom.search;
+
+import com.example.ecom.model.Product;
+import com.example.ecom.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Roaring bitmaps over the catalog, one per categoryId, sellerId, price bucket and discount bucket,
+ * plus one for the active flag. Filters are ANDed in memory and facet counts are taken with
+ * andCardinality, so a filter request never runs GROUP BY queries against the product table.
+ *
+ * Facet counts are disjunctive: the counts of one facet ignore that facet's own filter, so the
+ * client can show how many products each alternative value would give.
+ */
+@Slf4j
+@Component
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String SELLER = "seller";
+    public static final String PRICE = "price";
+    public static final String DISCOUNT = "discount";
+
+    private static final BigDecimal DISCOUNT_STEP = BigDecimal.TEN;
+    private static final int DISCOUNT_BUCKETS = 10;
+
+    private final ProductRepository productRepository;
+    private final int rebuildBatchSize;
+    private final BigDecimal[] priceBounds;
+    private final BigDecimal[] discountBounds;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index;
+    private volatile boolean ready = false;
+    // Writes made while a rebuild runs, replayed over the rebuilt index before it is swapped in;
+    // a null value is a removal. Null when no rebuild runs; guarded by the write lock
+    private Map<Long, Doc> rebuildWrites;
+
+    public ProductFacetIndex(ProductRepository productRepository,
+            @Value("${app.search.index.rebuild-batch-size:1000}") int rebuildBatchSize,
+            @Value("${app.facet.price-buckets:50,100,200,500,1000}") List<BigDecimal> priceBuckets) {
+        this.productRepository = productRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.priceBounds = lowerBounds(priceBuckets);
+        List<BigDecimal> discountSteps = new ArrayList<>();
+        for (int i = 1; i < DISCOUNT_BUCKETS; i++) {
+            discountSteps.add(DISCOUNT_STEP.multiply(BigDecimal.valueOf(i)));
+        }
+        this.discountBounds = lowerBounds(discountSteps);
+        this.index = new Index(priceBounds.length, discountBounds.length);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuildWrites = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Index newIndex = new Index(priceBounds.length, discountBounds.length);
+
+        long lastId = 0L;
+        List<Object[]> batch;
+        do {
+            batch = productRepository.findFacetFieldsAfter(lastId, PageRequest.of(0, rebuildBatchSize));
+            for (Object[] row : batch) {
+                Long productId = (Long) row[0];
+                newIndex.add(productId, new Doc((Long) row[1], (Long) row[2], (BigDecimal) row[3],
+                        (BigDecimal) row[4], Boolean.TRUE.equals(row[5])));
+                lastId = productId;
+            }
+        } while (batch.size() == rebuildBatchSize);
+
+        newIndex.runOptimize();
+        lock.writeLock().lock();
+        try {
+            // The batches may have read a row before an edit (or missed one added behind lastId)
+            rebuildWrites.forEach((productId, doc) -> {
+                newIndex.remove(productId);
+                if (doc != null) {
+                    newIndex.add(productId, doc);
+                }
+            });
+            rebuildWrites = null;
+            index = newIndex;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product facet index rebuilt: {} products ({} active) in {} ms",
+                newIndex.docs.size(), newIndex.active.getCardinality(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or replaces a product; an inactive product keeps its facet bits but drops out of the active bitmap.
+     */
+    public void index(Product product) {
+        Doc doc = new Doc(product.getCategory() != null ? product.getCategory().getCategoryId() : null,
+                product.getUser() != null ? product.getUser().getUserId() : null,
+                product.getSpecialPrice(), product.getDiscount(), Boolean.TRUE.equals(product.getActive()));
+        lock.writeLock().lock();
+        try {
+            index.remove(product.getProductId());
+            index.add(product.getProductId(), doc);
+            if (rebuildWrites != null) {
+                rebuildWrites.put(product.getProductId(), doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(productId);
+            if (rebuildWrites != null) {
+                rebuildWrites.put(productId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of matching active product ids (productId order), the total match count
+     * and the facet counts. Null or empty filters do not constrain the result.
+     */
+    public FacetResult filter(Collection<Long> categoryIds, Collection<Long> sellerIds, BigDecimal minPrice,
+            BigDecimal maxPrice, BigDecimal minDiscount, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> constraints = new LinkedHashMap<>();
+            constraints.put(CATEGORY, anyOf(index.byCategory, categoryIds));
+            constraints.put(SELLER, anyOf(index.bySeller, sellerIds));
+            constraints.put(PRICE, minPrice == null && maxPrice == null ? null
+                    : range(index.byPrice, priceBounds, minPrice, maxPrice, Doc::price));
+            constraints.put(DISCOUNT, minDiscount == null ? null
+                    : range(index.byDiscount, discountBounds, minDiscount, null, Doc::discount));
+
+            RoaringBitmap matches = intersect(constraints, null);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put(CATEGORY, counts(intersect(constraints, CATEGORY), index.byCategory));
+            facets.put(SELLER, counts(intersect(constraints, SELLER), index.bySeller));
+            facets.put(PRICE, bucketCounts(intersect(constraints, PRICE), index.byPrice, priceBounds));
+            facets.put(DISCOUNT, bucketCounts(intersect(constraints, DISCOUNT), index.byDiscount, discountBounds));
+
+            return new FacetResult(page(matches, offset, limit), matches.getCardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Active products ANDed with every constraint except the excluded one
+    private RoaringBitmap intersect(Map<String, RoaringBitmap> constraints, String excluded) {
+        RoaringBitmap result = index.active.clone();
+        constraints.forEach((facet, bitmap) -> {
+            if (bitmap != null && !facet.equals(excluded)) {
+                result.and(bitmap);
+            }
+        });
+        return result;
+    }
+
+    private static RoaringBitmap anyOf(Map<Long, RoaringBitmap> bitmaps, Collection<Long> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        for (Long value : values) {
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    // Buckets fully inside [min, max] are ORed whole; the edge buckets are checked product by product
+    private RoaringBitmap range(RoaringBitmap[] buckets, BigDecimal[] bounds, BigDecimal min, BigDecimal max,
+            Function<Doc, BigDecimal> value) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int i = 0; i < buckets.length; i++) {
+            BigDecimal low = bounds[i];
+            BigDecimal high = i + 1 < bounds.length ? bounds[i + 1] : null;
+            if ((max != null && low.compareTo(max) > 0) || (min != null && high != null && high.compareTo(min) <= 0)) {
+                continue;
+            }
+            boolean inside = (min == null || low.compareTo(min) >= 0)
+                    && (max == null || (high != null && high.compareTo(max) <= 0));
+            if (inside) {
+                result.or(buckets[i]);
+                continue;
+            }
+            buckets[i].forEach((int id) -> {
+                BigDecimal v = value.apply(index.docs.get(id));
+                if (v != null && (min == null || v.compareTo(min) >= 0) && (max == null || v.compareTo(max) <= 0)) {
+                    result.add(id);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> counts(RoaringBitmap base, Map<Long, RoaringBitmap> bitmaps) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        new TreeMap<>(bitmaps).forEach((value, bitmap) -> {
+            int count = RoaringBitmap.andCardinality(base, bitmap);
+            if (count > 0) {
+                counts.put(String.valueOf(value), count);
+            }
+        });
+        return counts;
+    }
+
+    private static Map<String, Integer> bucketCounts(RoaringBitmap base, RoaringBitmap[] buckets, BigDecimal[] bounds) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            int count = RoaringBitmap.andCardinality(base, buckets[i]);
+            if (count > 0) {
+                String label = i + 1 < bounds.length
+                        ? bounds[i].toPlainString() + "-" + bounds[i + 1].toPlainString()
+                        : bounds[i].toPlainString() + "+";
+                counts.put(label, count);
+            }
+        }
+        return counts;
+    }
+
+    private static List<Long> page(RoaringBitmap matches, int offset, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, matches.getCardinality()));
+        if (offset >= matches.getCardinality()) {
+            return ids;
+        }
+        PeekableIntIterator iterator = matches.getIntIterator();
+        iterator.advanceIfNeeded(matches.select(offset));
+        while (iterator.hasNext() && ids.size() < limit) {
+            ids.add((long) iterator.next());
+        }
+        return ids;
+    }
+
+    private static int bucket(BigDecimal[] bounds, BigDecimal value) {
+        int bucket = 0;
+        while (value != null && bucket + 1 < bounds.length && value.compareTo(bounds[bucket + 1]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static BigDecimal[] lowerBounds(List<BigDecimal> upperBounds) {
+        List<BigDecimal> bounds = new ArrayList<>();
+        bounds.add(BigDecimal.ZERO);
+        upperBounds.stream().sorted().filter(b -> b.signum() > 0).forEach(bounds::add);
+        return bounds.toArray(BigDecimal[]::new);
+    }
+
+    public record FacetResult(List<Long> productIds, int totalElements, Map<String, Map<String, Integer>> facets) {
+    }
+
+    private record Doc(Long categoryId, Long sellerId, BigDecimal price, BigDecimal discount, boolean active) {
+    }
+
+    private final class Index {
+        private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+        private final Map<Long, RoaringBitmap> bySeller = new HashMap<>();
+        private final RoaringBitmap[] byPrice;
+        private final RoaringBitmap[] byDiscount;
+        private final RoaringBitmap active = new RoaringBitmap();
+        private final Map<Integer, Doc> docs = new HashMap<>();
+
+        private Index(int priceBuckets, int discountBuckets) {
+            byPrice = newBuckets(priceBuckets);
+            byDiscount = newBuckets(discountBuckets);
+        }
+
+        private void add(Long productId, Doc doc) {
+            int id = Math.toIntExact(productId);
+            docs.put(id, doc);
+            if (doc.categoryId() != null) {
+                byCategory.computeIfAbsent(doc.categoryId(), k -> new RoaringBitmap()).add(id);
+            }
+            if (doc.sellerId() != null) {
+                bySeller.computeIfAbsent(doc.sellerId(), k -> new RoaringBitmap()).add(id);
+            }
+            byPrice[bucket(priceBounds, doc.price())].add(id);
+            byDiscount[bucket(discountBounds, doc.discount())].add(id);
+            if (doc.active()) {
+                active.add(id);
+            }
+        }
+
+        private void remove(Long productId) {
+            int id = Math.toIntExact(productId);
+            Doc doc = docs.remove(id);
+            if (doc == null) {
+                return;
+            }
+            removeFrom(byCategory, doc.categoryId(), id);
+            removeFrom(bySeller, doc.sellerId(), id);
+            byPrice[bucket(priceBounds, doc.price())].remove(id);
+            byDiscount[bucket(discountBounds, doc.discount())].remove(id);
+            active.remove(id);
+        }
+
+        private void runOptimize() {
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            bySeller.values().forEach(RoaringBitmap::runOptimize);
+            for (RoaringBitmap bucket : byPrice) {
+                bucket.runOptimize();
+            }
+            for (RoaringBitmap bucket : byDiscount) {
+                bucket.runOptimize();
+            }
+            active.runOptimize();
+        }
+
+        private static void removeFrom(Map<Long, RoaringBitmap> bitmaps, Long key, int id) {
+            RoaringBitmap bitmap = key != null ? bitmaps.get(key) : null;
+            if (bitmap != null) {
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+
+        private static RoaringBitmap[] newBuckets(int count) {
+            RoaringBitmap[] buckets = new RoaringBitmap[count];
+            for (int i = 0; i < count; i++) {
+                buckets[i] = new RoaringBitmap();
+            }
+            return buckets;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.ecom.search;
+
+import com.example.ecom.model.Product;
+import com.example.ecom.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name and description (active products only).
+ *
+ * Terms are lower-cased and accent-folded. Whole tokens are kept in a sorted map so short
+ * query tokens can be served as prefix lookups; every token is also split into trigrams so
+ * longer query tokens match anywhere inside a word, like the old '%keyword%' query did. The
+ * trigrams only find candidates: a product is a match once one of its words contains the token.
+ * Each posting stores a weight (name hits count more than description hits) used for ranking.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_TOKEN_BOOST = 2;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final ProductRepository productRepository;
+    private final int rebuildBatchSize;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private NavigableMap<String, Map<Long, Integer>> tokens = new TreeMap<>();
+    private Map<String, Map<Long, Integer>> grams = new HashMap<>();
+    private Map<Long, Set<String>> docTerms = new HashMap<>();
+    private volatile boolean ready = false;
+    // Writes made while a rebuild runs, replayed over the rebuilt maps before they are swapped in;
+    // a null value is a removal. Null when no rebuild runs; guarded by the write lock
+    private Map<Long, Document> rebuildWrites;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+            @Value("${app.search.index.rebuild-batch-size:1000}") int rebuildBatchSize,
+            @Value("${app.search.backend:memory}") String backend) {
+        this.productRepository = productRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+        // Nodes using the database backend keep the heap free: the index stays empty and never ready
+        this.enabled = "memory".equalsIgnoreCase(backend);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuildWrites = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        NavigableMap<String, Map<Long, Integer>> newTokens = new TreeMap<>();
+        Map<String, Map<Long, Integer>> newGrams = new HashMap<>();
+        Map<Long, Set<String>> newDocTerms = new HashMap<>();
+
+        long lastId = 0L;
+        List<Object[]> batch;
+        do {
+            batch = productRepository.findActiveSearchFieldsAfter(lastId, PageRequest.of(0, rebuildBatchSize));
+            for (Object[] row : batch) {
+                Long productId = (Long) row[0];
+                addDocument(productId, (String) row[1], (String) row[2], newTokens, newGrams, newDocTerms);
+                lastId = productId;
+            }
+        } while (batch.size() == rebuildBatchSize);
+
+        lock.writeLock().lock();
+        try {
+            // The batches may have read a row before an edit (or missed one added behind lastId)
+            for (Map.Entry<Long, Document> write : rebuildWrites.entrySet()) {
+                removeDocument(write.getKey(), newTokens, newGrams, newDocTerms);
+                Document document = write.getValue();
+                if (document != null) {
+                    addDocument(write.getKey(), document.name(), document.description(),
+                            newTokens, newGrams, newDocTerms);
+                }
+            }
+            rebuildWrites = null;
+            tokens = newTokens;
+            grams = newGrams;
+            docTerms = newDocTerms;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index rebuilt: {} products, {} tokens, {} grams in {} ms",
+                newDocTerms.size(), newTokens.size(), newGrams.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or replaces a product. Inactive products are removed from the index.
+     */
+    public void index(Product product) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getProductId(), tokens, grams, docTerms);
+            Document document = Boolean.TRUE.equals(product.getActive())
+                    ? new Document(product.getProductName(), product.getDescription())
+                    : null;
+            if (document != null) {
+                addDocument(product.getProductId(), document.name(), document.description(),
+                        tokens, grams, docTerms);
+            }
+            if (rebuildWrites != null) {
+                rebuildWrites.put(product.getProductId(), document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId, tokens, grams, docTerms);
+            if (rebuildWrites != null) {
+                rebuildWrites.put(productId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of products matching every query token, best match first.
+     */
+    public List<Long> search(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : new HashSet<>(queryTokens)) {
+                Map<Long, Integer> tokenScores = matchToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    Map<Long, Integer> merged = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                        Integer other = tokenScores.get(entry.getKey());
+                        if (other != null) {
+                            merged.put(entry.getKey(), entry.getValue() + other);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private Map<Long, Integer> matchToken(String token) {
+        Map<Long, Integer> result = new HashMap<>();
+
+        if (token.length() < GRAM) {
+            // Too short for trigrams: prefix match on whole tokens
+            for (Map<Long, Integer> postings : tokens.subMap(token, true, token + Character.MAX_VALUE, false)
+                    .values()) {
+                postings.forEach((id, weight) -> result.merge(id, weight, Math::max));
+            }
+        } else {
+            // Substring match: product must contain every trigram of the token
+            Set<Long> candidates = null;
+            for (String gram : grams(token)) {
+                Map<Long, Integer> postings = grams.get(gram);
+                if (postings == null) {
+                    return result;
+                }
+                if (candidates == null) {
+                    candidates = new HashSet<>(postings.keySet());
+                } else {
+                    candidates.retainAll(postings.keySet());
+                }
+            }
+            // The trigrams may come from different words ("photo honey" has every trigram of "phone"):
+            // keep the products with one word containing the token, scored by that word
+            for (Long productId : candidates) {
+                for (String term : docTerms.get(productId)) {
+                    if (!term.startsWith("#") && term.contains(token)) {
+                        result.merge(productId, tokens.get(term).get(productId), Math::max);
+                    }
+                }
+            }
+        }
+
+        Map<Long, Integer> exact = tokens.get(token);
+        if (exact != null) {
+            exact.forEach((id, weight) -> result.merge(id, weight * EXACT_TOKEN_BOOST, Integer::sum));
+        }
+        return result;
+    }
+
+    private static void addDocument(Long productId, String name, String description,
+            Map<String, Map<Long, Integer>> tokens,
+            Map<String, Map<Long, Integer>> grams,
+            Map<Long, Set<String>> docTerms) {
+        Set<String> terms = new HashSet<>();
+        addField(productId, name, NAME_WEIGHT, tokens, grams, terms);
+        addField(productId, description, DESCRIPTION_WEIGHT, tokens, grams, terms);
+        docTerms.put(productId, terms);
+    }
+
+    private static void addField(Long productId, String text, int weight,
+            Map<String, Map<Long, Integer>> tokens,
+            Map<String, Map<Long, Integer>> grams,
+            Set<String> terms) {
+        for (String token : tokenize(text)) {
+            tokens.computeIfAbsent(token, k -> new HashMap<>()).merge(productId, weight, Integer::sum);
+            terms.add(token);
+            for (String gram : grams(token)) {
+                grams.computeIfAbsent(gram, k -> new HashMap<>()).merge(productId, weight, Math::max);
+                terms.add("#" + gram);
+            }
+        }
+    }
+
+    private static void removeDocument(Long productId,
+            Map<String, Map<Long, Integer>> tokens,
+            Map<String, Map<Long, Integer>> grams,
+            Map<Long, Set<String>> docTerms) {
+        Set<String> terms = docTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Map<Long, Integer>> target = term.startsWith("#") ? grams : tokens;
+            String key = term.startsWith("#") ? term.substring(1) : term;
+            Map<Long, Integer> postings = target.get(key);
+            if (postings != null) {
+                postings.remove(productId);
+                if (postings.isEmpty()) {
+                    target.remove(key);
+                }
+            }
+        }
+    }
+
+    private record Document(String name, String description) {
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase()
+                .replace('đ', 'd');
+        List<String> result = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> grams(String token) {
+        if (token.length() < GRAM) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(token.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            result.add(token.substring(i, i + GRAM));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ecom.service;
+
+import com.example.ecom.payload.CheckoutStatus;
+import com.example.ecom.payload.OrderRequestDTO;
+
+import java.util.Map;
+
+public interface AsyncCheckoutService {
+
+        // Stores the checkout for the logged-in buyer and hands it to a worker; the returned token is QUEUED
+        CheckoutStatus submit(String paymentMethod, OrderRequestDTO orderRequestDTO);
+
+        // Outcome of one of the logged-in buyer's checkouts
+        CheckoutStatus getStatus(String token);
+
+        // Backlog depth and worker state
+        Map<String, Object> stats();
+}
@@ -0,0 +1,7 @@
+package com.example.ecom.service;
+
+public interface CartRepricingService {
+
+        // Brings every cart item of the product to its current price and recomputes those carts' totals
+        void repriceCarts(Long productId);
+}
@@ -2,7 +2,7 @@ package com.example.ecom.service;
 
 import com.example.ecom.model.Cart;
 import com.example.ecom.payload.CartDTO;
-import jakarta.transaction.Transactional;
+import com.example.ecom.payload.CartOperation;
 
 import java.util.List;
 
@@ -13,15 +13,15 @@ public interface CartService {
 
     CartDTO getCart(String emailId, Long cartId);
 
-    @Transactional
-    CartDTO updateProductQuantityInCart(Long productId, Integer quantity);
+    // The logged-in user's cart; empty (no cartId) when they have none yet
+    CartDTO getUserCart();
 
-    @Transactional
-    String deleteProductFromCart(Long cartId, Long productId);
+    CartDTO updateProductQuantityInCart(Long productId, Integer quantity);
 
-    List<Cart> findCartByProductId(Long productId);
+    // Applies the operations in order, all or none, and returns the cart once
+    CartDTO updateCart(List<CartOperation> operations);
 
-    void updateProductInCart(Long cartId, Long productId);
+    String deleteProductFromCart(Long cartId, Long productId);
 
     Cart getCartByEmail(String email);
 }
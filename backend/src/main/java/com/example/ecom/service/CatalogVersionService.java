@@ -0,0 +1,19 @@
+package com.example.ecom.service;
+
+import com.example.ecom.model.Product;
+import com.example.ecom.payload.CatalogVersion;
+
+public interface CatalogVersionService {
+
+        // Version of the catalog as a whole, for the listing endpoints
+        CatalogVersion catalogVersion();
+
+        // Version of a loaded product (and its category), taken from the entity so it labels that state
+        CatalogVersion productVersion(Product product);
+
+        // Catalog edit: new revision right away
+        void catalogChanged();
+
+        // Stock movement: folded into one revision bump per flush interval
+        void stockChanged();
+}
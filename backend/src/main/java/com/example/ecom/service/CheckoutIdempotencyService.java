@@ -0,0 +1,17 @@
+package com.example.ecom.service;
+
+import com.example.ecom.payload.OrderDTO;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+public interface CheckoutIdempotencyService {
+
+        // Runs the logged-in buyer's checkout through the admission queue, at most once per key: a repeat gets
+        // the original orders back, a concurrent repeat waits for the first. A null key just runs it
+        List<OrderDTO> placeOrderOnce(String idempotencyKey, Supplier<List<OrderDTO>> placeOrder);
+
+        // Orders already placed under the logged-in buyer's key, if any
+        Optional<List<OrderDTO>> findCompleted(String idempotencyKey);
+}
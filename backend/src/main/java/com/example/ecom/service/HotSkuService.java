@@ -0,0 +1,27 @@
+package com.example.ecom.service;
+
+import com.example.ecom.payload.HotSkuStatus;
+
+public interface HotSkuService {
+
+        // Splits the product's stock into shards (or re-splits it with a new shard count)
+        HotSkuStatus enable(Long productId, Integer shards);
+
+        // Folds the shards back into product.quantity
+        HotSkuStatus disable(Long productId);
+
+        HotSkuStatus status(Long productId);
+
+        // Node-local view, refreshed every flush; InventoryService double-checks the database on a miss
+        boolean isHot(Long productId);
+
+        // Live stock of a hot SKU (sum of its shards)
+        int availableQuantity(Long productId);
+
+        // Takes quantity units from the shards in the caller's transaction; false if they do not hold enough
+        boolean take(Long productId, Integer quantity);
+
+        // Admin stock update on a hot SKU: applies quantity - expected to the shards, so units sold since the
+        // last flush stay sold; false if the shards hold fewer units than the reduction
+        boolean restock(Long productId, Integer quantity, Integer expected);
+}
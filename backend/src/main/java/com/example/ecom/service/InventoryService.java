@@ -0,0 +1,24 @@
+package com.example.ecom.service;
+
+import com.example.ecom.model.Product;
+import com.example.ecom.payload.CartProduct;
+import com.example.ecom.payload.StockLine;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryService {
+
+        // Takes stock for every line in one batch; returns the lines that could not be covered (empty if all were).
+        // held: units per product the buyer had reserved (StockReservationService.consume); they are given back
+        // to the product in the same statement and count towards the buyer's own lines.
+        // Runs in the caller's transaction, which must roll back when anything is returned
+        List<StockLine> reserve(Collection<StockLine> lines, Map<Long, Integer> held);
+
+        // Units a buyer can still get: quantity less live reservations, or the live sum of the shards for a hot SKU
+        int availableQuantity(Product product);
+
+        // Same, from the columns a batch cart update loads
+        int availableQuantity(CartProduct product);
+}
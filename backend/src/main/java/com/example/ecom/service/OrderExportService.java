@@ -0,0 +1,28 @@
+package com.example.ecom.service;
+
+import com.example.ecom.exceptions.APIException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Locale;
+
+public interface OrderExportService {
+
+    enum Format {
+        NDJSON,
+        CSV;
+
+        public static Format of(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new APIException("Unsupported export format: " + format);
+            }
+        }
+    }
+
+    // Writes the orders matching the filters (all optional, dates inclusive) to out, oldest first
+    void exportOrders(Format format, LocalDate from, LocalDate to, String status, Long sellerId, OutputStream out)
+            throws IOException;
+}
@@ -1,8 +1,10 @@
 package com.example.ecom.service;
 
 import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.payload.OrderResponse;
 import jakarta.transaction.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface OrderService {
@@ -10,13 +12,19 @@ public interface OrderService {
     public List<OrderDTO> placeOrder(String paymentMethod, Long addressId, String pgPaymentId, String pgStatus,
             String pgResponseMessage, String pgName);
 
-    List<OrderDTO> getUserOrders();
+    // Same checkout for a given buyer, for callers without the buyer's security context (async checkout)
+    @Transactional
+    List<OrderDTO> placeOrder(String email, Long userId, String paymentMethod, Long addressId, String pgPaymentId,
+            String pgStatus, String pgResponseMessage, String pgName);
+
+    // Order history pages, newest first; from/to are optional and inclusive
+    OrderResponse getUserOrders(Integer pageNumber, Integer pageSize, LocalDate from, LocalDate to);
 
-    List<OrderDTO> getSellerOrders();
+    OrderResponse getSellerOrders(Integer pageNumber, Integer pageSize, LocalDate from, LocalDate to);
 
     @Transactional
     OrderDTO updateOrderStatus(Long orderId, String status);
 
     // For Admin: get all orders
-    List<OrderDTO> getAllOrders();
+    OrderResponse getAllOrders(Integer pageNumber, Integer pageSize, LocalDate from, LocalDate to);
 }
@@ -0,0 +1,29 @@
+package com.example.ecom.service;
+
+import com.example.ecom.payload.OrderDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface OrderViewService {
+
+    // Stores the documents of newly placed orders with the order rows; sellerIds by order id
+    void insert(List<OrderDTO> orders, Map<Long, Long> sellerIds);
+
+    // Sets the status in an order's stored document, in the transaction that changed it (which holds the
+    // order row lock); the rest of the document keeps the snapshot taken at placement. Returns the order
+    OrderDTO updateStatus(Long orderId, String orderStatus);
+
+    // History pages read from the documents, newest first; from/to are inclusive
+    Page<OrderDTO> findByEmail(String email, LocalDate from, LocalDate to, Pageable pageable);
+
+    Page<OrderDTO> findBySellerId(Long sellerId, LocalDate from, LocalDate to, Pageable pageable);
+
+    Page<OrderDTO> findAll(LocalDate from, LocalDate to, Pageable pageable);
+
+    // Rebuilds documents from the order tables, either all of them or only orders that have none
+    Map<String, Object> rebuild(boolean missingOnly);
+}
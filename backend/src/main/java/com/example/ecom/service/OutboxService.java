@@ -0,0 +1,13 @@
+package com.example.ecom.service;
+
+import com.example.ecom.outbox.OutboxMessage;
+
+import java.util.List;
+
+public interface OutboxService {
+
+        // Adds events to the outbox in the caller's transaction (one batch); they are delivered after it commits
+        void publish(List<OutboxMessage> messages);
+
+        void publish(String eventType, Long aggregateId, Object payload);
+}
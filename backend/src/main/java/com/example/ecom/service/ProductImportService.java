@@ -0,0 +1,12 @@
+package com.example.ecom.service;
+
+import com.example.ecom.payload.ProductImportStatus;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface ProductImportService {
+
+        // Queues a CSV or NDJSON import into the category and returns the job right away
+        ProductImportStatus startImport(Long categoryId, MultipartFile file);
+
+        ProductImportStatus getImportStatus(String jobId);
+}
@@ -1,28 +1,39 @@
 package com.example.ecom.service;
 
 import com.example.ecom.model.Product;
+import com.example.ecom.payload.ProductCursorResponse;
 import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.payload.ProductDetail;
+import com.example.ecom.payload.ProductFilterResponse;
 import com.example.ecom.payload.ProductResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
 
 public interface ProductService {
 
         Product findByProductId(Long productId);
 
-        ProductDTO getProductById(Long productId);
+        // Active product with its ETag/Last-Modified, served from the catalog cache
+        ProductDetail getProductById(Long productId);
 
         ProductDTO addProduct(Long categoryId, ProductDTO productDTO);
 
-        ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+        ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+                        boolean withTotals);
 
         ProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy,
-                        String sortOrder);
+                        String sortOrder, boolean withTotals);
 
         ProductResponse searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy,
                         String sortOrder);
 
+        // Multi-facet filter served from the in-memory bitmap index, with facet counts
+        ProductFilterResponse filterProducts(List<Long> categoryIds, List<Long> sellerIds, BigDecimal minPrice,
+                        BigDecimal maxPrice, BigDecimal minDiscount, Integer pageNumber, Integer pageSize);
+
         ProductDTO updateProduct(ProductDTO productDTO, Long productId, Long categoryId);
 
         ProductDTO deleteProduct(Long productId);
@@ -30,4 +41,13 @@ public interface ProductService {
         ProductDTO updateProductImage(Long productId, MultipartFile imageFile) throws IOException;
 
         ProductResponse getProductsBySeller(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+
+        // Keyset pagination variants: no offset scan, no count query
+        ProductCursorResponse getAllProductsByCursor(String cursor, Integer pageSize, String sortBy, String sortOrder);
+
+        ProductCursorResponse searchByCategoryByCursor(Long categoryId, String cursor, Integer pageSize, String sortBy,
+                        String sortOrder);
+
+        ProductCursorResponse getProductsBySellerByCursor(String cursor, Integer pageSize, String sortBy,
+                        String sortOrder);
 }
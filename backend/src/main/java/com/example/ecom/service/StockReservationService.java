@@ -0,0 +1,19 @@
+package com.example.ecom.service;
+
+import java.time.Instant;
+import java.util.Map;
+
+public interface StockReservationService {
+
+        // Holds stock for every item in the buyer's cart until the returned instant (the configured hold time,
+        // but not before holdAtLeastUntil), replacing an earlier hold.
+        // Throws APIException naming the items that are not available
+        Instant reserveCart(String email, Instant holdAtLeastUntil);
+
+        // Drops the buyer's hold
+        void release(String email);
+
+        // Order placement: removes the buyer's hold and returns the units it held per product; the caller's
+        // stock update takes them out of product.reservedQuantity (InventoryService.reserve)
+        Map<Long, Integer> consume(String email);
+}
@@ -2,6 +2,7 @@ package com.example.ecom.service.impl;
 
 import com.example.ecom.exceptions.APIException;
 import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.mapper.DtoMapper;
 import com.example.ecom.model.Address;
 import com.example.ecom.model.User;
 import com.example.ecom.payload.AddressDTO;
@@ -10,7 +11,6 @@ import com.example.ecom.repositories.UserRepository;
 import com.example.ecom.service.AddressService;
 import com.example.ecom.util.AuthUtil;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestBody;
 
@@ -22,14 +22,14 @@ import java.util.stream.Collectors;
 public class AddressServiceImpl implements AddressService {
 
     private final AuthUtil authUtil;
-    private final ModelMapper modelMapper;
+    private final DtoMapper dtoMapper;
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
 
     @Override
     public AddressDTO createAddress(AddressDTO addressDTO) {
         User user = authUtil.loggedInUser();
-        Address address = modelMapper.map(addressDTO, Address.class);
+        Address address = dtoMapper.toAddress(addressDTO);
         List<Address> addressList = user.getAddresses();
         addressList.add(address);
         user.setAddresses(addressList);
@@ -37,7 +37,7 @@ public class AddressServiceImpl implements AddressService {
         address.setUser(user);
         Address savedAddress = addressRepository.save(address);
 
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return dtoMapper.toAddressDTO(savedAddress);
     }
 
     @Override
@@ -49,7 +49,7 @@ public class AddressServiceImpl implements AddressService {
         }
 
         List<AddressDTO> addressDTOS = addresses.stream()
-                .map(address -> modelMapper.map(address, AddressDTO.class))
+                .map(dtoMapper::toAddressDTO)
                 .collect(Collectors.toList());
         return addressDTOS;
     }
@@ -58,7 +58,7 @@ public class AddressServiceImpl implements AddressService {
     public AddressDTO getAddressById(Long addressId) {
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("address", "address", addressId));
-        return modelMapper.map(address, AddressDTO.class);
+        return dtoMapper.toAddressDTO(address);
     }
 
     @Override
@@ -79,7 +79,7 @@ public class AddressServiceImpl implements AddressService {
         user.getAddresses().removeIf(address -> address.getAddressId().equals(addressFromDB.getAddressId()));
         user.getAddresses().add(updatedAddress);
         userRepository.save(user);
-        return modelMapper.map(updatedAddress, AddressDTO.class);
+        return dtoMapper.toAddressDTO(updatedAddress);
     }
 
     @Override
@@ -0,0 +1,260 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.model.CheckoutRequest;
+import com.example.ecom.payload.CheckoutStatus;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.payload.OrderRequestDTO;
+import com.example.ecom.repositories.CheckoutRequestRepository;
+import com.example.ecom.service.AsyncCheckoutService;
+import com.example.ecom.service.OrderService;
+import com.example.ecom.util.AuthUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Async order placement. The request thread only stores a checkout_request row and returns its token;
+ * a worker from the checkout pool runs placeOrder for it later and records the outcome on the row.
+ *
+ * Exactly once per token: the worker locks the row, checks it is still QUEUED, places the orders and
+ * marks the row COMPLETED in one transaction. A crash before the commit leaves nothing but the QUEUED
+ * row, which is picked up again (the sweep, or the startup scan after a restart); a second worker on the
+ * same token waits for the row lock and then finds it done. Business errors (empty cart, no stock,
+ * wallet balance) fail the request at once; anything else is retried up to max-attempts.
+ *
+ * The cart is read when the worker runs, not when the request is accepted.
+ */
+@Slf4j
+@Service
+public class AsyncCheckoutServiceImpl implements AsyncCheckoutService {
+
+    private static final TypeReference<List<OrderDTO>> ORDER_LIST = new TypeReference<>() {
+    };
+    private static final int SWEEP_BATCH = 500;
+    private static final int MAX_MESSAGE_LENGTH = 255;
+
+    private final CheckoutRequestRepository checkoutRequestRepository;
+    private final OrderService orderService;
+    private final AuthUtil authUtil;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor checkoutExecutor;
+    private final int maxAttempts;
+    private final long sweepMs;
+
+    // Tokens handed to the executor on this node and not finished yet
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+
+    public AsyncCheckoutServiceImpl(CheckoutRequestRepository checkoutRequestRepository,
+            OrderService orderService,
+            AuthUtil authUtil,
+            ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("checkoutExecutor") ThreadPoolTaskExecutor checkoutExecutor,
+            @Value("${app.checkout.async.max-attempts:3}") int maxAttempts,
+            @Value("${app.checkout.async.sweep-ms:5000}") long sweepMs) {
+        this.checkoutRequestRepository = checkoutRequestRepository;
+        this.orderService = orderService;
+        this.authUtil = authUtil;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.checkoutExecutor = checkoutExecutor;
+        this.maxAttempts = maxAttempts;
+        this.sweepMs = sweepMs;
+    }
+
+    @Override
+    public CheckoutStatus submit(String paymentMethod, OrderRequestDTO orderRequestDTO) {
+        if (orderRequestDTO.getAddressId() == null) {
+            throw new APIException("addressId is required");
+        }
+        CheckoutRequest request = new CheckoutRequest();
+        request.setToken(UUID.randomUUID().toString());
+        request.setEmail(authUtil.loggedInEmail());
+        request.setUserId(authUtil.loggedInUserId());
+        request.setPaymentMethod(paymentMethod);
+        request.setAddressId(orderRequestDTO.getAddressId());
+        request.setPgPaymentId(orderRequestDTO.getPgPaymentId());
+        request.setPgStatus(orderRequestDTO.getPgStatus());
+        request.setPgResponseMessage(orderRequestDTO.getPgResponseMessage());
+        request.setPgName(orderRequestDTO.getPgName());
+        request.setStatus(CheckoutRequest.Status.QUEUED);
+        request.setCreatedAt(Instant.now());
+        checkoutRequestRepository.save(request);
+        submitted.increment();
+
+        dispatch(request.getToken());
+        return toStatus(request);
+    }
+
+    @Override
+    public CheckoutStatus getStatus(String token) {
+        CheckoutRequest request = checkoutRequestRepository.findByTokenAndEmail(token, authUtil.loggedInEmail())
+                .orElseThrow(() -> new ResourceNotFoundException("Checkout", "token", token));
+        return toStatus(request);
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        long done = completed.sum() + failed.sum();
+        Instant oldest = checkoutRequestRepository.findOldestCreatedAt(CheckoutRequest.Status.QUEUED);
+        long oldestQueuedMillis = oldest != null ? Duration.between(oldest, Instant.now()).toMillis() : 0;
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("queued", checkoutRequestRepository.countByStatus(CheckoutRequest.Status.QUEUED));
+        response.put("oldestQueuedMillis", oldestQueuedMillis);
+        response.put("inFlight", inFlight.size());
+        response.put("executorQueued", checkoutExecutor.getQueueSize());
+        response.put("workersBusy", checkoutExecutor.getActiveCount());
+        response.put("workers", checkoutExecutor.getMaxPoolSize());
+        response.put("submitted", submitted.sum());
+        response.put("completed", completed.sum());
+        response.put("failed", failed.sum());
+        response.put("retried", retried.sum());
+        response.put("avgProcessingMillis", done > 0 ? processingNanos.sum() / done / 1e6 : 0.0);
+        return response;
+    }
+
+    // Startup picks up everything still queued; later sweeps leave fresh requests to the node that took them
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverQueued() {
+        dispatchQueued(Instant.now());
+    }
+
+    @Scheduled(initialDelayString = "${app.checkout.async.sweep-ms:5000}",
+            fixedDelayString = "${app.checkout.async.sweep-ms:5000}")
+    public void sweep() {
+        dispatchQueued(Instant.now().minusMillis(sweepMs));
+    }
+
+    private void dispatchQueued(Instant cutoff) {
+        List<String> tokens = checkoutRequestRepository.findTokensByStatusCreatedBefore(
+                CheckoutRequest.Status.QUEUED, cutoff, PageRequest.of(0, SWEEP_BATCH));
+        for (String token : tokens) {
+            if (!inFlight.contains(token) && !dispatch(token)) {
+                break;
+            }
+        }
+    }
+
+    private boolean dispatch(String token) {
+        if (!inFlight.add(token)) {
+            return true;
+        }
+        try {
+            checkoutExecutor.execute(() -> process(token));
+            return true;
+        } catch (TaskRejectedException e) {
+            inFlight.remove(token);
+            log.warn("Checkout queue is full, leaving {} to the checkout sweep", token);
+            return false;
+        }
+    }
+
+    private void process(String token) {
+        long startedAt = System.nanoTime();
+        try {
+            Boolean placed = transactionTemplate.execute(status -> {
+                CheckoutRequest request = checkoutRequestRepository.findByTokenForUpdate(token).orElse(null);
+                if (request == null || request.getStatus() != CheckoutRequest.Status.QUEUED) {
+                    return false;
+                }
+                List<OrderDTO> orders = orderService.placeOrder(request.getEmail(), request.getUserId(),
+                        request.getPaymentMethod(), request.getAddressId(), request.getPgPaymentId(),
+                        request.getPgStatus(), request.getPgResponseMessage(), request.getPgName());
+                request.setResult(toJson(orders));
+                request.setStatus(CheckoutRequest.Status.COMPLETED);
+                request.setAttempts(request.getAttempts() + 1);
+                request.setFinishedAt(Instant.now());
+                return true;
+            });
+            if (Boolean.TRUE.equals(placed)) {
+                completed.increment();
+                processingNanos.add(System.nanoTime() - startedAt);
+            }
+        } catch (APIException | ResourceNotFoundException | IllegalArgumentException e) {
+            recordFailure(token, e.getMessage(), true, startedAt);
+        } catch (RuntimeException e) {
+            log.warn("Checkout {} failed, will retry: {}", token, e.getMessage());
+            recordFailure(token, e.getMessage(), false, startedAt);
+        } finally {
+            inFlight.remove(token);
+        }
+    }
+
+    private void recordFailure(String token, String message, boolean permanent, long startedAt) {
+        Boolean failedNow = transactionTemplate.execute(status -> {
+            CheckoutRequest request = checkoutRequestRepository.findByTokenForUpdate(token).orElse(null);
+            if (request == null || request.getStatus() != CheckoutRequest.Status.QUEUED) {
+                return null;
+            }
+            request.setAttempts(request.getAttempts() + 1);
+            request.setErrorMessage(message != null && message.length() > MAX_MESSAGE_LENGTH
+                    ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+            if (permanent || request.getAttempts() >= maxAttempts) {
+                request.setStatus(CheckoutRequest.Status.FAILED);
+                request.setFinishedAt(Instant.now());
+                return true;
+            }
+            return false;
+        });
+        if (failedNow == null) {
+            return;
+        }
+        if (failedNow) {
+            failed.increment();
+            processingNanos.add(System.nanoTime() - startedAt);
+        } else {
+            retried.increment();
+        }
+    }
+
+    private CheckoutStatus toStatus(CheckoutRequest request) {
+        List<OrderDTO> orders = null;
+        if (request.getResult() != null) {
+            try {
+                orders = objectMapper.readValue(request.getResult(), ORDER_LIST);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable result for checkout " + request.getToken(), e);
+            }
+        }
+        return new CheckoutStatus(request.getToken(), request.getStatus().name(), orders,
+                request.getErrorMessage(), request.getCreatedAt(), request.getFinishedAt());
+    }
+
+    private String toJson(List<OrderDTO> orders) {
+        try {
+            return objectMapper.writeValueAsString(orders);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize placed orders", e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.cart.CartStore;
+import com.example.ecom.event.ProductPriceChangedEvent;
+import com.example.ecom.repositories.CartItemRepository;
+import com.example.ecom.repositories.CartRepository;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.service.CartRepricingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reprices carts after a product price change with set-based statements, one chunk of cart items per
+ * transaction: UPDATE cart_items for the chunk, then recompute total_price of the carts it touched.
+ *
+ * Items carry the product price revision they were priced at and only items below the current revision
+ * are touched, so replays and out-of-order runs are harmless. A periodic sweep picks up products whose
+ * repricing was lost (rejected task, restart).
+ */
+@Slf4j
+@Service
+public class CartRepricingServiceImpl implements CartRepricingService {
+
+    private final ProductRepository productRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CartStore cartStore;
+    private final int chunkSize;
+
+    public CartRepricingServiceImpl(ProductRepository productRepository,
+            CartItemRepository cartItemRepository,
+            CartRepository cartRepository,
+            TransactionTemplate transactionTemplate,
+            CartStore cartStore,
+            @Value("${app.cart.repricing.chunk-size:1000}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.cartStore = cartStore;
+        this.chunkSize = chunkSize;
+    }
+
+    @Async("cartRepricingExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductPriceChanged(ProductPriceChangedEvent event) {
+        repriceCarts(event.productId());
+    }
+
+    @Scheduled(initialDelayString = "${app.cart.repricing.sweep-ms:300000}",
+            fixedDelayString = "${app.cart.repricing.sweep-ms:300000}")
+    public void repriceStaleCarts() {
+        List<Long> productIds = cartItemRepository.findProductIdsWithStaleCartItems(PageRequest.of(0, 100));
+        productIds.forEach(this::repriceCarts);
+    }
+
+    @Override
+    public void repriceCarts(Long productId) {
+        List<Object[]> rows = productRepository.findPriceRevision(productId);
+        if (rows.isEmpty()) {
+            return;
+        }
+        BigDecimal price = (BigDecimal) rows.get(0)[0];
+        BigDecimal discount = (BigDecimal) rows.get(0)[1];
+        Long revision = (Long) rows.get(0)[2];
+
+        long start = System.currentTimeMillis();
+        int items = 0;
+        Integer repriced;
+        do {
+            repriced = transactionTemplate.execute(status -> repriceChunk(productId, price, discount, revision));
+            items += repriced;
+        } while (repriced == chunkSize);
+
+        // Carts held in memory were loaded with the old price
+        cartStore.applyPrice(productId, price, discount, revision);
+
+        if (items > 0) {
+            log.info("Repriced {} cart items of product {} to revision {} in {} ms", items, productId, revision,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    private int repriceChunk(Long productId, BigDecimal price, BigDecimal discount, Long revision) {
+        List<Object[]> stale = cartItemRepository.findStaleItems(productId, revision, PageRequest.of(0, chunkSize));
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        List<Long> cartItemIds = new ArrayList<>(stale.size());
+        Set<Long> cartIds = new LinkedHashSet<>();
+        for (Object[] row : stale) {
+            cartItemIds.add((Long) row[0]);
+            cartIds.add((Long) row[1]);
+        }
+        cartItemRepository.repriceItems(cartItemIds, price, discount, revision);
+        cartRepository.recalculateTotals(cartIds);
+        return stale.size();
+    }
+}
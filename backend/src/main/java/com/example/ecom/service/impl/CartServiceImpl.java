@@ -1,236 +1,281 @@
 package com.example.ecom.service.impl;
 
+import com.example.ecom.cart.CartLine;
+import com.example.ecom.cart.CartState;
+import com.example.ecom.cart.CartStore;
 import com.example.ecom.exceptions.APIException;
 import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.mapper.DtoMapper;
 import com.example.ecom.model.Cart;
-import com.example.ecom.model.CartItem;
 import com.example.ecom.model.Product;
 import com.example.ecom.payload.CartDTO;
+import com.example.ecom.payload.CartOperation;
+import com.example.ecom.payload.CartProduct;
 import com.example.ecom.payload.ProductDTO;
-import com.example.ecom.repositories.CartItemRepository;
 import com.example.ecom.repositories.CartRepository;
-import com.example.ecom.service.CartItemService;
+import com.example.ecom.repositories.ProductRepository;
 import com.example.ecom.service.CartService;
+import com.example.ecom.service.InventoryService;
 import com.example.ecom.service.ProductService;
 import com.example.ecom.util.AuthUtil;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class CartServiceImpl implements CartService {
 
-    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
-    private static final int SCALE = 2;
+    private static final int MAX_CART_OPERATIONS = 200;
 
     private final CartRepository cartRepository;
     private final AuthUtil authUtil;
     private final ProductService productService;
-    private final CartItemService cartItemService;
-    private final CartItemRepository cartItemRepository;
-    private final ModelMapper modelMapper;
+    private final DtoMapper dtoMapper;
+    private final InventoryService inventoryService;
+    private final CartStore cartStore;
+    private final ProductRepository productRepository;
 
     public CartServiceImpl(CartRepository cartRepository, AuthUtil authUtil,
             @Lazy ProductService productService,
-            CartItemService cartItemService,
-            CartItemRepository cartItemRepository,
-            ModelMapper modelMapper) {
+            DtoMapper dtoMapper,
+            InventoryService inventoryService,
+            CartStore cartStore,
+            ProductRepository productRepository) {
         this.cartRepository = cartRepository;
         this.authUtil = authUtil;
         this.productService = productService;
-        this.cartItemService = cartItemService;
-        this.cartItemRepository = cartItemRepository;
-        this.modelMapper = modelMapper;
+        this.dtoMapper = dtoMapper;
+        this.inventoryService = inventoryService;
+        this.cartStore = cartStore;
+        this.productRepository = productRepository;
     }
 
     @Override
-    @Transactional
     public CartDTO addProductToCart(Long productId, Integer quantity) {
-        Cart cart = createCart();
+        Long userId = authUtil.loggedInUserId();
         Product product = productService.findByProductId(productId);
-        CartItem cartItem = cartItemService.findCartItemByProductIdAndCartId(productId, cart.getCartId());
 
-        if (product.getQuantity() == 0) {
+        // Hot SKUs: the live sum of the stock shards rather than the periodically reconciled quantity
+        int available = inventoryService.availableQuantity(product);
+        if (available == 0) {
             throw new APIException(product.getProductName() + " is not available");
         }
 
-        if (product.getQuantity() < quantity) {
+        if (available < quantity) {
             throw new APIException("Please make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity());
+                    + " less than or equal to the quantity " + available);
         }
 
-        BigDecimal priceIncrease = product.getSpecialPrice()
-                .multiply(BigDecimal.valueOf(quantity))
-                .setScale(SCALE, ROUNDING_MODE);
-
-        if (cartItem != null) {
-            int newQuantity = cartItem.getQuantity() + quantity;
-            if (product.getQuantity() < newQuantity) {
-                throw new APIException("Not enough stock. Available: " + product.getQuantity());
+        return cartStore.update(userId, authUtil.loggedInEmail(), cart -> {
+            CartLine cartLine = cart.getLine(productId);
+            if (cartLine != null) {
+                int newQuantity = cartLine.quantity() + quantity;
+                if (available < newQuantity) {
+                    throw new APIException("Not enough stock. Available: " + available);
+                }
+                cart.putLine(cartLine.withQuantity(newQuantity));
+            } else {
+                if (cart.getCartId() == null) {
+                    cart.setCartId(createCart().getCartId());
+                }
+                cart.putLine(new CartLine(dtoMapper.toProductDTO(product), quantity, product.getDiscount(),
+                        product.getSpecialPrice(), product.getPriceRevision()));
             }
-            cartItem.setQuantity(newQuantity);
-            cartItemRepository.save(cartItem);
-            cart.setTotalPrice(cart.getTotalPrice().add(priceIncrease).setScale(SCALE, ROUNDING_MODE));
-            cartRepository.save(cart);
-        } else {
-            CartItem newCartItem = new CartItem();
-            newCartItem.setProduct(product);
-            newCartItem.setCart(cart);
-            newCartItem.setQuantity(quantity);
-            newCartItem.setDiscount(product.getDiscount());
-            newCartItem.setProductPrice(product.getSpecialPrice());
-
-            cart.getCartItems().add(newCartItem);
-            cart.setTotalPrice(cart.getTotalPrice().add(priceIncrease).setScale(SCALE, ROUNDING_MODE));
-
-            cartRepository.save(cart);
-        }
-
-        return mapCartToDTO(cart);
+            return mapCartToDTO(cart);
+        });
     }
 
     @Override
     public List<CartDTO> getAllCarts() {
+        // The persisted carts; flushing here would let any caller force a write-back of every dirty cart
         List<Cart> carts = cartRepository.findAll();
         if (carts.isEmpty()) {
             throw new APIException("No cart exist");
         }
 
-        return carts.stream().map(this::mapCartToDTO).collect(Collectors.toList());
+        return carts.stream().map(dtoMapper::toCartDTO).collect(Collectors.toList());
     }
 
     @Override
     public CartDTO getCart(String emailId, Long cartId) {
-        Cart cart = cartRepository.findCartByEmailAndCartId(emailId, cartId);
-        if (cart == null) {
-            throw new ResourceNotFoundException("Cart", "cartId", cartId);
-        }
-        return mapCartToDTO(cart);
+        return cartStore.read(authUtil.loggedInUserId(), emailId, cart -> {
+            if (cart.getCartId() == null || !cart.getCartId().equals(cartId)) {
+                throw new ResourceNotFoundException("Cart", "cartId", cartId);
+            }
+            return mapCartToDTO(cart);
+        });
     }
 
     @Override
-    @Transactional
-    public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
-        String emailId = authUtil.loggedInEmail();
-        Cart userCart = cartRepository.findCartByEmail(emailId);
-        Long cartId = userCart.getCartId();
-
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
+    public CartDTO getUserCart() {
+        return cartStore.read(authUtil.loggedInUserId(), authUtil.loggedInEmail(), this::mapCartToDTO);
+    }
 
+    @Override
+    public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
         Product product = productService.findByProductId(productId);
 
-        if (product.getQuantity() == 0) {
+        int available = inventoryService.availableQuantity(product);
+        if (available == 0) {
             throw new APIException(product.getProductName() + " is not available");
         }
 
-        if (product.getQuantity() < quantity) {
+        if (available < quantity) {
             throw new APIException("Please make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity());
+                    + " less than or equal to the quantity " + available);
         }
 
-        CartItem cartItem = getCartItem(productId, cartId);
-        if (cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " does not exist in cart");
-        }
-
-        int newQuantity = cartItem.getQuantity() + quantity;
-        if (newQuantity < 0) {
-            throw new APIException("The resulting quantity cannot be negative.");
-        }
-
-        if (newQuantity == 0) {
-            deleteProductFromCart(cartId, productId);
-        } else {
-            cartItem.setProductPrice(product.getSpecialPrice());
-            cartItem.setQuantity(newQuantity);
-            cartItem.setDiscount(product.getDiscount());
-
-            BigDecimal priceChange = cartItem.getProductPrice()
-                    .multiply(BigDecimal.valueOf(quantity))
-                    .setScale(SCALE, ROUNDING_MODE);
-            cart.setTotalPrice(cart.getTotalPrice().add(priceChange).setScale(SCALE, ROUNDING_MODE));
-            cartRepository.save(cart);
-        }
-
-        CartItem updatedItem = cartItemRepository.save(cartItem);
-        if (updatedItem.getQuantity() == 0) {
-            cartItemRepository.deleteById(updatedItem.getCartItemId());
-        }
+        return cartStore.update(authUtil.loggedInUserId(), authUtil.loggedInEmail(), cart -> {
+            if (cart.getCartId() == null) {
+                throw new ResourceNotFoundException("Cart", "User Email", authUtil.loggedInEmail());
+            }
+            CartLine cartLine = cart.getLine(productId);
+            if (cartLine == null) {
+                throw new APIException("Product " + product.getProductName() + " does not exist in cart");
+            }
 
-        return mapCartToDTO(cart);
-    }
+            int newQuantity = cartLine.quantity() + quantity;
+            if (newQuantity < 0) {
+                throw new APIException("The resulting quantity cannot be negative.");
+            }
 
-    private CartItem getCartItem(Long productId, Long cartId) {
-        return cartItemService.findCartItemByProductIdAndCartId(productId, cartId);
+            if (newQuantity == 0) {
+                cart.removeLine(productId);
+            } else {
+                cart.putLine(new CartLine(dtoMapper.toProductDTO(product), newQuantity, product.getDiscount(),
+                        product.getSpecialPrice(), product.getPriceRevision()));
+            }
+            return mapCartToDTO(cart);
+        });
     }
 
-    @Transactional
     @Override
-    public String deleteProductFromCart(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-
-        CartItem cartItem = cartItemService.findCartItemByProductIdAndCartId(productId, cartId);
-
-        if (cartItem == null) {
-            throw new ResourceNotFoundException("Product", "ProductId", productId);
+    public CartDTO updateCart(List<CartOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new APIException("No cart operations given");
+        }
+        if (operations.size() > MAX_CART_OPERATIONS) {
+            throw new APIException("At most " + MAX_CART_OPERATIONS + " cart operations per request");
+        }
+        List<CartOperation.Action> actions = new ArrayList<>(operations.size());
+        Set<Long> productIds = new HashSet<>();
+        for (CartOperation operation : operations) {
+            CartOperation.Action action = CartOperation.Action.of(operation.getAction());
+            if (operation.getProductId() == null) {
+                throw new APIException("Cart operation without a productId");
+            }
+            Integer quantity = operation.getQuantity();
+            if (action == CartOperation.Action.ADD && (quantity == null || quantity <= 0)) {
+                throw new APIException("Quantity to add must be positive");
+            }
+            if (action == CartOperation.Action.SET && (quantity == null || quantity < 0)) {
+                throw new APIException("Quantity to set cannot be negative");
+            }
+            actions.add(action);
+            productIds.add(operation.getProductId());
         }
 
-        cart.getCartItems().remove(cartItem);
-
-        BigDecimal priceDecrease = cartItem.getProductPrice()
-                .multiply(BigDecimal.valueOf(cartItem.getQuantity()))
-                .setScale(SCALE, ROUNDING_MODE);
-        cart.setTotalPrice(cart.getTotalPrice().subtract(priceDecrease).setScale(SCALE, ROUNDING_MODE));
+        // One query for every product referenced
+        Map<Long, CartProduct> products = new HashMap<>();
+        for (CartProduct product : productRepository.findCartProductsByProductIdIn(productIds)) {
+            products.put(product.productId(), product);
+        }
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product", "productId", productId);
+            }
+        }
 
-        cartRepository.save(cart);
+        return cartStore.update(authUtil.loggedInUserId(), authUtil.loggedInEmail(), cart -> {
+            // New quantity per product touched, worked out before the cart is changed
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (int i = 0; i < operations.size(); i++) {
+                CartOperation operation = operations.get(i);
+                Long productId = operation.getProductId();
+                CartLine cartLine = cart.getLine(productId);
+                int current = quantities.getOrDefault(productId, cartLine != null ? cartLine.quantity() : 0);
+                int newQuantity = switch (actions.get(i)) {
+                    case ADD -> current + operation.getQuantity();
+                    case SET -> operation.getQuantity();
+                    case REMOVE -> {
+                        if (current == 0) {
+                            throw new APIException("Product " + products.get(productId).productName()
+                                    + " does not exist in cart");
+                        }
+                        yield 0;
+                    }
+                };
+                quantities.put(productId, newQuantity);
+            }
 
-        return "Product " + cartItem.getProduct().getProductName() + " has been deleted";
-    }
+            List<CartLine> put = new ArrayList<>();
+            List<Long> remove = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                CartProduct product = products.get(entry.getKey());
+                int newQuantity = entry.getValue();
+                CartLine cartLine = cart.getLine(entry.getKey());
+                if (newQuantity == 0) {
+                    if (cartLine != null) {
+                        remove.add(entry.getKey());
+                    }
+                    continue;
+                }
+                if (cartLine != null && cartLine.quantity() == newQuantity) {
+                    continue;
+                }
+                int available = inventoryService.availableQuantity(product);
+                if (available == 0) {
+                    throw new APIException(product.productName() + " is not available");
+                }
+                if (available < newQuantity) {
+                    throw new APIException("Please make an order of the " + product.productName()
+                            + " less than or equal to the quantity " + available);
+                }
+                put.add(new CartLine(dtoMapper.toProductDTO(product.summary()), newQuantity, product.discount(),
+                        product.specialPrice(), product.priceRevision()));
+            }
 
-    @Override
-    public List<Cart> findCartByProductId(Long productId) {
-        return cartRepository.findCartByProductId(productId);
+            if (!put.isEmpty() && cart.getCartId() == null) {
+                cart.setCartId(createCart().getCartId());
+            }
+            cart.applyLines(put, remove);
+            return mapCartToDTO(cart);
+        });
     }
 
     @Override
-    @Transactional
-    public void updateProductInCart(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-
-        Product product = productService.findByProductId(productId);
-        CartItem cartItem = cartItemService.findCartItemByProductIdAndCartId(productId, cartId);
-
-        if (cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " does not exist in cart");
-        }
-
-        BigDecimal oldItemTotal = cartItem.getProductPrice()
-                .multiply(BigDecimal.valueOf(cartItem.getQuantity()));
-        BigDecimal cartPriceWithoutItem = cart.getTotalPrice().subtract(oldItemTotal);
-
-        cartItem.setProductPrice(product.getSpecialPrice());
-
-        BigDecimal newItemTotal = cartItem.getProductPrice()
-                .multiply(BigDecimal.valueOf(cartItem.getQuantity()));
-        cart.setTotalPrice(cartPriceWithoutItem.add(newItemTotal).setScale(SCALE, ROUNDING_MODE));
-
-        cartItemRepository.save(cartItem);
-        cartRepository.save(cart);
+    public String deleteProductFromCart(Long cartId, Long productId) {
+        return cartStore.update(authUtil.loggedInUserId(), authUtil.loggedInEmail(), cart -> {
+            if (cart.getCartId() == null || !cart.getCartId().equals(cartId)) {
+                throw new ResourceNotFoundException("Cart", "cartId", cartId);
+            }
+            CartLine cartLine = cart.removeLine(productId);
+            if (cartLine == null) {
+                throw new ResourceNotFoundException("Product", "ProductId", productId);
+            }
+            return "Product " + cartLine.product().getProductName() + " has been deleted";
+        });
     }
 
     @Override
     public Cart getCartByEmail(String email) {
-        return cartRepository.findCartByEmail(email);
+        Cart cart = cartRepository.findCartByEmail(email);
+        if (cart != null) {
+            // Pending changes first; the items are loaded lazily after, from the rows just written
+            cartStore.flush(cart.getUser().getUserId());
+        }
+        return cart;
     }
 
     private Cart createCart() {
@@ -244,19 +289,14 @@ public class CartServiceImpl implements CartService {
         return cartRepository.save(cart);
     }
 
-    private CartDTO mapCartToDTO(Cart cart) {
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-        List<CartItem> cartItems = cart.getCartItems();
-
-        List<ProductDTO> products = cartItems.stream()
-                .map(item -> {
-                    ProductDTO productDTO = modelMapper.map(item.getProduct(), ProductDTO.class);
-                    productDTO.setQuantity(item.getQuantity());
-                    return productDTO;
-                })
-                .collect(Collectors.toList());
-
-        cartDTO.setProducts(products);
-        return cartDTO;
+    private CartDTO mapCartToDTO(CartState cart) {
+        List<ProductDTO> products = new ArrayList<>(cart.getLines().size());
+        for (CartLine line : cart.getLines()) {
+            ProductDTO product = line.product();
+            products.add(new ProductDTO(product.getProductId(), product.getProductName(), product.getImage(),
+                    line.quantity(), product.getDescription(), product.getPrice(), product.getSpecialPrice(),
+                    product.getDiscount(), product.getCategory()));
+        }
+        return new CartDTO(cart.getCartId(), cart.getTotalPrice(), products);
     }
 }
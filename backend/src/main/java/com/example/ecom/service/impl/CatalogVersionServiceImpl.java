@@ -0,0 +1,85 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.model.CatalogRevision;
+import com.example.ecom.model.Product;
+import com.example.ecom.payload.CatalogVersion;
+import com.example.ecom.repositories.CatalogRevisionRepository;
+import com.example.ecom.service.CatalogVersionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Validators for the public catalog endpoints. Product detail uses the product's and its category's
+ * updatedAt, taken from the loaded row and cached with it (ProductCatalogCache); listings use the shared
+ * catalog revision, a single indexed read, so a matching If-None-Match is answered before any product
+ * is loaded or mapped.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogVersionServiceImpl implements CatalogVersionService {
+
+    private final CatalogRevisionRepository catalogRevisionRepository;
+    private final AtomicBoolean stockChanged = new AtomicBoolean();
+
+    @Override
+    public CatalogVersion catalogVersion() {
+        CatalogRevision revision = currentRevision();
+        return new CatalogVersion("\"c" + revision.getRevision() + "\"", revision.getUpdatedAt());
+    }
+
+    @Override
+    public CatalogVersion productVersion(Product product) {
+        Instant productUpdatedAt = product.getUpdatedAt();
+        Instant categoryUpdatedAt = product.getCategory() != null ? product.getCategory().getUpdatedAt() : null;
+        String etag = "\"p" + product.getProductId() + "-" + toMillis(productUpdatedAt) + "-" + toMillis(categoryUpdatedAt) + "\"";
+        return new CatalogVersion(etag, latest(productUpdatedAt, categoryUpdatedAt));
+    }
+
+    @Override
+    public void catalogChanged() {
+        if (catalogRevisionRepository.increment(CatalogRevision.ID, Instant.now()) == 0) {
+            currentRevision();
+            catalogRevisionRepository.increment(CatalogRevision.ID, Instant.now());
+        }
+    }
+
+    @Override
+    public void stockChanged() {
+        stockChanged.set(true);
+    }
+
+    // Checkout traffic would turn the revision row into a hot spot, so stock changes bump it at most once per interval
+    @Scheduled(fixedDelayString = "${app.catalog.revision.flush-ms:1000}")
+    public void flushStockChanges() {
+        if (stockChanged.getAndSet(false)) {
+            catalogChanged();
+        }
+    }
+
+    private CatalogRevision currentRevision() {
+        return catalogRevisionRepository.findById(CatalogRevision.ID).orElseGet(() -> {
+            try {
+                return catalogRevisionRepository.save(new CatalogRevision(CatalogRevision.ID, 0L, Instant.now()));
+            } catch (DataIntegrityViolationException e) {
+                // Another node created the row first
+                return catalogRevisionRepository.findById(CatalogRevision.ID).orElseThrow();
+            }
+        });
+    }
+
+    private static long toMillis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : 0L;
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+}
@@ -1,65 +1,66 @@
 package com.example.ecom.service.impl;
 
+import com.example.ecom.cache.CategoryCache;
+import com.example.ecom.cache.ProductCatalogCache;
 import com.example.ecom.exceptions.APIException;
 import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.mapper.DtoMapper;
 import com.example.ecom.model.Category;
 import com.example.ecom.payload.CategoryDTO;
 import com.example.ecom.payload.CategoryResponse;
 import com.example.ecom.repositories.CategoryRepository;
+import com.example.ecom.service.CatalogVersionService;
 import com.example.ecom.service.CategoryService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
+    private final DtoMapper dtoMapper;
+    private final CatalogVersionService catalogVersionService;
+    private final CategoryCache categoryCache;
+    private final ProductCatalogCache productCatalogCache;
 
     @Override
     public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Category> categoryPage = categoryRepository.findByActiveTrue(pageDetails);
-
-        List<Category> categories = categoryPage.getContent();
-
-        List<CategoryDTO> categoryDTOS = categories.stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
-                .collect(Collectors.toList());
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new APIException("Invalid page request");
+        }
+        // Served from the in-memory snapshot: a page is a slice of the pre-sorted list
+        List<CategoryDTO> categories = categoryCache.active(sortBy, sortOrder);
+        int fromIndex = (int) Math.min((long) pageNumber * pageSize, categories.size());
+        int toIndex = Math.min(fromIndex + pageSize, categories.size());
+        int totalPages = (categories.size() + pageSize - 1) / pageSize;
 
         CategoryResponse categoryResponse = new CategoryResponse();
-        categoryResponse.setContent(categoryDTOS);
-        categoryResponse.setPageNumber(categoryPage.getNumber());
-        categoryResponse.setPageSize(categoryPage.getSize());
-        categoryResponse.setTotalElements(categoryPage.getTotalElements());
-        categoryResponse.setTotalPages(categoryPage.getTotalPages());
-        categoryResponse.setLastPage(categoryPage.isLast());
+        categoryResponse.setContent(categories.subList(fromIndex, toIndex));
+        categoryResponse.setPageNumber(pageNumber);
+        categoryResponse.setPageSize(pageSize);
+        categoryResponse.setTotalElements((long) categories.size());
+        categoryResponse.setTotalPages(totalPages);
+        categoryResponse.setLastPage(pageNumber >= totalPages - 1);
 
         return categoryResponse;
     }
 
     @Override
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = dtoMapper.toCategory(categoryDTO);
         Category categoryFromDb = categoryRepository.findByCategoryName(category.getCategoryName());
         if (categoryFromDb != null)
             throw new APIException("Category with the name " + categoryDTO.getCategoryName() + " already exists !!!");
         category.setActive(true);
         Category savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        categoryCache.reload();
+        catalogVersionService.catalogChanged();
+        return dtoMapper.toCategoryDTO(savedCategory);
     }
 
     @Override
@@ -70,14 +71,26 @@ public class CategoryServiceImpl implements CategoryService {
 
         category.setActive(false);
         categoryRepository.saveAndFlush(category);
-
-        return modelMapper.map(category, CategoryDTO.class);
+        // The snapshot is read from the database; reloading before commit could serve a state that rolls back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                categoryCache.reload();
+                productCatalogCache.clear();
+            }
+        });
+        catalogVersionService.catalogChanged();
+
+        return dtoMapper.toCategoryDTO(category);
     }
 
     @Override
     public Category findById(Long categoryId) {
-        return categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
+        Category category = categoryCache.findById(categoryId);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category", "categoryId", categoryId);
+        }
+        return category;
     }
 
     @Override
@@ -85,11 +98,15 @@ public class CategoryServiceImpl implements CategoryService {
         Category savedCategory = categoryRepository.findById(categoryId)
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Category", "categoryId", categoryDTO.getCategoryId()));
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = dtoMapper.toCategory(categoryDTO);
         category.setCategoryId(categoryId);
         category.setActive(savedCategory.getActive());
         savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        categoryCache.reload();
+        // Cached product details carry the category name and its updatedAt in their ETag
+        productCatalogCache.clear();
+        catalogVersionService.catalogChanged();
+        return dtoMapper.toCategoryDTO(savedCategory);
     }
 
 }
@@ -0,0 +1,190 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.checkout.CheckoutAdmissionQueue;
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.model.IdempotencyRecord;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.repositories.IdempotencyRecordRepository;
+import com.example.ecom.service.CheckoutIdempotencyService;
+import com.example.ecom.util.AuthUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotent checkout. The key's row is inserted at the start of the checkout transaction and gets the
+ * serialized orders at its end, so the orders and the record commit together: a repeat that finds the
+ * record returns the stored orders without touching cart, stock or wallet.
+ *
+ * Concurrent repeats wait instead of racing. On this node they wait for the first request's result
+ * before taking an admission slot or a connection; on other nodes their insert blocks on the primary key
+ * until the first transaction ends, then fails as a duplicate and the stored orders are read. If the first
+ * checkout rolls back its row goes with it, so a later repeat runs the checkout again.
+ */
+@Slf4j
+@Service
+public class CheckoutIdempotencyServiceImpl implements CheckoutIdempotencyService {
+
+    static final String INSERT_SQL = "INSERT INTO idempotency_record (record_key, email, created_at) VALUES (?, ?, ?)";
+    static final String COMPLETE_SQL = "UPDATE idempotency_record SET response = ? WHERE record_key = ?";
+
+    private static final TypeReference<List<OrderDTO>> ORDER_LIST = new TypeReference<>() {
+    };
+    private static final int MAX_KEY_LENGTH = 150;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final CheckoutAdmissionQueue checkoutAdmissionQueue;
+    private final AuthUtil authUtil;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long waitMs;
+    private final Duration ttl;
+
+    // Checkouts running on this node, by record key
+    private final ConcurrentHashMap<String, CompletableFuture<List<OrderDTO>>> inFlight = new ConcurrentHashMap<>();
+
+    public CheckoutIdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+            CheckoutAdmissionQueue checkoutAdmissionQueue,
+            AuthUtil authUtil,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.idempotency.wait-ms:30000}") long waitMs,
+            @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.checkoutAdmissionQueue = checkoutAdmissionQueue;
+        this.authUtil = authUtil;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.waitMs = waitMs;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    @Override
+    public List<OrderDTO> placeOrderOnce(String idempotencyKey, Supplier<List<OrderDTO>> placeOrder) {
+        String username = authUtil.loggedInUsername();
+        if (idempotencyKey == null) {
+            return checkoutAdmissionQueue.submit(username, placeOrder);
+        }
+        String email = authUtil.loggedInEmail();
+        String recordKey = recordKey(email, idempotencyKey);
+
+        Optional<List<OrderDTO>> completed = findByRecordKey(recordKey);
+        if (completed.isPresent()) {
+            return completed.get();
+        }
+
+        CompletableFuture<List<OrderDTO>> result = new CompletableFuture<>();
+        CompletableFuture<List<OrderDTO>> running = inFlight.putIfAbsent(recordKey, result);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            List<OrderDTO> orders = checkoutAdmissionQueue.submit(username, () -> placeOrder(recordKey, email,
+                    placeOrder));
+            result.complete(orders);
+            return orders;
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(recordKey, result);
+        }
+    }
+
+    @Override
+    public Optional<List<OrderDTO>> findCompleted(String idempotencyKey) {
+        return findByRecordKey(recordKey(authUtil.loggedInEmail(), idempotencyKey));
+    }
+
+    @Scheduled(initialDelayString = "PT1H", fixedDelayString = "PT1H")
+    public void purgeExpired() {
+        int purged = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(ttl)));
+        if (purged > 0) {
+            log.debug("Purged {} idempotency records", purged);
+        }
+    }
+
+    private List<OrderDTO> placeOrder(String recordKey, String email, Supplier<List<OrderDTO>> placeOrder) {
+        try {
+            return transactionTemplate.execute(status -> {
+                // Waits here while another node's checkout holds the same key
+                jdbcTemplate.update(INSERT_SQL, recordKey, email, Timestamp.from(Instant.now()));
+                List<OrderDTO> orders = placeOrder.get();
+                jdbcTemplate.update(COMPLETE_SQL, toJson(orders), recordKey);
+                return orders;
+            });
+        } catch (DuplicateKeyException e) {
+            return findByRecordKey(recordKey)
+                    .orElseThrow(() -> new APIException("Checkout with this idempotency key is still in progress"));
+        }
+    }
+
+    private List<OrderDTO> await(CompletableFuture<List<OrderDTO>> running) {
+        try {
+            return running.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Same outcome as the request being repeated
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new APIException("Checkout with this idempotency key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Checkout with this idempotency key is still in progress");
+        }
+    }
+
+    private Optional<List<OrderDTO>> findByRecordKey(String recordKey) {
+        return idempotencyRecordRepository.findById(recordKey)
+                .filter(record -> record.getResponse() != null)
+                .map(record -> fromJson(record.getResponse()));
+    }
+
+    private static String recordKey(String email, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new APIException("Idempotency key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        return email + ":" + idempotencyKey;
+    }
+
+    private String toJson(List<OrderDTO> orders) {
+        try {
+            return objectMapper.writeValueAsString(orders);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize placed orders", e);
+        }
+    }
+
+    private List<OrderDTO> fromJson(String response) {
+        try {
+            return objectMapper.readValue(response, ORDER_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotency record", e);
+        }
+    }
+}
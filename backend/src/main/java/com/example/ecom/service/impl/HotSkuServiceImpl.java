@@ -0,0 +1,250 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.cache.ProductCatalogCache;
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.model.Product;
+import com.example.ecom.model.ProductStockShard;
+import com.example.ecom.payload.HotSkuStatus;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.repositories.ProductStockShardRepository;
+import com.example.ecom.service.CatalogVersionService;
+import com.example.ecom.service.HotSkuService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hot SKU mode for flash sales. The product's stock is split over N product_stock_shard rows and a
+ * checkout takes its units from one shard, starting at a random one, with the same conditional update
+ * used for the product row. Concurrent buyers therefore spread over N row locks instead of one.
+ *
+ * While a product is hot, product.quantity is only a reconciled copy: the flush writes the sum of the
+ * shards back every interval, which is what listings and product pages show. Availability checks that
+ * must be exact read the sum directly. A product is only switched to hot once no checkout holds units of it.
+ */
+@Slf4j
+@Service
+public class HotSkuServiceImpl implements HotSkuService {
+
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final ProductCatalogCache productCatalogCache;
+    private final int maxShards;
+
+    // productId -> shard count
+    private volatile Map<Long, Integer> hotSkus = Map.of();
+
+    public HotSkuServiceImpl(ProductRepository productRepository,
+            ProductStockShardRepository shardRepository,
+            CatalogVersionService catalogVersionService,
+            ProductCatalogCache productCatalogCache,
+            @Value("${app.inventory.hot-sku.max-shards:64}") int maxShards) {
+        this.productRepository = productRepository;
+        this.shardRepository = shardRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.productCatalogCache = productCatalogCache;
+        this.maxShards = maxShards;
+    }
+
+    @Override
+    @Transactional
+    public HotSkuStatus enable(Long productId, Integer shards) {
+        if (shards == null || shards < 1 || shards > maxShards) {
+            throw new APIException("Shard count must be between 1 and " + maxShards);
+        }
+        Product product = lockProduct(productId);
+        // Hot SKUs take no soft reservations; switching now would take the units from checkouts holding them
+        int held = product.getReservedQuantity() != null ? product.getReservedQuantity() : 0;
+        if (!Boolean.TRUE.equals(product.getHotSku()) && held > 0) {
+            throw new APIException("Product " + productId + " has " + held
+                    + " units held by checkouts in progress; retry once they complete or expire");
+        }
+        int total = Boolean.TRUE.equals(product.getHotSku())
+                ? drain(productId)
+                : product.getQuantity() != null ? product.getQuantity() : 0;
+
+        split(productId, total, shards);
+        productRepository.updateStockMode(productId, true, total, Instant.now());
+        catalogVersionService.stockChanged();
+        applyAfterCommit(productId, shards);
+        log.info("Product {} is a hot SKU: {} units over {} shards", productId, total, shards);
+        return new HotSkuStatus(productId, true, shards, total);
+    }
+
+    @Override
+    @Transactional
+    public HotSkuStatus disable(Long productId) {
+        Product product = lockProduct(productId);
+        if (!Boolean.TRUE.equals(product.getHotSku())) {
+            throw new APIException("Product " + productId + " is not a hot SKU");
+        }
+        int total = drain(productId);
+
+        productRepository.updateStockMode(productId, false, total, Instant.now());
+        catalogVersionService.stockChanged();
+        applyAfterCommit(productId, null);
+        log.info("Product {} left hot SKU mode with {} units", productId, total);
+        return new HotSkuStatus(productId, false, 0, total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public HotSkuStatus status(Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+        if (!Boolean.TRUE.equals(product.getHotSku())) {
+            return new HotSkuStatus(productId, false, 0, product.getQuantity() != null ? product.getQuantity() : 0);
+        }
+        int shards = (int) shardRepository.countByProductId(productId);
+        return new HotSkuStatus(productId, true, shards, shardRepository.sumQuantityByProductId(productId));
+    }
+
+    @Override
+    public boolean isHot(Long productId) {
+        return hotSkus.containsKey(productId);
+    }
+
+    @Override
+    public int availableQuantity(Long productId) {
+        return shardRepository.sumQuantityByProductId(productId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean take(Long productId, Integer quantity) {
+        // Fast path: one shard covers the line; failed attempts hold no lock
+        int shards = hotSkus.getOrDefault(productId, 0);
+        int start = shards > 0 ? ThreadLocalRandom.current().nextInt(shards) : 0;
+        for (int i = 0; i < shards; i++) {
+            if (shardRepository.decrement(productId, (start + i) % shards, quantity) == 1) {
+                return true;
+            }
+        }
+
+        // Stock is scattered (or the local view is stale): lock every shard in order and take from each
+        List<ProductStockShard> locked = shardRepository.findByProductIdForUpdate(productId);
+        int available = locked.stream().mapToInt(ProductStockShard::getQuantity).sum();
+        if (available < quantity) {
+            return false;
+        }
+        takeFrom(locked, quantity);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean restock(Long productId, Integer quantity, Integer expected) {
+        lockProduct(productId);
+        List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        if (shards.isEmpty()) {
+            return true;
+        }
+        // expected is the reconciled copy the admin edited; sales since the last flush are already gone
+        // from the shards, so only the change is applied to them
+        int delta = (quantity != null ? quantity : 0) - (expected != null ? expected : 0);
+        if (delta >= 0) {
+            for (ProductStockShard shard : shards) {
+                shard.setQuantity(shard.getQuantity() + shareOf(delta, shards.size(), shard.getShardNo()));
+            }
+            return true;
+        }
+        int available = shards.stream().mapToInt(ProductStockShard::getQuantity).sum();
+        if (available < -delta) {
+            return false;
+        }
+        takeFrom(shards, -delta);
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.inventory.hot-sku.flush-ms:1000}")
+    public void flush() {
+        Map<Long, Integer> current = new ConcurrentHashMap<>();
+        for (Object[] row : shardRepository.countShardsByProduct()) {
+            current.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        hotSkus = current;
+        if (!current.isEmpty() && productRepository.reconcileHotSkuQuantities() > 0) {
+            catalogVersionService.stockChanged();
+            // Committed by now; which of them drifted is not returned, so all hot SKUs are reloaded
+            productCatalogCache.evictAll(current.keySet());
+        }
+    }
+
+    private Product lockProduct(Long productId) {
+        return productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+    }
+
+    // Removes all shards of the product and returns the units they held
+    private int drain(Long productId) {
+        int total = shardRepository.findByProductIdForUpdate(productId).stream()
+                .mapToInt(ProductStockShard::getQuantity).sum();
+        shardRepository.deleteByProductId(productId);
+        return total;
+    }
+
+    private void split(Long productId, int total, int shards) {
+        List<ProductStockShard> rows = new ArrayList<>(shards);
+        for (int shardNo = 0; shardNo < shards; shardNo++) {
+            rows.add(new ProductStockShard(null, productId, shardNo, shareOf(total, shards, shardNo)));
+        }
+        shardRepository.saveAll(rows);
+    }
+
+    // Takes units from the locked shards in order; the caller has checked that they hold enough
+    private static void takeFrom(List<ProductStockShard> shards, int quantity) {
+        int remaining = quantity;
+        for (ProductStockShard shard : shards) {
+            int taken = Math.min(shard.getQuantity(), remaining);
+            shard.setQuantity(shard.getQuantity() - taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+    }
+
+    // Even split; the first total % shards shards carry one extra unit
+    private static int shareOf(int total, int shards, int shardNo) {
+        return total / shards + (shardNo < total % shards ? 1 : 0);
+    }
+
+    // The node-wide view and the cached product change only once the stock mode switch has committed; a rolled
+    // back switch leaves both as they were
+    private void applyAfterCommit(Long productId, Integer shards) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                updateLocalView(productId, shards);
+                productCatalogCache.evict(productId);
+            }
+        });
+    }
+
+    private synchronized void updateLocalView(Long productId, Integer shards) {
+        Map<Long, Integer> updated = new ConcurrentHashMap<>(hotSkus);
+        if (shards != null) {
+            updated.put(productId, shards);
+        } else {
+            updated.remove(productId);
+        }
+        hotSkus = updated;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.cache.ProductCatalogCache;
+import com.example.ecom.model.Product;
+import com.example.ecom.payload.CartProduct;
+import com.example.ecom.payload.StockLine;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.service.CatalogVersionService;
+import com.example.ecom.service.HotSkuService;
+import com.example.ecom.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Stock decrements as conditional updates: the row only changes when it still holds enough units, so
+ * the check and the write are one atomic statement and concurrent checkouts cannot oversell.
+ *
+ * All lines go to the database as one JDBC batch in ascending productId order. Every transaction
+ * then locks product rows in the same order, so two multi-line checkouts cannot deadlock each other.
+ * Lines for the same product are merged first; a line whose update count is 0 had too little stock
+ * (or no longer exists) and is reported back.
+ *
+ * Units the buyer reserved when payment started are released by the same statement and count towards
+ * the buyer's lines; a product the buyer had reserved but no longer orders becomes a line taking 0.
+ *
+ * Hot SKUs skip the product row and take their units from the stock shards (HotSkuServiceImpl). The
+ * row update only matches products that are not hot, so a stale local view of which products are hot
+ * shows up as a failed line, which is retried once in the right mode.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+
+    // Params: take, held, productId, held, take. Units held by other buyers' reservations are not available
+    static final String DECREMENT_SQL = "UPDATE product SET quantity = quantity - ?, "
+            + "reserved_quantity = GREATEST(reserved_quantity - ?, 0), updated_at = CURRENT_TIMESTAMP "
+            + "WHERE product_id = ? AND quantity - reserved_quantity + ? >= ? AND hot_sku = false";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final HotSkuService hotSkuService;
+    private final CatalogVersionService catalogVersionService;
+    private final ProductCatalogCache productCatalogCache;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<StockLine> reserve(Collection<StockLine> lines, Map<Long, Integer> held) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockLine line : lines) {
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+        held.keySet().forEach(productId -> quantities.putIfAbsent(productId, 0));
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+
+        List<StockLine> rowLines = new ArrayList<>();
+        List<StockLine> shardLines = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            if (!hotSkuService.isHot(productId)) {
+                rowLines.add(new StockLine(productId, quantity));
+            } else if (quantity > 0) {
+                shardLines.add(new StockLine(productId, quantity));
+            }
+        });
+
+        List<StockLine> failed = new ArrayList<>(decrementRows(rowLines, held));
+        failed.addAll(takeFromShards(shardLines));
+        if (!failed.isEmpty()) {
+            failed = retryModeChanges(failed, shardLines, held);
+        }
+
+        if (failed.isEmpty()) {
+            catalogVersionService.stockChanged();
+            // Product pages show the quantity just taken
+            List<Long> changed = new ArrayList<>(quantities.keySet());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    productCatalogCache.evictAll(changed);
+                }
+            });
+        }
+        return failed;
+    }
+
+    @Override
+    public int availableQuantity(Product product) {
+        return availableQuantity(product.getProductId(), product.getHotSku(), product.getQuantity(),
+                product.getReservedQuantity());
+    }
+
+    @Override
+    public int availableQuantity(CartProduct product) {
+        return availableQuantity(product.productId(), product.hotSku(), product.quantity(),
+                product.reservedQuantity());
+    }
+
+    private int availableQuantity(Long productId, Boolean hotSku, Integer quantity, Integer reservedQuantity) {
+        if (Boolean.TRUE.equals(hotSku)) {
+            return hotSkuService.availableQuantity(productId);
+        }
+        int onHand = quantity != null ? quantity : 0;
+        int reserved = reservedQuantity != null ? reservedQuantity : 0;
+        return Math.max(onHand - reserved, 0);
+    }
+
+    // Lines must be sorted by productId. A 0-unit line that does not match (product gone or now hot) only
+    // had a reservation to give back and is not a failure
+    private List<StockLine> decrementRows(List<StockLine> lines, Map<Long, Integer> held) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> params = lines.stream()
+                .map(line -> {
+                    int heldUnits = held.getOrDefault(line.productId(), 0);
+                    return new Object[] { line.quantity(), heldUnits, line.productId(), heldUnits, line.quantity() };
+                })
+                .toList();
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, params);
+
+        List<StockLine> failed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0 && lines.get(i).quantity() > 0) {
+                failed.add(lines.get(i));
+            }
+        }
+        return failed;
+    }
+
+    private List<StockLine> takeFromShards(List<StockLine> lines) {
+        List<StockLine> failed = new ArrayList<>();
+        for (StockLine line : lines) {
+            if (!hotSkuService.take(line.productId(), line.quantity())) {
+                failed.add(line);
+            }
+        }
+        return failed;
+    }
+
+    // A product switched in or out of hot SKU mode after the local view was refreshed: try the other path
+    private List<StockLine> retryModeChanges(List<StockLine> failed, List<StockLine> shardLines,
+            Map<Long, Integer> held) {
+        Set<Long> hotNow = new HashSet<>(productRepository.findHotSkuIdsIn(
+                failed.stream().map(StockLine::productId).toList()));
+
+        List<StockLine> stillFailed = new ArrayList<>();
+        List<StockLine> retryRows = new ArrayList<>();
+        List<StockLine> retryShards = new ArrayList<>();
+        for (StockLine line : failed) {
+            boolean triedShards = shardLines.contains(line);
+            boolean hot = hotNow.contains(line.productId());
+            if (triedShards == hot) {
+                stillFailed.add(line);
+            } else {
+                (hot ? retryShards : retryRows).add(line);
+            }
+        }
+        retryRows.sort(Comparator.comparing(StockLine::productId));
+        stillFailed.addAll(decrementRows(retryRows, held));
+        stillFailed.addAll(takeFromShards(retryShards));
+        stillFailed.sort(Comparator.comparing(StockLine::productId));
+        return stillFailed;
+    }
+}
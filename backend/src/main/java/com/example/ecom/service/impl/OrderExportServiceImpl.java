@@ -0,0 +1,259 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.service.OrderExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams orders straight from a forward-only JDBC cursor to the response, so memory stays flat however
+ * many orders match: rows are fetched fetch-size at a time (Postgres only uses a cursor inside a
+ * transaction, hence the read-only one) and each row is written out as soon as it is read, with a flush
+ * every flush-rows rows so the client sees progress.
+ *
+ * NDJSON has one line per order with its items nested; CSV has one row per item with the order columns
+ * repeated. Rows come ordered by order id, so an order's items are always adjacent.
+ */
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    static final String SELECT_SQL = "SELECT o.order_id, o.email, o.order_date, o.order_status, o.total_amount, "
+            + "o.commission_amount, o.seller_earning, o.seller_id, o.address_id, pay.payment_method, "
+            + "pay.pg_status, oi.order_item_id, oi.product_id, p.product_name, oi.quantity, oi.discount, "
+            + "oi.ordered_product_price "
+            + "FROM orders o "
+            + "LEFT JOIN payments pay ON pay.payment_id = o.payment_id "
+            + "LEFT JOIN order_items oi ON oi.order_id = o.order_id "
+            + "LEFT JOIN product p ON p.product_id = oi.product_id";
+
+    private static final List<String> CSV_COLUMNS = List.of("orderId", "email", "orderDate", "orderStatus",
+            "totalAmount", "commissionAmount", "sellerEarning", "sellerId", "addressId", "paymentMethod",
+            "pgStatus", "orderItemId", "productId", "productName", "quantity", "discount", "orderedProductPrice");
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int flushRows;
+
+    public OrderExportServiceImpl(DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${app.export.fetch-size:1000}") int fetchSize,
+            @Value("${app.export.flush-rows:500}") int flushRows) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.flushRows = flushRows;
+    }
+
+    @Override
+    public void exportOrders(Format format, LocalDate from, LocalDate to, String status, Long sellerId,
+            OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND o.order_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND o.order_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (status != null && !status.isBlank()) {
+            sql.append(" AND LOWER(o.order_status) = LOWER(?)");
+            args.add(status);
+        }
+        if (sellerId != null) {
+            sql.append(" AND o.seller_id = ?");
+            args.add(sellerId);
+        }
+        sql.append(" ORDER BY o.order_id, oi.order_item_id");
+
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                long[] rows = { 0 };
+                cursorJdbcTemplate.query(sql.toString(), rs -> {
+                    try {
+                        writer.row(rs);
+                        if (++rows[0] % flushRows == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        // Client went away; stop reading the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                }, args.toArray());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    private interface RowWriter {
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator json;
+        private Long currentOrderId;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are ended by hand; no separator before each root object
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong("order_id");
+            if (currentOrderId == null || currentOrderId != orderId) {
+                endOrder();
+                currentOrderId = orderId;
+                json.writeStartObject();
+                json.writeNumberField("orderId", orderId);
+                json.writeStringField("email", rs.getString("email"));
+                Date orderDate = rs.getDate("order_date");
+                json.writeStringField("orderDate", orderDate != null ? orderDate.toLocalDate().toString() : null);
+                json.writeStringField("orderStatus", rs.getString("order_status"));
+                writeNumber("totalAmount", rs.getBigDecimal("total_amount"));
+                writeNumber("commissionAmount", rs.getBigDecimal("commission_amount"));
+                writeNumber("sellerEarning", rs.getBigDecimal("seller_earning"));
+                writeLong("sellerId", rs, "seller_id");
+                writeLong("addressId", rs, "address_id");
+                json.writeStringField("paymentMethod", rs.getString("payment_method"));
+                json.writeStringField("pgStatus", rs.getString("pg_status"));
+                json.writeArrayFieldStart("orderItems");
+            }
+            long orderItemId = rs.getLong("order_item_id");
+            if (!rs.wasNull()) {
+                json.writeStartObject();
+                json.writeNumberField("orderItemId", orderItemId);
+                writeLong("productId", rs, "product_id");
+                json.writeStringField("productName", rs.getString("product_name"));
+                int quantity = rs.getInt("quantity");
+                if (rs.wasNull()) {
+                    json.writeNullField("quantity");
+                } else {
+                    json.writeNumberField("quantity", quantity);
+                }
+                writeNumber("discount", rs.getBigDecimal("discount"));
+                writeNumber("orderedProductPrice", rs.getBigDecimal("ordered_product_price"));
+                json.writeEndObject();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            endOrder();
+            json.flush();
+        }
+
+        private void endOrder() throws IOException {
+            if (currentOrderId != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+        }
+
+        private void writeNumber(String field, BigDecimal value) throws IOException {
+            if (value == null) {
+                json.writeNullField(field);
+            } else {
+                json.writeNumberField(field, value);
+            }
+        }
+
+        private void writeLong(String field, ResultSet rs, String column) throws SQLException, IOException {
+            long value = rs.getLong(column);
+            if (rs.wasNull()) {
+                json.writeNullField(field);
+            } else {
+                json.writeNumberField(field, value);
+            }
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer out;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.out.write(String.join(",", CSV_COLUMNS));
+            this.out.write('\n');
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= CSV_COLUMNS.size(); i++) {
+                if (i > 1) {
+                    out.write(',');
+                }
+                Object value = rs.getObject(i);
+                if (value instanceof BigDecimal decimal) {
+                    out.write(decimal.toPlainString());
+                } else if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            out.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
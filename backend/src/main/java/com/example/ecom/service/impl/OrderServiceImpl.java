@@ -1,28 +1,45 @@
 package com.example.ecom.service.impl;
 
+import com.example.ecom.cart.CartStore;
+import com.example.ecom.event.OrderDeliveredEvent;
+import com.example.ecom.event.OrderPlacedEvent;
+import com.example.ecom.event.OrderStatusChangedEvent;
 import com.example.ecom.exceptions.APIException;
 import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.mapper.DtoMapper;
 import com.example.ecom.model.*;
+import com.example.ecom.outbox.OutboxMessage;
+import com.example.ecom.payload.CheckoutLine;
 import com.example.ecom.payload.OrderDTO;
 import com.example.ecom.payload.OrderItemDTO;
-import com.example.ecom.repositories.OrderItemRepository;
+import com.example.ecom.payload.OrderItemSummary;
+import com.example.ecom.payload.OrderResponse;
+import com.example.ecom.payload.StockLine;
+import com.example.ecom.repositories.CartItemRepository;
+import com.example.ecom.repositories.CartRepository;
+import com.example.ecom.repositories.OrderJdbcRepository;
 import com.example.ecom.repositories.OrderRepository;
-import com.example.ecom.repositories.PaymentRepository;
-import com.example.ecom.repositories.ProductRepository;
 import com.example.ecom.service.AddressService;
-import com.example.ecom.service.CartService;
+import com.example.ecom.service.InventoryService;
 import com.example.ecom.service.OrderService;
+import com.example.ecom.service.OrderViewService;
+import com.example.ecom.service.OutboxService;
+import com.example.ecom.service.StockReservationService;
 import com.example.ecom.service.WalletService;
 import com.example.ecom.util.AuthUtil;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -31,203 +48,245 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    private static final int MAX_ORDER_PAGE_SIZE = 200;
+    private static final String DELIVERED = "Delivered";
+    private static final LocalDate EARLIEST = LocalDate.of(1970, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
     private final AuthUtil authUtil;
-    private final CartService cartService;
+    private final CartStore cartStore;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
     private final AddressService addressService;
-    private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final OrderJdbcRepository orderJdbcRepository;
+    private final DtoMapper dtoMapper;
     private final WalletService walletService;
+    private final InventoryService inventoryService;
+    private final StockReservationService stockReservationService;
+    private final OutboxService outboxService;
+    private final OrderViewService orderViewService;
 
     @Override
     @Transactional
     public List<OrderDTO> placeOrder(String paymentMethod, Long addressId, String pgPaymentId, String pgStatus,
             String pgResponseMessage, String pgName) {
-        String email = authUtil.loggedInEmail();
-        Cart cart = cartService.getCartByEmail(email);
-        if (cart == null) {
-            throw new ResourceNotFoundException("Cart", "User Email", email);
-        }
+        return placeOrder(authUtil.loggedInEmail(), authUtil.loggedInUserId(), paymentMethod, addressId,
+                pgPaymentId, pgStatus, pgResponseMessage, pgName);
+    }
 
-        Address address = addressService.findAddressById(addressId);
-        List<CartItem> cartItems = cart.getCartItems();
-        if (cartItems.isEmpty()) {
+    /**
+     * Places one order per seller for the whole cart. The statement count does not grow with the cart:
+     * the lines come from one projection query, stock is taken in one batch, payments, orders and order
+     * items are inserted in one JDBC batch per table, and the cart is emptied with one delete. Wallet
+     * payments still debit once per order, so each order keeps its own ledger entry.
+     */
+    @Override
+    @Transactional
+    public List<OrderDTO> placeOrder(String email, Long userId, String paymentMethod, Long addressId,
+            String pgPaymentId, String pgStatus, String pgResponseMessage, String pgName) {
+        // Cart changes still held in memory go in with the checkout; the cart stays locked until it ends
+        cartStore.flushForCheckout(userId, email);
+        List<CheckoutLine> lines = cartItemRepository.findCheckoutLinesByEmail(email);
+        if (lines.isEmpty()) {
+            if (!cartRepository.existsByUserEmail(email)) {
+                throw new ResourceNotFoundException("Cart", "User Email", email);
+            }
             throw new APIException("Cart is empty. Cannot place order.");
         }
+        Address address = addressService.findAddressById(addressId);
 
-        // Group items by Seller (User)
-        // Note: product.getUser() is the seller
-        Map<User, List<CartItem>> itemsBySeller = cartItems.stream()
-                .collect(Collectors.groupingBy(item -> {
-                    User seller = item.getProduct().getUser();
-                    return seller != null ? seller : new User(); // Handle safely, though seller should exist
-                }));
-
-        List<OrderDTO> orderDTOs = new ArrayList<>();
-
-        for (Map.Entry<User, List<CartItem>> entry : itemsBySeller.entrySet()) {
-            User seller = entry.getKey();
-            List<CartItem> sellerItems = entry.getValue();
+        // Take stock for the whole cart up front, including the units reserved when payment started;
+        // a shortfall on any line rolls the order back (and the reservation with it)
+        Map<Long, Integer> held = stockReservationService.consume(email);
+        List<StockLine> outOfStock = inventoryService.reserve(lines.stream()
+                .map(line -> new StockLine(line.productId(), line.quantity()))
+                .toList(), held);
+        if (!outOfStock.isEmpty()) {
+            Map<Long, String> productNames = lines.stream()
+                    .collect(Collectors.toMap(CheckoutLine::productId, CheckoutLine::productName, (a, b) -> a));
+            throw new APIException("Not enough stock for: " + outOfStock.stream()
+                    .map(line -> productNames.get(line.productId()))
+                    .collect(Collectors.joining(", ")));
+        }
 
-            // Skip invalid seller if necessary, or assign to admin logic here
-            // Assuming valid sellers for now
+        // One order per seller (product.user); products without a seller share an order with no seller
+        Map<Long, List<CheckoutLine>> linesBySeller = new LinkedHashMap<>();
+        for (CheckoutLine line : lines) {
+            linesBySeller.computeIfAbsent(line.sellerId(), sellerId -> new ArrayList<>()).add(line);
+        }
 
-            // Calculate sub-total for this seller's order
+        boolean walletPayment = "WALLET".equalsIgnoreCase(paymentMethod);
+        List<Payment> payments = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (Map.Entry<Long, List<CheckoutLine>> entry : linesBySeller.entrySet()) {
             BigDecimal subTotal = BigDecimal.ZERO;
-            for (CartItem item : sellerItems) {
-                // Check stock first
-                if (item.getProduct().getQuantity() < item.getQuantity()) {
-                    throw new APIException("Product " + item.getProduct().getProductName() + " is out of stock");
-                }
-
-                BigDecimal price = item.getProductPrice() != null ? item.getProductPrice()
-                        : item.getProduct().getSpecialPrice();
-
-                BigDecimal itemTotal = price.multiply(BigDecimal.valueOf(item.getQuantity()));
-                subTotal = subTotal.add(itemTotal);
+            for (CheckoutLine line : entry.getValue()) {
+                subTotal = subTotal.add(line.unitPrice().multiply(BigDecimal.valueOf(line.quantity())));
             }
 
-            // Create Order
+            // A failed wallet debit rolls the whole checkout back, so the payment can be written as paid
+            Payment payment = Payment.builder()
+                    .pgPaymentId(pgPaymentId)
+                    .pgStatus(walletPayment ? "SUCCESS" : pgStatus)
+                    .pgName(pgName)
+                    .pgResponseMessage(walletPayment ? "Wallet Payment Successful" : pgResponseMessage)
+                    .paymentMethod(paymentMethod)
+                    .build();
+            payments.add(payment);
+
             Order order = new Order();
             order.setEmail(email);
             order.setOrderDate(LocalDate.now());
             order.setTotalAmount(subTotal);
             order.setOrderStatus("Order Accepted !");
             order.setAddress(address);
-            if (seller.getUserId() != null) {
+            order.setPayment(payment);
+            if (entry.getKey() != null) {
+                User seller = new User();
+                seller.setUserId(entry.getKey());
                 order.setSeller(seller);
             }
-
-            // Create Payment (OneToOne)
-            Payment payment = Payment.builder()
-                    .pgPaymentId(pgPaymentId)
-                    .pgStatus(pgStatus)
-                    .pgName(pgName)
-                    .pgResponseMessage(pgResponseMessage)
-                    .paymentMethod(paymentMethod)
-                    .build();
-            payment.setOrder(order);
-            payment = paymentRepository.save(payment);
-            order.setPayment(payment);
-
-            // BANKING LOGIC: Debit Wallet if payment method is WALLET
-            // Must save order FIRST to get orderId
-            Order savedOrder = orderRepository.save(order);
-
-            if ("WALLET".equalsIgnoreCase(paymentMethod)) {
-                walletService.debitWallet(authUtil.loggedInUser().getUserId(),
-                        subTotal, "Payment for Order #" + savedOrder.getOrderId());
-                payment.setPgStatus("SUCCESS");
-                payment.setPgResponseMessage("Wallet Payment Successful");
-                paymentRepository.save(payment); // Update payment status
+            orders.add(order);
+        }
+        orderJdbcRepository.insertPayments(payments);
+        orderJdbcRepository.insertOrders(orders);
+        outboxService.publish(orders.stream()
+                .map(order -> new OutboxMessage(OrderPlacedEvent.TYPE, order.getOrderId(),
+                        new OrderPlacedEvent(order.getOrderId(), email,
+                                order.getSeller() != null ? order.getSeller().getUserId() : null,
+                                order.getTotalAmount())))
+                .toList());
+
+        if (walletPayment) {
+            for (Order order : orders) {
+                walletService.debitWallet(userId, order.getTotalAmount(),
+                        "Payment for Order #" + order.getOrderId());
             }
+        }
 
-            // Create OrderItems
-            List<OrderItem> orderItems = new ArrayList<>();
-            for (CartItem cartItem : sellerItems) {
-                OrderItem orderItem = new OrderItem();
-                orderItem.setOrder(savedOrder);
-                orderItem.setProduct(cartItem.getProduct());
-                orderItem.setQuantity(cartItem.getQuantity());
-                orderItem.setDiscount(cartItem.getDiscount());
-
-                BigDecimal price = cartItem.getProductPrice() != null ? cartItem.getProductPrice()
-                        : cartItem.getProduct().getSpecialPrice();
-
-                BigDecimal orderedPrice = price
-                        .multiply(BigDecimal.valueOf(cartItem.getQuantity()))
+        List<OrderJdbcRepository.NewOrderItem> items = new ArrayList<>(lines.size());
+        List<CheckoutLine> itemLines = new ArrayList<>(lines.size());
+        int orderIndex = 0;
+        for (List<CheckoutLine> sellerLines : linesBySeller.values()) {
+            Long orderId = orders.get(orderIndex++).getOrderId();
+            for (CheckoutLine line : sellerLines) {
+                BigDecimal orderedPrice = line.unitPrice()
+                        .multiply(BigDecimal.valueOf(line.quantity()))
                         .setScale(2, RoundingMode.HALF_UP);
-
-                orderItem.setOrderedProductPrice(orderedPrice);
-                orderItems.add(orderItem);
-
-                // Update product stock
-                Product product = cartItem.getProduct();
-                product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-                productRepository.save(product);
+                items.add(new OrderJdbcRepository.NewOrderItem(orderId, line.productId(), line.quantity(),
+                        line.discount(), orderedPrice));
+                itemLines.add(line);
             }
-            orderItems = orderItemRepository.saveAll(orderItems);
+        }
+        List<Long> orderItemIds = orderJdbcRepository.insertOrderItems(items);
 
-            // Map to DTO
-            OrderDTO orderDTO = modelMapper.map(savedOrder, OrderDTO.class);
-            orderItems.forEach(item -> orderDTO.getOrderItems()
-                    .add(modelMapper.map(item, OrderItemDTO.class)));
+        Long cartId = lines.get(0).cartId();
+        cartItemRepository.deleteAllByCartId(cartId);
+        cartRepository.resetTotal(cartId);
+
+        // Map to DTOs from what was just written; items were inserted order by order
+        List<OrderDTO> orderDTOs = new ArrayList<>(orders.size());
+        Map<Long, OrderDTO> dtoByOrderId = new HashMap<>();
+        for (Order order : orders) {
+            OrderDTO orderDTO = dtoMapper.toOrderDTO(order);
             orderDTO.setAddressId(addressId);
             orderDTOs.add(orderDTO);
+            dtoByOrderId.put(order.getOrderId(), orderDTO);
         }
-
-        // Clear cart - copy product IDs first to avoid ConcurrentModificationException
-        List<Long> productIds = cartItems.stream()
-                .map(item -> item.getProduct().getProductId())
-                .collect(Collectors.toList());
-        for (Long productId : productIds) {
-            cartService.deleteProductFromCart(cart.getCartId(), productId);
+        for (int i = 0; i < items.size(); i++) {
+            OrderJdbcRepository.NewOrderItem item = items.get(i);
+            CheckoutLine line = itemLines.get(i);
+            dtoByOrderId.get(item.orderId()).getOrderItems().add(dtoMapper.toOrderItemDTO(new OrderItemSummary(
+                    orderItemIds.get(i), item.orderId(), item.quantity(), item.discount(),
+                    item.orderedProductPrice(), line.productId(), line.productName(), line.image(),
+                    line.description(), line.price(), line.specialPrice(), line.productDiscount(),
+                    line.categoryId(), line.categoryName())));
         }
 
+        Map<Long, Long> sellerIds = new HashMap<>();
+        for (Order order : orders) {
+            sellerIds.put(order.getOrderId(), order.getSeller() != null ? order.getSeller().getUserId() : null);
+        }
+        orderViewService.insert(orderDTOs, sellerIds);
         return orderDTOs;
     }
 
     @Override
-    public List<OrderDTO> getUserOrders() {
+    public OrderResponse getUserOrders(Integer pageNumber, Integer pageSize, LocalDate from, LocalDate to) {
         String email = authUtil.loggedInEmail();
-        List<Order> orders = orderRepository.findByEmailOrderByOrderDateDesc(email);
-        return mapOrdersToDTOs(orders);
+        Page<OrderDTO> orders = orderViewService.findByEmail(email, orDefault(from, EARLIEST),
+                orDefault(to, LATEST), pageRequest(pageNumber, pageSize));
+        return toOrderResponse(orders);
     }
 
     @Override
-    public List<OrderDTO> getSellerOrders() {
-        User seller = authUtil.loggedInUser();
-        List<Order> orders = orderRepository.findBySellerOrderByOrderDateDesc(seller);
-        return mapOrdersToDTOs(orders);
+    public OrderResponse getSellerOrders(Integer pageNumber, Integer pageSize, LocalDate from, LocalDate to) {
+        Page<OrderDTO> orders = orderViewService.findBySellerId(authUtil.loggedInUserId(),
+                orDefault(from, EARLIEST), orDefault(to, LATEST), pageRequest(pageNumber, pageSize));
+        return toOrderResponse(orders);
     }
 
     @Override
     @Transactional
     public OrderDTO updateOrderStatus(Long orderId, String status) {
-        Order order = orderRepository.findById(orderId)
+        if (status == null || status.isBlank()) {
+            throw new APIException("Order status is required");
+        }
+        // One spelling of Delivered, so the guard and the payout event agree
+        String newStatus = DELIVERED.equalsIgnoreCase(status.trim()) ? DELIVERED : status.trim();
+
+        // Locked, so a concurrent update waits here and then sees Delivered
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "orderId", orderId));
 
-        if (order.getOrderStatus().equals("Delivered")) {
+        if (DELIVERED.equalsIgnoreCase(order.getOrderStatus())) {
             throw new APIException("Order is already delivered.");
         }
 
-        order.setOrderStatus(status);
+        String previousStatus = order.getOrderStatus();
+        order.setOrderStatus(newStatus);
+        Order savedOrder = orderRepository.saveAndFlush(order);
 
-        // If Delivered, trigger wallet processing
-        if ("Delivered".equalsIgnoreCase(status)) {
-            walletService.processOrderCompletion(order, null);
+        // Side effects (seller payout on Delivered) run from the outbox after this transaction commits
+        outboxService.publish(OrderStatusChangedEvent.TYPE, orderId,
+                new OrderStatusChangedEvent(orderId, previousStatus, newStatus));
+        if (DELIVERED.equals(newStatus)) {
+            outboxService.publish(OrderDeliveredEvent.TYPE, orderId, new OrderDeliveredEvent(orderId,
+                    order.getSeller() != null ? order.getSeller().getUserId() : null, order.getTotalAmount()));
         }
 
-        Order savedOrder = orderRepository.save(order);
-
-        // Map to DTO
-        OrderDTO orderDTO = modelMapper.map(savedOrder, OrderDTO.class);
-        List<OrderItem> orderItems = orderItemRepository.findByOrder(savedOrder);
-        orderItems.forEach(item -> orderDTO.getOrderItems()
-                .add(modelMapper.map(item, OrderItemDTO.class)));
-        orderDTO.setAddressId(savedOrder.getAddress().getAddressId());
-        return orderDTO;
+        // The stored document with the new status; items keep their placement snapshot
+        return orderViewService.updateStatus(orderId, savedOrder.getOrderStatus());
     }
 
     @Override
-    public List<OrderDTO> getAllOrders() {
-        List<Order> orders = orderRepository.findAllByOrderByOrderDateDesc();
-        return mapOrdersToDTOs(orders);
+    public OrderResponse getAllOrders(Integer pageNumber, Integer pageSize, LocalDate from, LocalDate to) {
+        Page<OrderDTO> orders = orderViewService.findAll(orDefault(from, EARLIEST),
+                orDefault(to, LATEST), pageRequest(pageNumber, pageSize));
+        return toOrderResponse(orders);
     }
 
-    private List<OrderDTO> mapOrdersToDTOs(List<Order> orders) {
-        List<OrderDTO> orderDTOs = new ArrayList<>();
-        for (Order order : orders) {
-            OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-            List<OrderItem> orderItems = orderItemRepository.findByOrder(order);
-            for (OrderItem item : orderItems) {
-                OrderItemDTO itemDTO = modelMapper.map(item, OrderItemDTO.class);
-                orderDTO.getOrderItems().add(itemDTO);
-            }
-            orderDTOs.add(orderDTO);
+    private static Pageable pageRequest(Integer pageNumber, Integer pageSize) {
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new APIException("Invalid page request");
         }
-        return orderDTOs;
+        return PageRequest.of(pageNumber, Math.min(pageSize, MAX_ORDER_PAGE_SIZE));
+    }
+
+    // Open ends of the range are bound as far-off dates; Postgres cannot type a null parameter
+    private static LocalDate orDefault(LocalDate date, LocalDate fallback) {
+        return date != null ? date : fallback;
+    }
+
+    private OrderResponse toOrderResponse(Page<OrderDTO> page) {
+        OrderResponse orderResponse = new OrderResponse();
+        orderResponse.setContent(page.getContent());
+        orderResponse.setPageNumber(page.getNumber());
+        orderResponse.setPageSize(page.getSize());
+        orderResponse.setTotalElements(page.getTotalElements());
+        orderResponse.setTotalPages(page.getTotalPages());
+        orderResponse.setLastPage(page.isLast());
+        return orderResponse;
     }
 }
@@ -0,0 +1,239 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.mapper.DtoMapper;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.payload.OrderItemDTO;
+import com.example.ecom.payload.OrderItemSummary;
+import com.example.ecom.payload.OrderSummary;
+import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.repositories.OrderItemRepository;
+import com.example.ecom.repositories.OrderRepository;
+import com.example.ecom.repositories.OrderViewRepository;
+import com.example.ecom.service.OrderViewService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order history read model. placeOrder and updateOrderStatus write an order's document in their own
+ * transaction, so a document never shows an order state that did not commit. Product details in a
+ * document are as they were when the order was placed, like the ordered price: a status update only
+ * patches the status.
+ *
+ * A rebuild works through orders in id order, one transaction per batch: the batch's order rows are
+ * locked so a status update cannot slip in between reading them and writing the documents. It rewrites
+ * everything but the product details, which are carried over from the document being replaced; only an
+ * order without one (placed before the read model existed, backfilled once at startup) takes them from the
+ * product rows.
+ */
+@Slf4j
+@Service
+public class OrderViewServiceImpl implements OrderViewService {
+
+    static final String INSERT_SQL = "INSERT INTO order_view (order_id, email, seller_id, order_date, document, "
+            + "updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE order_view SET document = ?, updated_at = ? WHERE order_id = ?";
+    static final String SELECT_DOCUMENT_SQL = "SELECT document FROM order_view WHERE order_id = ?";
+
+    private final OrderViewRepository orderViewRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final DtoMapper dtoMapper;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean backfillOnStartup;
+
+    public OrderViewServiceImpl(OrderViewRepository orderViewRepository,
+            OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
+            DtoMapper dtoMapper,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.order-view.rebuild-batch-size:500}") int batchSize,
+            @Value("${app.order-view.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.orderViewRepository = orderViewRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.dtoMapper = dtoMapper;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insert(List<OrderDTO> orders, Map<Long, Long> sellerIds) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, orders, orders.size(), (ps, order) -> {
+            ps.setLong(1, order.getOrderId());
+            ps.setString(2, order.getEmail());
+            Long sellerId = sellerIds.get(order.getOrderId());
+            if (sellerId != null) {
+                ps.setLong(3, sellerId);
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setDate(4, order.getOrderDate() != null ? Date.valueOf(order.getOrderDate()) : null);
+            ps.setString(5, toJson(order));
+            ps.setTimestamp(6, now);
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OrderDTO updateStatus(Long orderId, String orderStatus) {
+        List<String> documents = jdbcTemplate.queryForList(SELECT_DOCUMENT_SQL, String.class, orderId);
+        if (documents.isEmpty()) {
+            // Not backfilled yet: written from the order tables, which already hold the new status
+            rebuildBatch(List.of(orderId));
+            documents = jdbcTemplate.queryForList(SELECT_DOCUMENT_SQL, String.class, orderId);
+            return fromJson(documents.get(0));
+        }
+        try {
+            // Only the status field changes; read-modify-write is safe under the caller's order row lock
+            ObjectNode document = (ObjectNode) objectMapper.readTree(documents.get(0));
+            document.put("orderStatus", orderStatus);
+            String json = objectMapper.writeValueAsString(document);
+            jdbcTemplate.update(UPDATE_SQL, json, Timestamp.from(Instant.now()), orderId);
+            return objectMapper.treeToValue(document, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable order view document of order " + orderId, e);
+        }
+    }
+
+    @Override
+    public Page<OrderDTO> findByEmail(String email, LocalDate from, LocalDate to, Pageable pageable) {
+        return orderViewRepository.findDocumentsByEmail(email, from, to, pageable).map(this::fromJson);
+    }
+
+    @Override
+    public Page<OrderDTO> findBySellerId(Long sellerId, LocalDate from, LocalDate to, Pageable pageable) {
+        return orderViewRepository.findDocumentsBySellerId(sellerId, from, to, pageable).map(this::fromJson);
+    }
+
+    @Override
+    public Page<OrderDTO> findAll(LocalDate from, LocalDate to, Pageable pageable) {
+        return orderViewRepository.findAllDocuments(from, to, pageable).map(this::fromJson);
+    }
+
+    @Override
+    public Map<String, Object> rebuild(boolean missingOnly) {
+        long startedAt = System.nanoTime();
+        long rebuilt = 0;
+        Long lastOrderId = 0L;
+        List<Long> orderIds;
+        do {
+            Pageable batch = PageRequest.of(0, batchSize);
+            orderIds = missingOnly
+                    ? orderViewRepository.findOrderIdsWithoutViewAfter(lastOrderId, batch)
+                    : orderRepository.findOrderIdsAfter(lastOrderId, batch);
+            if (!orderIds.isEmpty()) {
+                List<Long> ids = orderIds;
+                transactionTemplate.executeWithoutResult(status -> rebuildBatch(ids));
+                rebuilt += ids.size();
+                lastOrderId = ids.get(ids.size() - 1);
+            }
+        } while (orderIds.size() == batchSize);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("rebuilt", rebuilt);
+        response.put("millis", (System.nanoTime() - startedAt) / 1_000_000);
+        return response;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Map<String, Object> result = rebuild(true);
+        if (!Long.valueOf(0).equals(result.get("rebuilt"))) {
+            log.info("Backfilled order view for {} orders in {} ms", result.get("rebuilt"), result.get("millis"));
+        }
+    }
+
+    private void rebuildBatch(List<Long> orderIds) {
+        orderRepository.lockByOrderIdIn(orderIds);
+        Map<Long, OrderDTO> orders = new LinkedHashMap<>();
+        Map<Long, Long> sellerIds = new HashMap<>();
+        for (OrderSummary summary : orderRepository.findSummariesByOrderIdIn(orderIds)) {
+            orders.put(summary.orderId(), dtoMapper.toOrderDTO(summary));
+            sellerIds.put(summary.orderId(), summary.sellerId());
+        }
+        Map<Long, ProductDTO> orderedProducts = orderedProducts(orderIds);
+        for (OrderItemSummary item : orderItemRepository.findSummariesByOrderIdIn(orders.keySet())) {
+            OrderItemDTO orderItem = dtoMapper.toOrderItemDTO(item);
+            ProductDTO ordered = orderedProducts.get(item.orderItemId());
+            if (ordered != null) {
+                orderItem.setProduct(ordered);
+            }
+            orders.get(item.orderId()).getOrderItems().add(orderItem);
+        }
+        orderViewRepository.deleteByOrderIdIn(orderIds);
+        insert(new ArrayList<>(orders.values()), sellerIds);
+    }
+
+    // Product details of the items in the current documents, by orderItemId
+    private Map<Long, ProductDTO> orderedProducts(List<Long> orderIds) {
+        Map<Long, ProductDTO> products = new HashMap<>();
+        for (Object[] row : orderViewRepository.findDocumentsByOrderIdIn(orderIds)) {
+            try {
+                for (OrderItemDTO item : fromJson((String) row[1]).getOrderItems()) {
+                    if (item.getOrderItemId() != null && item.getProduct() != null) {
+                        products.put(item.getOrderItemId(), item.getProduct());
+                    }
+                }
+            } catch (IllegalStateException e) {
+                log.warn("Order view document of order {} is unreadable, rebuilt from the product rows", row[0]);
+            }
+        }
+        return products;
+    }
+
+    private String toJson(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + order.getOrderId(), e);
+        }
+    }
+
+    private OrderDTO fromJson(String document) {
+        try {
+            return objectMapper.readValue(document, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable order view document", e);
+        }
+    }
+}
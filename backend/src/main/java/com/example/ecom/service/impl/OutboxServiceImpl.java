@@ -0,0 +1,63 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.outbox.OutboxMessage;
+import com.example.ecom.service.OutboxService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outbox writes go through JdbcTemplate on the caller's connection, so a checkout adds one batch however
+ * many orders it creates, and the events commit or roll back with the order rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    static final String INSERT_SQL = "INSERT INTO outbox_event "
+            + "(event_type, aggregate_id, payload, status, attempts, created_at, available_at) "
+            + "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (ps, message) -> {
+            ps.setString(1, message.eventType());
+            ps.setObject(2, message.aggregateId(), Types.BIGINT);
+            ps.setString(3, toJson(message.payload()));
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId, Object payload) {
+        publish(List.of(new OutboxMessage(eventType, aggregateId, payload)));
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload "
+                    + payload.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.model.Category;
+import com.example.ecom.model.Product;
+import com.example.ecom.model.User;
+import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.payload.ProductImportError;
+import com.example.ecom.payload.ProductImportStatus;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.search.ProductFacetIndex;
+import com.example.ecom.search.ProductSearchIndex;
+import com.example.ecom.service.CatalogVersionService;
+import com.example.ecom.service.CategoryService;
+import com.example.ecom.service.ProductImportService;
+import com.example.ecom.util.AuthUtil;
+import com.example.ecom.util.PriceUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a CSV or NDJSON upload into one category. The upload is spooled to a temp file and read
+ * line by line on the import executor, so the file is never held in memory. Valid rows are persisted
+ * in JDBC batches of app.import.batch-size, one transaction per batch; a failed batch only fails its own rows.
+ *
+ * CSV needs a header row with productName, description, quantity, price and optionally discount.
+ * NDJSON has one ProductDTO object per line.
+ */
+@Slf4j
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final List<String> CSV_REQUIRED_COLUMNS = List.of("productname", "description", "quantity",
+            "price");
+
+    private enum Format { CSV, NDJSON }
+
+    private final ProductRepository productRepository;
+    private final CategoryService categoryService;
+    private final AuthUtil authUtil;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor productImportExecutor;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final CatalogVersionService catalogVersionService;
+    private final int batchSize;
+    private final int maxErrors;
+    private final Cache<String, ImportJob> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    public ProductImportServiceImpl(ProductRepository productRepository,
+            CategoryService categoryService,
+            AuthUtil authUtil,
+            ObjectMapper objectMapper,
+            Validator validator,
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("productImportExecutor") TaskExecutor productImportExecutor,
+            ProductSearchIndex productSearchIndex,
+            ProductFacetIndex productFacetIndex,
+            CatalogVersionService catalogVersionService,
+            @Value("${app.import.batch-size:500}") int batchSize,
+            @Value("${app.import.max-errors:1000}") int maxErrors) {
+        this.productRepository = productRepository;
+        this.categoryService = categoryService;
+        this.authUtil = authUtil;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.productImportExecutor = productImportExecutor;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.catalogVersionService = catalogVersionService;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public ProductImportStatus startImport(Long categoryId, MultipartFile file) {
+        Category category = categoryService.findById(categoryId);
+        if (file == null || file.isEmpty()) {
+            throw new APIException("Import file is empty");
+        }
+        Format format = detectFormat(file);
+        Long sellerId = authUtil.loggedInUserId();
+
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            throw new APIException("Could not read import file: " + e.getMessage());
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), category.getCategoryId());
+        jobs.put(job.id, job);
+        try {
+            productImportExecutor.execute(() -> runImport(job, format, tempFile, sellerId));
+        } catch (TaskRejectedException e) {
+            jobs.invalidate(job.id);
+            deleteQuietly(tempFile);
+            throw new APIException("Too many product imports in progress, please retry later");
+        }
+        return job.toStatus();
+    }
+
+    @Override
+    public ProductImportStatus getImportStatus(String jobId) {
+        ImportJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job", "jobId", jobId);
+        }
+        return job.toStatus();
+    }
+
+    private void runImport(ImportJob job, Format format, Path file, Long sellerId) {
+        job.status = "RUNNING";
+        job.startedAt = Instant.now();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            // Names already in the category plus the ones seen so far in this file, lower-cased
+            Set<String> names = new HashSet<>(productRepository.findLowerProductNamesByCategoryId(job.categoryId));
+            Map<String, Integer> columns = null;
+            long lineNumber = 0;
+            if (format == Format.CSV) {
+                columns = readCsvHeader(reader.readLine());
+                lineNumber++;
+            }
+
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.processed.incrementAndGet();
+
+                String productName = null;
+                try {
+                    ProductDTO productDTO = format == Format.CSV ? parseCsvRow(line, columns) : parseJsonRow(line);
+                    productName = productDTO.getProductName();
+                    Product product = toValidProduct(productDTO);
+                    if (!names.add(product.getProductName().toLowerCase())) {
+                        throw new IllegalArgumentException("Product already exists with name: "
+                                + product.getProductName());
+                    }
+                    batch.add(new ImportRow(lineNumber, product));
+                } catch (IllegalArgumentException e) {
+                    job.fail(lineNumber, productName, e.getMessage(), maxErrors);
+                } catch (JsonProcessingException e) {
+                    job.fail(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage(), maxErrors);
+                }
+
+                if (batch.size() == batchSize) {
+                    insertBatch(job, batch, sellerId, names);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertBatch(job, batch, sellerId, names);
+            }
+            job.status = "COMPLETED";
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Product import {} failed: {}", job.id, e.getMessage());
+            job.fail(0, null, e.getMessage(), maxErrors);
+            job.status = "FAILED";
+        } catch (RuntimeException e) {
+            log.error("Product import {} failed", job.id, e);
+            job.fail(0, null, NestedExceptionUtils.getMostSpecificCause(e).getMessage(), maxErrors);
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = Instant.now();
+            deleteQuietly(file);
+        }
+        log.info("Product import {} {}: {} rows, {} imported, {} failed", job.id, job.status,
+                job.processed.get(), job.imported.get(), job.failed.get());
+    }
+
+    private void insertBatch(ImportJob job, List<ImportRow> batch, Long sellerId, Set<String> names) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                Category category = entityManager.getReference(Category.class, job.categoryId);
+                User seller = entityManager.getReference(User.class, sellerId);
+                for (ImportRow row : batch) {
+                    row.product().setCategory(category);
+                    row.product().setUser(seller);
+                    entityManager.persist(row.product());
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            // The whole batch was rolled back
+            String message = "Batch insert failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (ImportRow row : batch) {
+                names.remove(row.product().getProductName().toLowerCase());
+                job.fail(row.line(), row.product().getProductName(), message, maxErrors);
+            }
+            return;
+        }
+
+        for (ImportRow row : batch) {
+            productSearchIndex.index(row.product());
+            productFacetIndex.index(row.product());
+        }
+        job.imported.addAndGet(batch.size());
+        catalogVersionService.catalogChanged();
+    }
+
+    private Product toValidProduct(ProductDTO productDTO) {
+        Product product = new Product();
+        product.setProductName(productDTO.getProductName() != null ? productDTO.getProductName().trim() : null);
+        product.setDescription(productDTO.getDescription());
+        product.setQuantity(productDTO.getQuantity());
+        product.setPrice(productDTO.getPrice());
+        product.setDiscount(productDTO.getDiscount() != null ? productDTO.getDiscount() : BigDecimal.ZERO);
+        product.setImage("default.png");
+
+        List<String> problems = new ArrayList<>();
+        for (ConstraintViolation<Product> violation : validator.validate(product)) {
+            problems.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (product.getQuantity() == null || product.getQuantity() < 0) {
+            problems.add("quantity: must be zero or more");
+        }
+        if (product.getPrice() == null || product.getPrice().signum() < 0) {
+            problems.add("price: must be zero or more");
+        }
+        if (product.getDiscount().signum() < 0 || product.getDiscount().compareTo(BigDecimal.valueOf(100)) > 0) {
+            problems.add("discount: must be between 0 and 100");
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", problems));
+        }
+
+        product.setSpecialPrice(PriceUtil.specialPrice(product.getPrice(), product.getDiscount()));
+        return product;
+    }
+
+    private ProductDTO parseJsonRow(String line) throws JsonProcessingException {
+        return objectMapper.readValue(line, ProductDTO.class);
+    }
+
+    private static Map<String, Integer> readCsvHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file has no header row");
+        }
+        List<String> names = splitCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = CSV_REQUIRED_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static ProductDTO parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsvLine(line);
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setProductName(csvValue(values, columns, "productname"));
+        productDTO.setDescription(csvValue(values, columns, "description"));
+        String quantity = csvValue(values, columns, "quantity");
+        String price = csvValue(values, columns, "price");
+        String discount = csvValue(values, columns, "discount");
+        try {
+            productDTO.setQuantity(quantity != null ? Integer.valueOf(quantity) : null);
+            productDTO.setPrice(price != null ? new BigDecimal(price) : null);
+            productDTO.setDiscount(discount != null ? new BigDecimal(discount) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in quantity, price or discount");
+        }
+        return productDTO;
+    }
+
+    private static String csvValue(List<String> values, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180 style fields on a single line: quoted fields may contain commas and "" escapes
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Format detectFormat(MultipartFile file) {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        String type = file.getContentType() != null ? file.getContentType().toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv") || type.contains("csv")) {
+            return Format.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || type.contains("ndjson")) {
+            return Format.NDJSON;
+        }
+        throw new APIException("Unsupported import format, upload a .csv or .ndjson file");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import temp file {}", file);
+        }
+    }
+
+    private record ImportRow(long line, Product product) {
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final Long categoryId;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private volatile String status = "QUEUED";
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        private ImportJob(String id, Long categoryId) {
+            this.id = id;
+            this.categoryId = categoryId;
+        }
+
+        private void fail(long line, String productName, String message, int maxErrors) {
+            if (line > 0) {
+                failed.incrementAndGet();
+            }
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new ProductImportError(line, productName, message));
+                }
+            }
+        }
+
+        private ProductImportStatus toStatus() {
+            List<ProductImportError> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = errors.stream().collect(Collectors.toList());
+            }
+            return new ProductImportStatus(id, categoryId, status, processed.get(), imported.get(), failed.get(),
+                    errorsCopy, startedAt, finishedAt);
+        }
+    }
+}
@@ -1,72 +1,115 @@
 package com.example.ecom.service.impl;
 
+import com.example.ecom.cache.ProductCatalogCache;
+import com.example.ecom.cache.ProductCountEstimator;
+import com.example.ecom.event.ProductPriceChangedEvent;
 import com.example.ecom.exceptions.APIException;
 import com.example.ecom.exceptions.ResourceNotFoundException;
-import com.example.ecom.model.Cart;
+import com.example.ecom.mapper.DtoMapper;
 import com.example.ecom.model.Category;
 import com.example.ecom.model.Product;
 import com.example.ecom.model.User;
 import com.example.ecom.model.AppRole;
 import com.example.ecom.util.AuthUtil;
-import com.example.ecom.payload.CartDTO;
+import com.example.ecom.util.PriceUtil;
+import com.example.ecom.util.ProductCursorCodec;
+import com.example.ecom.payload.ProductCursorResponse;
 import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.payload.ProductDetail;
+import com.example.ecom.payload.ProductFilterResponse;
 import com.example.ecom.payload.ProductResponse;
+import com.example.ecom.payload.ProductSummary;
 import com.example.ecom.repositories.CategoryRepository;
 import com.example.ecom.repositories.ProductRepository;
-import com.example.ecom.service.CartService;
+import com.example.ecom.search.ProductFacetIndex;
+import com.example.ecom.search.ProductSearchIndex;
+import com.example.ecom.service.CatalogVersionService;
 import com.example.ecom.service.CategoryService;
 import com.example.ecom.service.FileService;
+import com.example.ecom.service.HotSkuService;
 import com.example.ecom.service.ProductService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
+
     private final ProductRepository productRepository;
     private final CategoryService categoryService;
     private final FileService fileService;
-    private final CartService cartService;
-    private final ModelMapper modelMapper;
+    private final DtoMapper dtoMapper;
     private final AuthUtil authUtil;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCountEstimator productCountEstimator;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogVersionService catalogVersionService;
+    private final HotSkuService hotSkuService;
 
     public ProductServiceImpl(ProductRepository productRepository,
             CategoryService categoryService,
             FileService fileService,
-            @Lazy CartService cartService,
-            ModelMapper modelMapper,
-            AuthUtil authUtil) {
+            DtoMapper dtoMapper,
+            AuthUtil authUtil,
+            ProductCatalogCache productCatalogCache,
+            ProductSearchIndex productSearchIndex,
+            ProductCountEstimator productCountEstimator,
+            ProductFacetIndex productFacetIndex,
+            ApplicationEventPublisher eventPublisher,
+            CatalogVersionService catalogVersionService,
+            HotSkuService hotSkuService) {
         this.productRepository = productRepository;
         this.categoryService = categoryService;
         this.fileService = fileService;
-        this.cartService = cartService;
-        this.modelMapper = modelMapper;
+        this.dtoMapper = dtoMapper;
         this.authUtil = authUtil;
+        this.productCatalogCache = productCatalogCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productCountEstimator = productCountEstimator;
+        this.productFacetIndex = productFacetIndex;
+        this.eventPublisher = eventPublisher;
+        this.catalogVersionService = catalogVersionService;
+        this.hotSkuService = hotSkuService;
     }
 
     @Value("${project.image}")
     private String path;
 
+    // memory = in-process index, postgres = tsvector/pg_trgm, like = plain LIKE query
+    @Value("${app.search.backend:memory}")
+    private String searchBackend;
+
     @Override
     public Product findByProductId(Long productId) {
         return productRepository.findById(productId).orElseThrow(
@@ -74,7 +117,12 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public ProductDTO getProductById(Long productId) {
+    public ProductDetail getProductById(Long productId) {
+        return productCatalogCache.get(productId, this::loadActiveProduct);
+    }
+
+    // Body and validators from the same row, so the ETag cached with the body labels exactly that body
+    private ProductDetail loadActiveProduct(Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "Product not found with id: ", productId));
 
@@ -82,55 +130,54 @@ public class ProductServiceImpl implements ProductService {
             throw new ResourceNotFoundException("Product", "Product not found with id: ", productId);
         }
 
-        return modelMapper.map(product, ProductDTO.class);
+        return new ProductDetail(dtoMapper.toProductDTO(product), catalogVersionService.productVersion(product));
     }
 
     @Override
     public ProductDTO addProduct(Long categoryId, ProductDTO productDTO) {
         Category category = categoryService.findById(categoryId);
 
-        boolean ifProductNotPresent = true;
-        List<Product> products = category.getProducts();
-        for (Product value : products) {
-            if (value.getProductName().equalsIgnoreCase(productDTO.getProductName())) {
-                ifProductNotPresent = false;
-                break;
-            }
-        }
+        // The category comes from the snapshot without its products, so ask the database (idx_product_category)
+        boolean ifProductNotPresent = !productRepository.existsByCategory_CategoryIdAndProductNameIgnoreCase(
+                category.getCategoryId(), productDTO.getProductName());
 
         if (ifProductNotPresent) {
-            Product product = modelMapper.map(productDTO, Product.class);
+            Product product = dtoMapper.toProduct(productDTO);
             product.setImage("default.png");
             product.setCategory(category);
 
-            BigDecimal discountAmount = product.getPrice()
-                    .multiply(product.getDiscount())
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-            BigDecimal specialPrice = product.getPrice().subtract(discountAmount)
-                    .setScale(2, RoundingMode.HALF_UP);
-
-            product.setSpecialPrice(specialPrice);
+            product.setSpecialPrice(PriceUtil.specialPrice(product.getPrice(), product.getDiscount()));
             product.setUser(authUtil.loggedInUser()); // Set current user as seller
             Product savedProduct = productRepository.save(product);
-            return modelMapper.map(savedProduct, ProductDTO.class);
+            productSearchIndex.index(savedProduct);
+            productFacetIndex.index(savedProduct);
+            catalogVersionService.catalogChanged();
+            return dtoMapper.toProductDTO(savedProduct);
         } else {
             throw new APIException("Product already exists with name: " + productDTO.getProductName());
         }
     }
 
     @Override
-    public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    @Transactional(readOnly = true)
+    public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+            boolean withTotals) {
         Sort sortByAndOrder = (sortOrder.equalsIgnoreCase("asc"))
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> productPage = productRepository.findByActiveTrue(pageDetails);
+        if (!withTotals) {
+            ProductResponse productResponse = buildSliceResponse(productRepository.findActiveSummarySlice(pageDetails));
+            productResponse.setApproximateTotalElements(productCountEstimator.getApproximateCount());
+            return productResponse;
+        }
+        Page<ProductSummary> productPage = productRepository.findActiveSummaries(pageDetails);
 
-        List<Product> products = productPage.getContent();
+        List<ProductSummary> products = productPage.getContent();
 
         List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(dtoMapper::toProductDTO)
                 .collect(Collectors.toList());
 
         ProductResponse productResponse = new ProductResponse();
@@ -145,8 +192,9 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy,
-            String sortOrder) {
+            String sortOrder, boolean withTotals) {
         Category category = categoryService.findById(categoryId);
 
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
@@ -154,11 +202,16 @@ public class ProductServiceImpl implements ProductService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByCategoryOrderByPriceAsc(category, pageDetails);
+        if (!withTotals) {
+            return buildSliceResponse(productRepository
+                    .findSummarySliceByCategoryId(category.getCategoryId(), pageDetails));
+        }
+        Page<ProductSummary> pageProducts = productRepository
+                .findSummariesByCategoryId(category.getCategoryId(), pageDetails);
 
-        List<Product> products = pageProducts.getContent();
+        List<ProductSummary> products = pageProducts.getContent();
         List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(dtoMapper::toProductDTO)
                 .toList();
 
         ProductResponse productResponse = new ProductResponse();
@@ -174,6 +227,100 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public ProductResponse searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy,
             String sortOrder) {
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new APIException("Invalid page request");
+        }
+        if ("postgres".equalsIgnoreCase(searchBackend)) {
+            return searchByKeywordFullText(keyword, pageNumber, pageSize);
+        }
+        if (!productSearchIndex.isReady()) {
+            return searchByKeywordInDatabase(keyword, pageNumber, pageSize, sortBy, sortOrder);
+        }
+
+        // Ranked by relevance, so sortBy/sortOrder do not apply here
+        List<Long> matchingIds = productSearchIndex.search(keyword);
+        if (matchingIds.isEmpty()) {
+            throw new APIException("Products not found with keyword: " + keyword);
+        }
+
+        int fromIndex = (int) Math.min((long) pageNumber * pageSize, matchingIds.size());
+        int toIndex = Math.min(fromIndex + pageSize, matchingIds.size());
+        List<Long> pageIds = matchingIds.subList(fromIndex, toIndex);
+
+        List<ProductDTO> productDTOS = loadProductsInOrder(pageIds);
+
+        int totalPages = (matchingIds.size() + pageSize - 1) / pageSize;
+
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productDTOS);
+        productResponse.setPageNumber(pageNumber);
+        productResponse.setPageSize(pageSize);
+        productResponse.setTotalElements((long) matchingIds.size());
+        productResponse.setTotalPages(totalPages);
+        productResponse.setLastPage(pageNumber >= totalPages - 1);
+        return productResponse;
+    }
+
+    @Override
+    public ProductFilterResponse filterProducts(List<Long> categoryIds, List<Long> sellerIds, BigDecimal minPrice,
+            BigDecimal maxPrice, BigDecimal minDiscount, Integer pageNumber, Integer pageSize) {
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new APIException("Invalid page request");
+        }
+        if (!productFacetIndex.isReady()) {
+            throw new APIException("Product filters are not available yet, please retry shortly");
+        }
+        ProductFacetIndex.FacetResult result = productFacetIndex.filter(categoryIds, sellerIds, minPrice, maxPrice,
+                minDiscount, (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE), pageSize);
+
+        int totalPages = (result.totalElements() + pageSize - 1) / pageSize;
+
+        ProductFilterResponse response = new ProductFilterResponse();
+        response.setContent(loadProductsInOrder(result.productIds()));
+        response.setPageNumber(pageNumber);
+        response.setPageSize(pageSize);
+        response.setTotalElements((long) result.totalElements());
+        response.setTotalPages(totalPages);
+        response.setLastPage(pageNumber >= totalPages - 1);
+        response.setFacets(result.facets());
+        return response;
+    }
+
+    // One IN query for the page, returned in the order of the given ids
+    private List<ProductDTO> loadProductsInOrder(List<Long> productIds) {
+        Map<Long, ProductSummary> productsById = productRepository.findSummariesByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductSummary::productId, Function.identity()));
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(dtoMapper::toProductDTO)
+                .toList();
+    }
+
+    // Ranked by ts_rank, then trigram similarity on the product name
+    private ProductResponse searchByKeywordFullText(String keyword, Integer pageNumber, Integer pageSize) {
+        Page<Product> pageProducts = productRepository.searchFullText(keyword, PageRequest.of(pageNumber, pageSize));
+        if (pageProducts.isEmpty()) {
+            throw new APIException("Products not found with keyword: " + keyword);
+        }
+
+        List<ProductDTO> productDTOS = pageProducts.getContent().stream()
+                .map(dtoMapper::toProductDTO)
+                .toList();
+
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productDTOS);
+        productResponse.setPageNumber(pageProducts.getNumber());
+        productResponse.setPageSize(pageProducts.getSize());
+        productResponse.setTotalElements(pageProducts.getTotalElements());
+        productResponse.setTotalPages(pageProducts.getTotalPages());
+        productResponse.setLastPage(pageProducts.isLast());
+        return productResponse;
+    }
+
+    // LIKE query: app.search.backend=like, or while the in-memory index is still being built
+    private ProductResponse searchByKeywordInDatabase(String keyword, Integer pageNumber, Integer pageSize,
+            String sortBy, String sortOrder) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
@@ -184,7 +331,7 @@ public class ProductServiceImpl implements ProductService {
 
         List<Product> products = pageProducts.getContent();
         List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(dtoMapper::toProductDTO)
                 .toList();
 
         if (products.isEmpty()) {
@@ -203,6 +350,7 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional
     public ProductDTO updateProduct(ProductDTO productDTO, Long productId, Long categoryId) {
         Product productFromDB = productRepository.findById(productId).orElseThrow(
                 () -> new ResourceNotFoundException("Product", "Product not found with id: ", productId));
@@ -215,42 +363,64 @@ public class ProductServiceImpl implements ProductService {
             throw new APIException("You do not have permission to update this product");
         }
 
-        Product product = modelMapper.map(productDTO, Product.class);
+        Product product = dtoMapper.toProduct(productDTO);
+        BigDecimal oldSpecialPrice = productFromDB.getSpecialPrice();
+        BigDecimal oldDiscount = productFromDB.getDiscount();
+        BigDecimal specialPrice = PriceUtil.specialPrice(product.getPrice(), product.getDiscount());
+        Category category = categoryId != null ? categoryService.findById(categoryId) : productFromDB.getCategory();
+        Instant now = Instant.now();
+
+        // Stock only when the caller changed it, and only over the value just read; a quantity left out
+        // (or unchanged) keeps whatever checkouts have made of it
+        Integer quantity = product.getQuantity();
+        Integer readQuantity = productFromDB.getQuantity() != null ? productFromDB.getQuantity() : 0;
+        boolean quantityChanged = quantity != null && !quantity.equals(readQuantity);
+        if (quantityChanged && productRepository.setQuantity(productId, quantity, readQuantity, now) == 0) {
+            throw new APIException("Stock of product " + productId + " changed while it was edited or is held by "
+                    + "checkouts in progress; reload it and try again");
+        }
+        productRepository.updateDetails(productId, product.getProductName(), product.getDescription(),
+                product.getPrice(), product.getDiscount(), specialPrice,
+                category != null ? category.getCategoryId() : null, now);
 
+        // productFromDB is detached by the updates; bring it up to date for the indexes and the response
         productFromDB.setProductName(product.getProductName());
         productFromDB.setDescription(product.getDescription());
         productFromDB.setPrice(product.getPrice());
         productFromDB.setDiscount(product.getDiscount());
-        productFromDB.setQuantity(product.getQuantity());
-
-        BigDecimal discountAmount = productFromDB.getPrice()
-                .multiply(productFromDB.getDiscount())
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-        BigDecimal specialPrice = productFromDB.getPrice().subtract(discountAmount)
-                .setScale(2, RoundingMode.HALF_UP);
         productFromDB.setSpecialPrice(specialPrice);
-
-        if (categoryId != null) {
-            Category category = categoryService.findById(categoryId);
-            productFromDB.setCategory(category);
+        productFromDB.setCategory(category);
+        productFromDB.setUpdatedAt(now);
+        if (quantityChanged) {
+            productFromDB.setQuantity(quantity);
+            // The shards hold the stock of a hot SKU; the flush would overwrite the new quantity otherwise
+            if (Boolean.TRUE.equals(productFromDB.getHotSku())
+                    && !hotSkuService.restock(productId, quantity, readQuantity)) {
+                throw new APIException("Product " + productId + " has fewer units left than the edit removes; "
+                        + "reload it and try again");
+            }
+        }
+        catalogVersionService.catalogChanged();
+
+        // Carts holding the product are repriced in the background, see CartRepricingServiceImpl. The revision
+        // commits with the price and the event is delivered after that commit, so neither goes without the other
+        if (oldSpecialPrice.compareTo(productFromDB.getSpecialPrice()) != 0
+                || oldDiscount.compareTo(productFromDB.getDiscount()) != 0) {
+            productRepository.incrementPriceRevision(productId);
+            eventPublisher.publishEvent(new ProductPriceChangedEvent(productId));
         }
 
-        Product savedProduct = productRepository.save(productFromDB);
-
-        List<Cart> carts = cartService.findCartByProductId(productId);
-
-        List<CartDTO> cartDTOS = carts.stream().map(cart -> {
-            CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-            List<ProductDTO> products = cart.getCartItems().stream()
-                    .map(p -> modelMapper.map(p.getProduct(), ProductDTO.class))
-                    .collect(Collectors.toList());
-            cartDTO.setProducts(products);
-            return cartDTO;
-        }).collect(Collectors.toList());
-
-        cartDTOS.forEach(cart -> cartService.updateProductInCart(cart.getCartId(), productId));
+        // Like deleteProduct: the cache and the indexes follow the committed row
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productCatalogCache.evict(productId);
+                productSearchIndex.index(productFromDB);
+                productFacetIndex.index(productFromDB);
+            }
+        });
 
-        return modelMapper.map(savedProduct, ProductDTO.class);
+        return dtoMapper.toProductDTO(productFromDB);
     }
 
     @Override
@@ -260,17 +430,9 @@ public class ProductServiceImpl implements ProductService {
                 () -> new ResourceNotFoundException("Product", "Product not found with id: ", productId));
 
         User currentUser = authUtil.loggedInUser();
-
-        System.out.println("DEBUG: Deleting product ID: " + productId);
-        System.out.println(
-                "DEBUG: Product Owner ID: " + (product.getUser() != null ? product.getUser().getUserId() : "NULL"));
-        System.out.println("DEBUG: Current User ID: " + currentUser.getUserId());
-
         boolean isAdmin = currentUser.getRoles().stream()
                 .anyMatch(role -> role.getRoleName().name().equals(AppRole.ROLE_ADMIN.name()));
 
-        System.out.println("DEBUG: Is Admin: " + isAdmin);
-
         if (!isAdmin) {
             if (product.getUser() == null) {
                 // If it has no owner, we don't know if this seller should delete it.
@@ -283,26 +445,39 @@ public class ProductServiceImpl implements ProductService {
             }
         }
 
+        productRepository.deactivate(productId, Instant.now());
         product.setActive(false);
-        productRepository.saveAndFlush(product);
-        System.out.println("DEBUG: Product marked as inactive successfully.");
-        return modelMapper.map(product, ProductDTO.class);
+        // The revision row commits (or rolls back) with the product
+        catalogVersionService.catalogChanged();
+
+        // In-memory caches and indexes follow the committed row: evicted earlier, a concurrent read could
+        // cache the still-active product again, and a rollback would leave the indexes without it
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productCatalogCache.evict(productId);
+                productSearchIndex.remove(productId);
+                productFacetIndex.index(product);
+            }
+        });
+        return dtoMapper.toProductDTO(product);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductResponse getProductsBySeller(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Sort sortByAndOrder = (sortOrder.equalsIgnoreCase("asc"))
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        User currentUser = authUtil.loggedInUser();
-        Page<Product> productPage = productRepository.findByUserAndActiveTrue(currentUser, pageDetails);
+        Page<ProductSummary> productPage = productRepository
+                .findActiveSummariesBySellerId(authUtil.loggedInUserId(), pageDetails);
 
-        List<Product> products = productPage.getContent();
+        List<ProductSummary> products = productPage.getContent();
 
         List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(dtoMapper::toProductDTO)
                 .collect(Collectors.toList());
 
         ProductResponse productResponse = new ProductResponse();
@@ -317,13 +492,100 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional
     public ProductDTO updateProductImage(Long productId, MultipartFile imageFile) throws IOException {
         Product productFromDb = findByProductId(productId);
 
         String fileName = fileService.uploadImage(path, imageFile);
 
+        Instant now = Instant.now();
+        productRepository.updateImage(productId, fileName, now);
         productFromDb.setImage(fileName);
-        Product updatedProduct = productRepository.save(productFromDb);
-        return modelMapper.map(updatedProduct, ProductDTO.class);
+        productFromDb.setUpdatedAt(now);
+        catalogVersionService.catalogChanged();
+
+        // Like updateProduct: evicted once the new image is committed, so no read caches the old one again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productCatalogCache.evict(productId);
+            }
+        });
+        return dtoMapper.toProductDTO(productFromDb);
+    }
+
+    @Override
+    public ProductCursorResponse getAllProductsByCursor(String cursor, Integer pageSize, String sortBy,
+            String sortOrder) {
+        int limit = cursorPageSize(pageSize);
+        ScrollPosition position = ProductCursorCodec.decode(cursor, sortBy);
+        Window<Product> window = productRepository.findByActiveTrue(position, keysetSort(sortBy, sortOrder),
+                Limit.of(limit));
+        return buildCursorResponse(window, limit, sortBy);
+    }
+
+    @Override
+    public ProductCursorResponse searchByCategoryByCursor(Long categoryId, String cursor, Integer pageSize,
+            String sortBy, String sortOrder) {
+        int limit = cursorPageSize(pageSize);
+        Category category = categoryService.findById(categoryId);
+        ScrollPosition position = ProductCursorCodec.decode(cursor, sortBy);
+        Window<Product> window = productRepository.findByCategoryAndActiveTrue(category, position,
+                keysetSort(sortBy, sortOrder), Limit.of(limit));
+        return buildCursorResponse(window, limit, sortBy);
+    }
+
+    @Override
+    public ProductCursorResponse getProductsBySellerByCursor(String cursor, Integer pageSize, String sortBy,
+            String sortOrder) {
+        int limit = cursorPageSize(pageSize);
+        User currentUser = authUtil.loggedInUser();
+        ScrollPosition position = ProductCursorCodec.decode(cursor, sortBy);
+        Window<Product> window = productRepository.findByUserAndActiveTrue(currentUser, position,
+                keysetSort(sortBy, sortOrder), Limit.of(limit));
+        return buildCursorResponse(window, limit, sortBy);
+    }
+
+    private static int cursorPageSize(Integer pageSize) {
+        if (pageSize < 1) {
+            throw new APIException("Invalid page request");
+        }
+        return Math.min(pageSize, MAX_CURSOR_PAGE_SIZE);
+    }
+
+    // productId is always the tie-breaker so the seek predicate is (sortCol, productId) > (?, ?)
+    private Sort keysetSort(String sortBy, String sortOrder) {
+        Sort.Direction direction = sortOrder.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, sortBy);
+        return "productId".equals(sortBy) ? sort : sort.and(Sort.by(direction, "productId"));
+    }
+
+    // Count-free page: totalElements/totalPages stay null, lastPage comes from the extra row the slice fetched
+    private ProductResponse buildSliceResponse(Slice<ProductSummary> slice) {
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(slice.getContent().stream()
+                .map(dtoMapper::toProductDTO)
+                .toList());
+        productResponse.setPageNumber(slice.getNumber());
+        productResponse.setPageSize(slice.getSize());
+        productResponse.setLastPage(slice.isLast());
+        return productResponse;
+    }
+
+    private ProductCursorResponse buildCursorResponse(Window<Product> window, Integer pageSize, String sortBy) {
+        List<ProductDTO> productDTOS = window.getContent().stream()
+                .map(dtoMapper::toProductDTO)
+                .toList();
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? ProductCursorCodec.encode(window.getContent().get(window.size() - 1), sortBy)
+                : null;
+
+        ProductCursorResponse response = new ProductCursorResponse();
+        response.setContent(productDTOS);
+        response.setPageSize(pageSize);
+        response.setNextCursor(nextCursor);
+        response.setLastPage(nextCursor == null);
+        return response;
     }
 }
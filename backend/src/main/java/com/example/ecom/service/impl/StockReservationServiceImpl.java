@@ -0,0 +1,250 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.model.Cart;
+import com.example.ecom.model.CartItem;
+import com.example.ecom.model.StockReservation;
+import com.example.ecom.repositories.StockReservationRepository;
+import com.example.ecom.service.CartService;
+import com.example.ecom.service.HotSkuService;
+import com.example.ecom.service.StockReservationService;
+import com.example.ecom.util.TimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Soft stock reservations taken when payment starts. Held units are added to product.reserved_quantity
+ * with a conditional update (only while quantity - reserved_quantity covers them), so holds from every
+ * node count against the same stock and checkouts of other buyers see them at once.
+ *
+ * Expiry does not poll the table: each hold is put on an in-memory timing wheel and a single task
+ * advances it every tick, releasing whatever came due in one batch. Rows are deleted by id before their
+ * units are released and only deleted rows are released, so expiry racing an order (possibly on another
+ * node) releases a hold once. Live holds are put back on the wheel at startup; a slow sweep over the
+ * expires_at index catches holds left behind by a node that stopped for good.
+ *
+ * Hot SKUs are sold first-paid-first-served and take no reservations.
+ */
+@Slf4j
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    static final String RESERVE_SQL = "UPDATE product SET reserved_quantity = reserved_quantity + ? "
+            + "WHERE product_id = ? AND quantity - reserved_quantity >= ? AND hot_sku = false";
+    static final String RELEASE_SQL = "UPDATE product SET reserved_quantity = GREATEST(reserved_quantity - ?, 0) "
+            + "WHERE product_id = ?";
+    static final String DELETE_SQL = "DELETE FROM stock_reservation WHERE reservation_id = ?";
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final StockReservationRepository reservationRepository;
+    private final CartService cartService;
+    private final HotSkuService hotSkuService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final long tickMs;
+    private final TimingWheel<List<Long>> wheel;
+
+    public StockReservationServiceImpl(StockReservationRepository reservationRepository,
+            CartService cartService,
+            HotSkuService hotSkuService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.reservation.ttl-seconds:1800}") long ttlSeconds,
+            @Value("${app.reservation.tick-ms:1000}") long tickMs,
+            @Value("${app.reservation.wheel-slots:4096}") int wheelSlots) {
+        this.reservationRepository = reservationRepository;
+        this.cartService = cartService;
+        this.hotSkuService = hotSkuService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.tickMs = tickMs;
+        this.wheel = new TimingWheel<>(tickMs, wheelSlots, System.currentTimeMillis());
+    }
+
+    @Override
+    @Transactional
+    public Instant reserveCart(String email, Instant holdAtLeastUntil) {
+        Cart cart = cartService.getCartByEmail(email);
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart", "User Email", email);
+        }
+        if (cart.getCartItems().isEmpty()) {
+            throw new APIException("Cart is empty. Cannot start payment.");
+        }
+        releaseRows(reservationRepository.findByEmail(email));
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, String> productNames = new HashMap<>();
+        for (CartItem item : cart.getCartItems()) {
+            Long productId = item.getProduct().getProductId();
+            if (!hotSkuService.isHot(productId)) {
+                quantities.merge(productId, item.getQuantity(), Integer::sum);
+                productNames.put(productId, item.getProduct().getProductName());
+            }
+        }
+
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        int[] counts = jdbcTemplate.batchUpdate(RESERVE_SQL, productIds.stream()
+                .map(productId -> new Object[] { quantities.get(productId), productId, quantities.get(productId) })
+                .toList());
+        List<String> unavailable = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                unavailable.add(productNames.get(productIds.get(i)));
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            throw new APIException("Not enough stock for: " + String.join(", ", unavailable));
+        }
+
+        Instant configuredExpiry = Instant.now().plus(ttl);
+        Instant expiresAt = configuredExpiry.isBefore(holdAtLeastUntil) ? holdAtLeastUntil : configuredExpiry;
+        List<StockReservation> rows = reservationRepository.saveAll(productIds.stream()
+                .map(productId -> new StockReservation(null, email, productId, quantities.get(productId), expiresAt))
+                .toList());
+        scheduleAfterCommit(rows.stream().map(StockReservation::getReservationId).toList(), expiresAt);
+        return expiresAt;
+    }
+
+    @Override
+    @Transactional
+    public void release(String email) {
+        releaseRows(reservationRepository.findByEmail(email));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> consume(String email) {
+        // The wheel entry stays; when it fires the rows are gone and nothing is released twice
+        return deleteRows(reservationRepository.findByEmail(email)).stream()
+                .collect(Collectors.toMap(StockReservation::getProductId, StockReservation::getQuantity,
+                        Integer::sum));
+    }
+
+    @Scheduled(fixedRateString = "${app.reservation.tick-ms:1000}")
+    public void expireDue() {
+        List<Long> due = wheel.advance(System.currentTimeMillis()).stream()
+                .flatMap(List::stream)
+                .toList();
+        for (int from = 0; from < due.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = due.subList(from, Math.min(from + CHUNK_SIZE, due.size()));
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> releaseRows(reservationRepository.findAllById(chunk)));
+            } catch (RuntimeException e) {
+                // Left to the sweep
+                log.warn("Could not release {} expired reservations: {}", chunk.size(), e.getMessage());
+            }
+        }
+        if (!due.isEmpty()) {
+            log.debug("Expired {} reservations, {} holds pending", due.size(), wheel.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLiveReservations() {
+        Instant now = Instant.now();
+        long lastId = 0L;
+        int loaded = 0;
+        List<StockReservation> page;
+        do {
+            page = reservationRepository.findByExpiresAtAfterAndReservationIdGreaterThanOrderByReservationId(now,
+                    lastId, PageRequest.of(0, CHUNK_SIZE));
+            for (StockReservation reservation : page) {
+                wheel.schedule(List.of(reservation.getReservationId()), reservation.getExpiresAt().toEpochMilli());
+                lastId = reservation.getReservationId();
+            }
+            loaded += page.size();
+        } while (page.size() == CHUNK_SIZE);
+        log.info("Loaded {} live stock reservations", loaded);
+        sweepExpired();
+    }
+
+    // Holds whose wheel entry was lost; the wheel normally gets there first, hence the grace period
+    @Scheduled(initialDelayString = "${app.reservation.sweep-ms:600000}",
+            fixedDelayString = "${app.reservation.sweep-ms:600000}")
+    public void sweepExpired() {
+        Instant cutoff = Instant.now().minusMillis(tickMs * 60);
+        // Walked by id, so rows another node deletes first do not bring the same page back
+        long lastId = 0L;
+        List<Long> ids;
+        do {
+            ids = reservationRepository.findIdsExpiredBefore(cutoff, lastId, PageRequest.of(0, CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = ids;
+            lastId = ids.get(ids.size() - 1);
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> releaseRows(reservationRepository.findAllById(chunk)));
+            } catch (RuntimeException e) {
+                // Left to the next sweep
+                log.warn("Could not release {} expired reservations: {}", chunk.size(), e.getMessage());
+            }
+        } while (ids.size() == CHUNK_SIZE);
+    }
+
+    // Deletes the rows by id and returns the ones this call actually deleted
+    private List<StockReservation> deleteRows(List<StockReservation> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        int[] counts = jdbcTemplate.batchUpdate(DELETE_SQL, rows.stream()
+                .map(row -> new Object[] { row.getReservationId() })
+                .toList());
+        List<StockReservation> deleted = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                deleted.add(rows.get(i));
+            }
+        }
+        return deleted;
+    }
+
+    // Deletes the rows and gives their units back, products in id order like the checkout decrement
+    private void releaseRows(List<StockReservation> rows) {
+        Map<Long, Integer> released = new TreeMap<>();
+        for (StockReservation row : deleteRows(rows)) {
+            released.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+        }
+        if (!released.isEmpty()) {
+            jdbcTemplate.batchUpdate(RELEASE_SQL, released.entrySet().stream()
+                    .map(entry -> new Object[] { entry.getValue(), entry.getKey() })
+                    .toList());
+        }
+    }
+
+    private void scheduleAfterCommit(List<Long> reservationIds, Instant expiresAt) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wheel.schedule(reservationIds, expiresAt.toEpochMilli());
+            }
+        });
+    }
+}
@@ -1,20 +1,42 @@
 package com.example.ecom.service.impl;
 
 import com.example.ecom.payload.StripePaymentDto;
+import com.example.ecom.service.StockReservationService;
 import com.example.ecom.service.StripeService;
+import com.example.ecom.util.AuthUtil;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
 import jakarta.annotation.PostConstruct;
-import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Stripe Checkout. Runs without a transaction of its own: the stock hold commits in its own short
+ * transaction (StockReservationService) before the remote call, so no product row stays locked while
+ * Stripe answers, and a failed call releases the hold again.
+ */
 @Service
-@Transactional
+@RequiredArgsConstructor
 public class StripeServiceImpl implements StripeService {
 
+    // Stripe accepts a session expiry between 30 minutes and 24 hours out; the slack covers the time
+    // between working the expiry out and Stripe receiving the request
+    static final Duration MIN_SESSION_EXPIRY = Duration.ofMinutes(30);
+    static final Duration MAX_SESSION_EXPIRY = Duration.ofHours(24);
+    static final Duration REQUEST_SLACK = Duration.ofMinutes(2);
+    // The session expires this long before the hold, so a payment completed just before the session expires
+    // still finds its stock held when the order is placed
+    static final Duration EXPIRY_MARGIN = Duration.ofMinutes(5);
+
+    private final StockReservationService stockReservationService;
+    private final AuthUtil authUtil;
+
     @Value("${stripe.secret.key:sk_test_placeholder}")
     private String stripeApiKey;
 
@@ -28,8 +50,13 @@ public class StripeServiceImpl implements StripeService {
 
     @Override
     public Session createCheckoutSession(StripePaymentDto stripePaymentDto) throws StripeException {
+        // Hold the cart's stock while the buyer pays; throws if an item is no longer available
+        String email = authUtil.loggedInEmail();
+        Instant now = Instant.now();
+        Instant reservedUntil = stockReservationService.reserveCart(email, minimumHold(now));
+
         // Create parameters for Stripe Checkout Session (Redirect Flow)
-        SessionCreateParams params = SessionCreateParams.builder()
+        SessionCreateParams.Builder builder = SessionCreateParams.builder()
                 .addPaymentMethodType(SessionCreateParams.PaymentMethodType.CARD)
                 .setMode(SessionCreateParams.Mode.PAYMENT)
                 .setSuccessUrl(frontendUrl + "payment/success?session_id={CHECKOUT_SESSION_ID}")
@@ -51,8 +78,35 @@ public class StripeServiceImpl implements StripeService {
                                 .build())
                 // Store metadata for reconciliation after redirect
                 .putMetadata("addressId", String.valueOf(stripePaymentDto.getAddress().getAddressId()))
-                .build();
+                // The session ends EXPIRY_MARGIN before the hold, so a completed payment always finds its stock held
+                .setExpiresAt(sessionExpiresAt(reservedUntil, now).getEpochSecond());
+
+        try {
+            return Session.create(builder.build());
+        } catch (StripeException e) {
+            stockReservationService.release(email);
+            throw e;
+        }
+    }
+
+    /**
+     * Shortest hold that still leaves a session Stripe accepts, ending EXPIRY_MARGIN before the hold.
+     */
+    static Instant minimumHold(Instant now) {
+        return now.plus(MIN_SESSION_EXPIRY).plus(REQUEST_SLACK).plus(EXPIRY_MARGIN);
+    }
 
-        return Session.create(params);
+    /**
+     * When a session created at now expires: EXPIRY_MARGIN before the hold, within the range Stripe accepts.
+     * The hold is at least minimumHold(now), so the margin is kept whenever the lower clamp applies too.
+     */
+    static Instant sessionExpiresAt(Instant reservedUntil, Instant now) {
+        Instant earliest = now.plus(MIN_SESSION_EXPIRY).plus(REQUEST_SLACK);
+        Instant latest = now.plus(MAX_SESSION_EXPIRY);
+        Instant expiresAt = reservedUntil.minus(EXPIRY_MARGIN);
+        if (expiresAt.isBefore(earliest)) {
+            return earliest;
+        }
+        return expiresAt.isAfter(latest) ? latest : expiresAt;
     }
 }
@@ -110,6 +110,13 @@ public class WalletServiceImpl implements WalletService {
         if (order.getSeller() == null) {
             return; // No seller to pay
         }
+        // Already paid out: the delivered event was handled before. A concurrent second payout fails on
+        // uk_wallet_transactions_order_type and is retried into this check
+        if (transactionRepository.existsByRelatedOrder_OrderIdAndType(order.getOrderId(),
+                WalletTransaction.TransactionType.CREDIT)) {
+            log.info("Order {} already paid out, skipping", order.getOrderId());
+            return;
+        }
 
         BigDecimal rate = commissionRate != null ? commissionRate : DEFAULT_COMMISSION_RATE;
         BigDecimal totalAmount = order.getTotalAmount();
@@ -0,0 +1,23 @@
+package com.example.ecom.util;
+
+import com.example.ecom.payload.CatalogVersion;
+import org.springframework.web.context.request.WebRequest;
+
+public final class HttpCaching {
+
+    private HttpCaching() {
+    }
+
+    /**
+     * Checks If-None-Match / If-Modified-Since against the version. Returns true when the response has been
+     * turned into a 304, in which case the handler should return null. Also sets ETag and Last-Modified.
+     */
+    public static boolean notModified(WebRequest request, CatalogVersion version) {
+        if (version == null) {
+            return false;
+        }
+        return version.lastModified() != null
+                ? request.checkNotModified(version.etag(), version.lastModified().toEpochMilli())
+                : request.checkNotModified(version.etag());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.ecom.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class PriceUtil {
+
+    private PriceUtil() {
+    }
+
+    /**
+     * Price after the percentage discount, rounded to cents.
+     */
+    public static BigDecimal specialPrice(BigDecimal price, BigDecimal discount) {
+        BigDecimal discountAmount = price
+                .multiply(discount)
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        return price.subtract(discountAmount)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
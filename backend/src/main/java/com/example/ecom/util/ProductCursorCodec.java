@@ -0,0 +1,102 @@
+package com.example.ecom.util;
+
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.model.Product;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Encodes/decodes the opaque keyset cursor used by the catalog listing endpoints.
+ * A cursor carries the sort column, the last row's sort key and its productId. The sort key is tagged so a
+ * null key stays distinct from an empty name.
+ */
+public final class ProductCursorCodec {
+
+    private static final String ID = "productId";
+    // Only columns every write path sets: a keyset seek cannot resume across NULL keys, so quantity (left
+    // empty by imports) is sortable on the offset endpoints only
+    private static final Set<String> SORTABLE = Set.of(ID, "productName", "price", "specialPrice", "discount");
+    private static final String VALUE = "v";
+    private static final String NULL = "n";
+
+    private ProductCursorCodec() {
+    }
+
+    public static void checkSortable(String sortBy) {
+        if (!SORTABLE.contains(sortBy)) {
+            throw new APIException("Cursor pagination does not support sorting by: " + sortBy);
+        }
+    }
+
+    public static String encode(Product last, String sortBy) {
+        Object sortKey = sortKey(last, sortBy);
+        String raw = sortBy + "\n" + last.getProductId() + "\n" + (sortKey == null ? NULL : VALUE + sortKey);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the scroll position for the given cursor, or the initial position when no cursor is given.
+     */
+    public static ScrollPosition decode(String cursor, String sortBy) {
+        checkSortable(sortBy);
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split("\n", 3);
+        } catch (IllegalArgumentException e) {
+            throw new APIException("Invalid cursor");
+        }
+        if (parts.length != 3 || !parts[0].equals(sortBy)) {
+            throw new APIException("Cursor does not match sortBy: " + sortBy);
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            keys.put(ID, Long.valueOf(parts[1]));
+            if (!ID.equals(sortBy)) {
+                keys.put(sortBy, sortKey(parts[2], sortBy));
+            }
+        } catch (NumberFormatException e) {
+            throw new APIException("Invalid cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static Object sortKey(Product product, String sortBy) {
+        return switch (sortBy) {
+            case "productName" -> product.getProductName();
+            case "price" -> product.getPrice();
+            case "specialPrice" -> product.getSpecialPrice();
+            case "discount" -> product.getDiscount();
+            default -> product.getProductId();
+        };
+    }
+
+    private static Object sortKey(String encoded, String sortBy) {
+        if (NULL.equals(encoded)) {
+            return null;
+        }
+        if (!encoded.startsWith(VALUE)) {
+            throw new APIException("Invalid cursor");
+        }
+        return parser(sortBy).apply(encoded.substring(VALUE.length()));
+    }
+
+    private static Function<String, Object> parser(String sortBy) {
+        return switch (sortBy) {
+            case "price", "specialPrice", "discount" -> BigDecimal::new;
+            default -> value -> value;
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ecom.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: deadlines are bucketed into a ring of slots, one slot per tick. Scheduling is O(1)
+ * and advancing one tick only visits that slot's entries; an entry due more than one revolution ahead
+ * stays in its slot until the round it is due in. Sized so the usual delay fits in one revolution, every
+ * entry is looked at once. Not a task scheduler: the owner calls advance() from a single periodic task.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final ArrayDeque<Entry<T>>[] slots;
+    private final long startMillis;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, int slotCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayDeque[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.startMillis = startMillis;
+    }
+
+    // Due at the first tick at or after deadlineMillis; an overdue item is due at the next tick
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, ceilDiv(deadlineMillis - startMillis, tickMillis));
+        slots[(int) (deadlineTick % slots.length)].addLast(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    // Moves the wheel up to nowMillis and returns everything that came due
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<T> due = new ArrayList<>();
+        if (targetTick - currentTick >= slots.length) {
+            // Fell a whole revolution behind (paused JVM): one pass over every slot instead of tick by tick
+            for (ArrayDeque<Entry<T>> slot : slots) {
+                collect(slot, targetTick, due);
+            }
+        } else {
+            while (currentTick < targetTick) {
+                currentTick++;
+                collect(slots[(int) (currentTick % slots.length)], currentTick, due);
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void collect(ArrayDeque<Entry<T>> slot, long upToTick, List<T> due) {
+        Iterator<Entry<T>> entries = slot.iterator();
+        while (entries.hasNext()) {
+            Entry<T> entry = entries.next();
+            if (entry.deadlineTick() <= upToTick) {
+                due.add(entry.item());
+                entries.remove();
+                size--;
+            }
+        }
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.ecom.benchmark;
+
+import com.example.ecom.mapper.DtoMapper;
+import com.example.ecom.mapper.DtoMapperImpl;
+import com.example.ecom.model.Address;
+import com.example.ecom.model.Cart;
+import com.example.ecom.model.CartItem;
+import com.example.ecom.model.Category;
+import com.example.ecom.model.Order;
+import com.example.ecom.model.OrderItem;
+import com.example.ecom.model.Payment;
+import com.example.ecom.model.Product;
+import com.example.ecom.payload.CartDTO;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.payload.OrderItemDTO;
+import com.example.ecom.payload.ProductDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation per mapped object: ModelMapper vs DtoMapper.
+ *
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.ecom.benchmark.DtoMappingBenchmark
+ *
+ * Allocation per operation is reported by the gc profiler as gc.alloc.rate.norm (bytes/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private DtoMapper dtoMapper;
+    private Product product;
+    private Cart cart;
+    private Order order;
+    private OrderItem orderItem;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        dtoMapper = new DtoMapperImpl();
+
+        Category category = new Category();
+        category.setCategoryId(1L);
+        category.setCategoryName("Electronics");
+
+        product = new Product();
+        product.setProductId(10L);
+        product.setProductName("Smartphone X");
+        product.setDescription("Latest model smartphone with AI features");
+        product.setImage("default.png");
+        product.setQuantity(100);
+        product.setPrice(new BigDecimal("999.00"));
+        product.setDiscount(new BigDecimal("10.00"));
+        product.setSpecialPrice(new BigDecimal("899.10"));
+        product.setCategory(category);
+
+        cart = new Cart();
+        cart.setCartId(5L);
+        cart.setTotalPrice(new BigDecimal("2697.30"));
+        for (int i = 0; i < 3; i++) {
+            CartItem item = new CartItem();
+            item.setCartItemId((long) i);
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setProductPrice(product.getSpecialPrice());
+            cart.getCartItems().add(item);
+        }
+
+        Address address = new Address();
+        address.setAddressId(3L);
+        address.setStreet("1 Main Street");
+        address.setBuildingName("Tower A");
+        address.setCity("Hanoi");
+        address.setState("Hanoi");
+        address.setCountry("Vietnam");
+        address.setPincode("100000");
+
+        Payment payment = Payment.builder()
+                .paymentId(7L)
+                .paymentMethod("WALLET")
+                .pgStatus("SUCCESS")
+                .pgResponseMessage("Wallet Payment Successful")
+                .build();
+
+        order = new Order();
+        order.setOrderId(20L);
+        order.setEmail("user1@gmail.com");
+        order.setOrderDate(LocalDate.of(2026, 1, 1));
+        order.setTotalAmount(new BigDecimal("899.10"));
+        order.setOrderStatus("Order Accepted !");
+        order.setAddress(address);
+        order.setPayment(payment);
+
+        orderItem = new OrderItem();
+        orderItem.setOrderItemId(30L);
+        orderItem.setOrder(order);
+        orderItem.setProduct(product);
+        orderItem.setQuantity(1);
+        orderItem.setDiscount(new BigDecimal("10.00"));
+        orderItem.setOrderedProductPrice(new BigDecimal("899.10"));
+    }
+
+    @Benchmark
+    public ProductDTO productModelMapper() {
+        return modelMapper.map(product, ProductDTO.class);
+    }
+
+    @Benchmark
+    public ProductDTO productDtoMapper() {
+        return dtoMapper.toProductDTO(product);
+    }
+
+    @Benchmark
+    public CartDTO cartModelMapper() {
+        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
+        cartDTO.setProducts(cart.getCartItems().stream()
+                .map(item -> {
+                    ProductDTO productDTO = modelMapper.map(item.getProduct(), ProductDTO.class);
+                    productDTO.setQuantity(item.getQuantity());
+                    return productDTO;
+                })
+                .toList());
+        return cartDTO;
+    }
+
+    @Benchmark
+    public CartDTO cartDtoMapper() {
+        return dtoMapper.toCartDTO(cart);
+    }
+
+    @Benchmark
+    public OrderDTO orderModelMapper() {
+        return modelMapper.map(order, OrderDTO.class);
+    }
+
+    @Benchmark
+    public OrderDTO orderDtoMapper() {
+        return dtoMapper.toOrderDTO(order);
+    }
+
+    @Benchmark
+    public OrderItemDTO orderItemModelMapper() {
+        return modelMapper.map(orderItem, OrderItemDTO.class);
+    }
+
+    @Benchmark
+    public OrderItemDTO orderItemDtoMapper() {
+        return dtoMapper.toOrderItemDTO(orderItem);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DtoMappingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.ecom.cache;
+
+import com.example.ecom.exceptions.ResourceNotFoundException;
+import com.example.ecom.payload.CatalogVersion;
+import com.example.ecom.payload.ProductDTO;
+import com.example.ecom.payload.ProductDetail;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCatalogCacheTest {
+
+    private final ProductCatalogCache cache = new ProductCatalogCache(100, 300);
+    private final AtomicInteger stock = new AtomicInteger(10);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, ProductDetail> loader = productId -> {
+        loads.incrementAndGet();
+        ProductDTO product = new ProductDTO();
+        product.setProductId(productId);
+        product.setQuantity(stock.get());
+        return new ProductDetail(product, new CatalogVersion("\"p" + productId + "-" + stock.get() + "-0\"",
+                Instant.ofEpochMilli(stock.get())));
+    };
+
+    @Test
+    void hitIsServedWithItsVersionWithoutLoading() {
+        ProductDetail first = cache.get(1L, loader);
+        stock.set(7);
+
+        ProductDetail again = cache.get(1L, loader);
+        assertEquals(10, again.product().getQuantity());
+        assertEquals(first.version(), again.version());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictedProductIsReloadedWithTheNewVersion() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        // A committed checkout evicts the products it took stock from
+        stock.set(7);
+        cache.evictAll(List.of(1L, 2L));
+
+        ProductDetail reloaded = cache.get(1L, loader);
+        assertEquals(7, reloaded.product().getQuantity());
+        assertEquals("\"p1-7-0\"", reloaded.version().etag());
+        assertEquals(7, cache.get(2L, loader).product().getQuantity());
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void missingProductIsNotCached() {
+        Function<Long, ProductDetail> missing = productId -> {
+            loads.incrementAndGet();
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        };
+
+        assertThrows(ResourceNotFoundException.class, () -> cache.get(1L, missing));
+        assertThrows(ResourceNotFoundException.class, () -> cache.get(1L, missing));
+        assertEquals(2, loads.get());
+        assertEquals(0L, cache.stats().get("size"));
+    }
+}
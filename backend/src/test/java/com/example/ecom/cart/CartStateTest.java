@@ -0,0 +1,102 @@
+package com.example.ecom.cart;
+
+import com.example.ecom.payload.ProductDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * How changes made between flushes merge into the one set of rows the next flush writes.
+ */
+class CartStateTest {
+
+    private final CartState cart = new CartState(1L, "buyer@example.com");
+
+    @Test
+    void repeatedChangesToALineMergeIntoItsLatestValue() {
+        cart.putLine(line(1L, 1, "10.00"));
+        cart.putLine(cart.getLine(1L).withQuantity(3));
+
+        assertEquals(3, cart.getLine(1L).quantity());
+        assertEquals(Set.of(1L), cart.changed());
+        assertTrue(cart.removed().isEmpty());
+        assertEquals(new BigDecimal("30.00"), cart.getTotalPrice());
+    }
+
+    @Test
+    void lineAddedAgainAfterRemovalIsWrittenNotDeleted() {
+        cart.putLoadedLine(line(1L, 2, "10.00"));
+        cart.removeLine(1L);
+        cart.putLine(line(1L, 5, "10.00"));
+
+        assertEquals(Set.of(1L), cart.changed());
+        assertTrue(cart.removed().isEmpty());
+    }
+
+    @Test
+    void lineRemovedAfterAChangeIsOnlyDeleted() {
+        cart.putLoadedLine(line(1L, 2, "10.00"));
+        cart.putLine(line(1L, 4, "10.00"));
+        assertEquals(new BigDecimal("40.00"), cart.getTotalPrice());
+
+        cart.removeLine(1L);
+
+        assertTrue(cart.changed().isEmpty());
+        assertEquals(Set.of(1L), cart.removed());
+        assertEquals(new BigDecimal("0.00"), cart.getTotalPrice());
+    }
+
+    @Test
+    void removingALineNotInTheCartChangesNothing() {
+        assertNull(cart.removeLine(9L));
+        assertFalse(cart.isDirty());
+    }
+
+    @Test
+    void batchAppliesPutsThenRemovesWithOneTotal() {
+        cart.putLoadedLine(line(1L, 1, "10.00"));
+        cart.putLoadedLine(line(2L, 1, "5.50"));
+
+        cart.applyLines(List.of(line(2L, 2, "5.50"), line(3L, 1, "1.25")), List.of(1L, 3L, 9L));
+
+        assertEquals(Set.of(2L), cart.changed());
+        assertEquals(Set.of(1L, 3L), cart.removed());
+        assertEquals(1, cart.getLines().size());
+        assertEquals(new BigDecimal("11.00"), cart.getTotalPrice());
+    }
+
+    @Test
+    void loadedAndRepricedLinesAreNotDirtyButCountInTheTotal() {
+        cart.putLoadedLine(line(1L, 2, "10.00"));
+        cart.putLoadedLine(cart.getLine(1L).withPrice(new BigDecimal("7.50"), BigDecimal.ZERO, 1L));
+
+        assertFalse(cart.isDirty());
+        assertEquals(new BigDecimal("15.00"), cart.getTotalPrice());
+    }
+
+    @Test
+    void markCleanKeepsTheLines() {
+        cart.putLine(line(1L, 2, "10.00"));
+        cart.putLoadedLine(line(2L, 1, "3.00"));
+        cart.removeLine(2L);
+
+        cart.markClean();
+
+        assertFalse(cart.isDirty());
+        assertEquals(2, cart.getLine(1L).quantity());
+        assertEquals(new BigDecimal("20.00"), cart.getTotalPrice());
+    }
+
+    private static CartLine line(Long productId, int quantity, String price) {
+        ProductDTO product = new ProductDTO();
+        product.setProductId(productId);
+        return new CartLine(product, quantity, BigDecimal.ZERO, new BigDecimal(price), 0L);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ecom.checkout;
+
+import com.example.ecom.exceptions.CheckoutRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One checkout at a time, held open by a blocker so the others queue up in a known order.
+ */
+class CheckoutAdmissionQueueTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final CountDownLatch blockerRelease = new CountDownLatch(1);
+
+    @AfterEach
+    void stopThreads() {
+        blockerRelease.countDown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    void usersAreServedRoundRobinAndEachUsersCheckoutsInOrder() throws Exception {
+        CheckoutAdmissionQueue queue = new CheckoutAdmissionQueue(1, 10, 2, 10_000);
+        List<String> served = new ArrayList<>();
+        Future<?> blocker = holdTheOnlySlot(queue);
+
+        List<Future<?>> checkouts = new ArrayList<>();
+        for (String checkout : List.of("a1", "a2", "b1")) {
+            checkouts.add(enqueue(queue, checkout.substring(0, 1), () -> {
+                synchronized (served) {
+                    served.add(checkout);
+                }
+            }));
+        }
+        blockerRelease.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        for (Future<?> checkout : checkouts) {
+            checkout.get(5, TimeUnit.SECONDS);
+        }
+
+        // a2 came before b1 but b had nothing running yet
+        assertEquals(List.of("a1", "b1", "a2"), served);
+        assertEquals(4L, queue.stats().get("admitted"));
+    }
+
+    @Test
+    void userOverItsLimitIsRejectedWithTooManyRequests() throws Exception {
+        CheckoutAdmissionQueue queue = new CheckoutAdmissionQueue(1, 10, 2, 10_000);
+        holdTheOnlySlot(queue);
+        enqueue(queue, "a", () -> { });
+        enqueue(queue, "a", () -> { });
+
+        CheckoutRejectedException rejected = assertThrows(CheckoutRejectedException.class,
+                () -> queue.submit("a", () -> "never"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatus());
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(1L, queue.stats().get("rejectedUserLimit"));
+        // Another user still gets a place
+        enqueue(queue, "b", () -> { });
+    }
+
+    @Test
+    void fullQueueIsRejectedWithServiceUnavailable() throws Exception {
+        CheckoutAdmissionQueue queue = new CheckoutAdmissionQueue(1, 2, 2, 10_000);
+        holdTheOnlySlot(queue);
+        enqueue(queue, "a", () -> { });
+        enqueue(queue, "b", () -> { });
+
+        CheckoutRejectedException rejected = assertThrows(CheckoutRejectedException.class,
+                () -> queue.submit("c", () -> "never"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        assertEquals(1L, queue.stats().get("rejectedQueueFull"));
+    }
+
+    @Test
+    void checkoutNotAdmittedInTimeIsRejectedAndLeavesTheQueue() throws Exception {
+        CheckoutAdmissionQueue queue = new CheckoutAdmissionQueue(1, 10, 2, 50);
+        holdTheOnlySlot(queue);
+
+        CheckoutRejectedException rejected = assertThrows(CheckoutRejectedException.class,
+                () -> queue.submit("a", () -> "never"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        assertEquals(1L, queue.stats().get("rejectedTimeout"));
+        assertEquals(0, queue.stats().get("queued"));
+    }
+
+    private Future<?> holdTheOnlySlot(CheckoutAdmissionQueue queue) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        Future<?> blocker = threads.submit(() -> queue.submit("blocker", () -> {
+            running.countDown();
+            try {
+                return blockerRelease.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    // Submits from its own thread and returns once the checkout is waiting in the queue
+    private Future<?> enqueue(CheckoutAdmissionQueue queue, String user, Runnable checkout)
+            throws InterruptedException {
+        int queuedBefore = (int) queue.stats().get("queued");
+        Future<?> future = threads.submit(() -> queue.submit(user, () -> {
+            checkout.run();
+            return null;
+        }));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((int) queue.stats().get("queued") == queuedBefore) {
+            assertTrue(System.nanoTime() < deadline, "checkout was not queued");
+            Thread.sleep(1);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ecom.controller;
+
+import com.example.ecom.cache.ProductCatalogCache;
+import com.example.ecom.cache.ProductCountEstimator;
+import com.example.ecom.mapper.DtoMapperImpl;
+import com.example.ecom.model.Product;
+import com.example.ecom.repositories.CatalogRevisionRepository;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.search.ProductFacetIndex;
+import com.example.ecom.search.ProductSearchIndex;
+import com.example.ecom.service.CategoryService;
+import com.example.ecom.service.FileService;
+import com.example.ecom.service.HotSkuService;
+import com.example.ecom.service.ProductImportService;
+import com.example.ecom.service.impl.CatalogVersionServiceImpl;
+import com.example.ecom.service.impl.ProductServiceImpl;
+import com.example.ecom.util.AuthUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Product detail ETag against the body it is sent with, through the real product cache. A checkout
+ * changes quantity and updated_at and evicts the product once it commits.
+ */
+class ProductDetailEtagTest {
+
+    private final Product product = new Product();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private ProductCatalogCache cache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        product.setProductId(1L);
+        product.setProductName("Phone");
+        product.setQuantity(10);
+        product.setActive(true);
+        product.setUpdatedAt(Instant.ofEpochMilli(1000));
+        when(productRepository.findById(1L)).thenAnswer(invocation -> Optional.of(copy(product)));
+
+        CatalogVersionServiceImpl catalogVersionService = new CatalogVersionServiceImpl(
+                mock(CatalogRevisionRepository.class));
+        cache = new ProductCatalogCache(100, 300);
+        ProductServiceImpl productService = new ProductServiceImpl(productRepository, mock(CategoryService.class),
+                mock(FileService.class), new DtoMapperImpl(), mock(AuthUtil.class), cache,
+                mock(ProductSearchIndex.class), mock(ProductCountEstimator.class), mock(ProductFacetIndex.class),
+                mock(ApplicationEventPublisher.class), catalogVersionService, mock(HotSkuService.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, cache,
+                mock(ProductImportService.class), catalogVersionService, mock(HotSkuService.class))).build();
+    }
+
+    @Test
+    void freshEtagIsNeverSentWithAStaleBody() throws Exception {
+        String beforeSale = mockMvc.perform(get("/api/public/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(10))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Sold, not yet evicted: the cached body still goes out with its own (old) ETag
+        sell(3, 2000);
+        mockMvc.perform(get("/api/public/products/1").header(HttpHeaders.IF_NONE_MATCH, beforeSale))
+                .andExpect(status().isNotModified());
+
+        cache.evict(1L);
+        MvcResult afterSale = mockMvc.perform(get("/api/public/products/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, beforeSale))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(7))
+                .andReturn();
+        String afterSaleEtag = afterSale.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(beforeSale, afterSaleEtag);
+
+        // The new ETag now stands for the post-sale body
+        mockMvc.perform(get("/api/public/products/1").header(HttpHeaders.IF_NONE_MATCH, afterSaleEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void cachedProductIsServedWithoutTheDatabase() throws Exception {
+        String etag = mockMvc.perform(get("/api/public/products/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult again = mockMvc.perform(get("/api/public/products/1"))
+                .andExpect(jsonPath("$.quantity").value(10))
+                .andReturn();
+        mockMvc.perform(get("/api/public/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        assertEquals(etag, again.getResponse().getHeader(HttpHeaders.ETAG));
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    // What InventoryServiceImpl.DECREMENT_SQL does to the row
+    private void sell(int units, long updatedAtMillis) {
+        product.setQuantity(product.getQuantity() - units);
+        product.setUpdatedAt(Instant.ofEpochMilli(updatedAtMillis));
+    }
+
+    private static Product copy(Product source) {
+        Product copy = new Product();
+        copy.setProductId(source.getProductId());
+        copy.setProductName(source.getProductName());
+        copy.setQuantity(source.getQuantity());
+        copy.setActive(source.getActive());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.ecom.search;
+
+import com.example.ecom.model.Category;
+import com.example.ecom.model.Product;
+import com.example.ecom.model.User;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.search.ProductFacetIndex.FacetResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    // Price buckets 0-50, 50-100, 100-200, 200-500, 500-1000, 1000+
+    private final ProductFacetIndex index = new ProductFacetIndex(productRepository, 2,
+            List.of(new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("200"), new BigDecimal("500"),
+                    new BigDecimal("1000")));
+
+    @Test
+    void priceRangeCoversWholeBucketsAndChecksTheEdgeBuckets() {
+        index.index(product(1L, 10L, 100L, "20", "0"));
+        index.index(product(2L, 10L, 100L, "60", "0"));
+        index.index(product(3L, 10L, 100L, "80", "0"));
+        index.index(product(4L, 10L, 100L, "150", "0"));
+        index.index(product(5L, 10L, 100L, "200", "0"));
+        index.index(product(6L, 10L, 100L, "250", "0"));
+        index.index(product(7L, 10L, 100L, "1200", "0"));
+
+        // 50-100 and 100-200 lie inside; 200-500 straddles max and keeps only the 200 product
+        assertEquals(List.of(2L, 3L, 4L, 5L), ids(filterPrice("50", "200")));
+        // Both ends fall inside a bucket
+        assertEquals(List.of(3L, 4L), ids(filterPrice("70", "160")));
+        assertEquals(List.of(7L), ids(filterPrice("1000", null)));
+        assertEquals(List.of(1L), ids(filterPrice(null, "50")));
+        assertTrue(ids(filterPrice("300", "400")).isEmpty());
+    }
+
+    @Test
+    void minDiscountStraddlingABucketChecksEachProduct() {
+        index.index(product(1L, 10L, 100L, "100", "15"));
+        index.index(product(2L, 10L, 100L, "100", "22"));
+        index.index(product(3L, 10L, 100L, "100", "28"));
+        index.index(product(4L, 10L, 100L, "100", "40"));
+
+        FacetResult result = index.filter(null, null, null, null, new BigDecimal("25"), 0, 10);
+
+        assertEquals(List.of(3L, 4L), result.productIds());
+        // The discount facet ignores the discount filter
+        assertEquals(Map.of("10-20", 1, "20-30", 2, "40-50", 1), result.facets().get(ProductFacetIndex.DISCOUNT));
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnFilter() {
+        index.index(product(1L, 10L, 100L, "20", "0"));
+        index.index(product(2L, 10L, 200L, "60", "0"));
+        index.index(product(3L, 20L, 100L, "60", "0"));
+
+        FacetResult byCategory = index.filter(List.of(10L), null, null, null, null, 0, 10);
+
+        assertEquals(List.of(1L, 2L), byCategory.productIds());
+        assertEquals(Map.of("10", 2, "20", 1), byCategory.facets().get(ProductFacetIndex.CATEGORY));
+        assertEquals(Map.of("100", 1, "200", 1), byCategory.facets().get(ProductFacetIndex.SELLER));
+        assertEquals(Map.of("0-50", 1, "50-100", 1), byCategory.facets().get(ProductFacetIndex.PRICE));
+
+        FacetResult bySellerToo = index.filter(List.of(10L), List.of(200L), null, null, null, 0, 10);
+
+        assertEquals(List.of(2L), bySellerToo.productIds());
+        assertEquals(1, bySellerToo.totalElements());
+        assertEquals(Map.of("10", 1), bySellerToo.facets().get(ProductFacetIndex.CATEGORY));
+        assertEquals(Map.of("100", 1, "200", 1), bySellerToo.facets().get(ProductFacetIndex.SELLER));
+    }
+
+    @Test
+    void inactiveProductsAreNeitherMatchedNorCounted() {
+        index.index(product(1L, 10L, 100L, "20", "0"));
+        Product inactive = product(2L, 20L, 100L, "20", "0");
+        inactive.setActive(false);
+        index.index(inactive);
+
+        FacetResult result = index.filter(null, null, null, null, null, 0, 10);
+
+        assertEquals(List.of(1L), result.productIds());
+        assertEquals(Map.of("10", 1), result.facets().get(ProductFacetIndex.CATEGORY));
+        assertTrue(index.filter(List.of(20L), null, null, null, null, 0, 10).productIds().isEmpty());
+
+        inactive.setActive(true);
+        index.index(inactive);
+        assertEquals(List.of(2L), ids(index.filter(List.of(20L), null, null, null, null, 0, 10)));
+    }
+
+    @Test
+    void pageStartsAtTheOffsetAndIsEmptyPastTheMatches() {
+        for (long id = 1; id <= 5; id++) {
+            index.index(product(id, 10L, 100L, "20", "0"));
+        }
+
+        assertEquals(List.of(1L, 2L), index.filter(null, null, null, null, null, 0, 2).productIds());
+        assertEquals(List.of(4L, 5L), index.filter(null, null, null, null, null, 3, 10).productIds());
+
+        FacetResult atEnd = index.filter(null, null, null, null, null, 5, 10);
+        assertTrue(atEnd.productIds().isEmpty());
+        assertEquals(5, atEnd.totalElements());
+        assertTrue(index.filter(null, null, null, null, null, 100, 10).productIds().isEmpty());
+    }
+
+    @Test
+    void rebuildLoadsTheCatalogInBatches() {
+        when(productRepository.findFacetFieldsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return after == 0L
+                    ? List.of(row(1L, 10L, 100L, "20", true), row(2L, 10L, 100L, "60", false))
+                    : after == 2L ? List.<Object[]>of(row(3L, 20L, 100L, "60", true)) : List.of();
+        });
+        assertFalse(index.isReady());
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        FacetResult result = index.filter(null, null, null, null, null, 0, 10);
+        assertEquals(List.of(1L, 3L), result.productIds());
+        assertEquals(Map.of("10", 1, "20", 1), result.facets().get(ProductFacetIndex.CATEGORY));
+    }
+
+    @Test
+    void writesDuringARebuildSurviveTheSwap() {
+        when(productRepository.findFacetFieldsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            if (after != 0L) {
+                return List.of();
+            }
+            // Committed while the first batch was being read: 1 moved category, 2 deleted, 3 added
+            index.index(product(1L, 20L, 100L, "20", "0"));
+            index.remove(2L);
+            index.index(product(3L, 30L, 100L, "60", "0"));
+            return List.of(row(1L, 10L, 100L, "20", true), row(2L, 10L, 100L, "60", true));
+        });
+
+        index.rebuild();
+
+        FacetResult result = index.filter(null, null, null, null, null, 0, 10);
+        assertEquals(List.of(1L, 3L), result.productIds());
+        assertEquals(Map.of("20", 1, "30", 1), result.facets().get(ProductFacetIndex.CATEGORY));
+    }
+
+    private FacetResult filterPrice(String min, String max) {
+        return index.filter(null, null, min != null ? new BigDecimal(min) : null,
+                max != null ? new BigDecimal(max) : null, null, 0, 10);
+    }
+
+    private static List<Long> ids(FacetResult result) {
+        return result.productIds();
+    }
+
+    // Same columns as findFacetFieldsAfter: productId, categoryId, sellerId, specialPrice, discount, active
+    private static Object[] row(Long productId, Long categoryId, Long sellerId, String price, boolean active) {
+        return new Object[] { productId, categoryId, sellerId, new BigDecimal(price), BigDecimal.ZERO, active };
+    }
+
+    private static Product product(Long productId, Long categoryId, Long sellerId, String specialPrice,
+            String discount) {
+        Category category = new Category();
+        category.setCategoryId(categoryId);
+        User seller = new User();
+        seller.setUserId(sellerId);
+
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setCategory(category);
+        product.setUser(seller);
+        product.setSpecialPrice(new BigDecimal(specialPrice));
+        product.setDiscount(new BigDecimal(discount));
+        product.setActive(true);
+        return product;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ecom.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the old LIKE query with the tsvector and pg_trgm queries on a synthetic 1M product catalog.
+ * Needs a Postgres database (tables go to a separate search_benchmark schema), so it only runs when asked for:
+ *
+ * mvn test -Dtest=ProductSearchBenchmarkTest -Dsearch.benchmark.url=jdbc:postgresql://localhost:5432/bench
+ *          -Dsearch.benchmark.user=postgres -Dsearch.benchmark.password=...
+ */
+@EnabledIfSystemProperty(named = "search.benchmark.url", matches = ".+")
+class ProductSearchBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("search.benchmark.rows", 1_000_000);
+    private static final int RUNS = 20;
+    private static final String[] KEYWORDS = { "phone", "coffee maker", "shirt", "wireless" };
+
+    private static final String LIKE_QUERY = "SELECT product_id FROM product WHERE active = true "
+            + "AND lower(product_name) LIKE lower(?) ORDER BY product_id LIMIT 50";
+    private static final String FULL_TEXT_QUERY = "SELECT product_id FROM product, "
+            + "websearch_to_tsquery('simple', ?) q WHERE active = true AND search_vector @@ q "
+            + "ORDER BY ts_rank(search_vector, q) DESC, product_id LIMIT 50";
+    private static final String TRIGRAM_QUERY = "SELECT product_id FROM product WHERE active = true "
+            + "AND product_name % ? ORDER BY similarity(product_name, ?) DESC, product_id LIMIT 50";
+
+    @Test
+    void compareSearchBackends() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getProperty("search.benchmark.url"),
+                System.getProperty("search.benchmark.user", "postgres"),
+                System.getProperty("search.benchmark.password", ""))) {
+            createCatalog(connection);
+
+            long like = time(connection, LIKE_QUERY, keyword -> new String[] { "%" + keyword + "%" });
+            long fullText = time(connection, FULL_TEXT_QUERY, keyword -> new String[] { keyword });
+            long trigram = time(connection, TRIGRAM_QUERY, keyword -> new String[] { keyword, keyword });
+
+            System.out.printf("Search over %,d products, avg per query: LIKE %.2f ms, tsvector %.2f ms, "
+                    + "pg_trgm %.2f ms%n", ROWS, like / 1e6, fullText / 1e6, trigram / 1e6);
+            assertTrue(fullText < like, "tsvector search should beat the LIKE scan");
+        }
+    }
+
+    private void createCatalog(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // Own schema so the benchmark never touches a real product table
+            statement.execute("CREATE SCHEMA IF NOT EXISTS search_benchmark");
+            statement.execute("SET search_path TO search_benchmark, public");
+            statement.execute("DROP TABLE IF EXISTS search_benchmark.product");
+            statement.execute("CREATE TABLE product (product_id bigserial PRIMARY KEY, product_name varchar(255), "
+                    + "description varchar(255), active boolean DEFAULT true)");
+            statement.execute("INSERT INTO product (product_name, description) "
+                    + "SELECT (ARRAY['Smart','Wireless','Classic','Designer','Automatic','Portable'])[1 + i % 6] "
+                    + "|| ' ' || (ARRAY['Phone','Shirt','Coffee Maker','Headset','Lamp','Kettle','Watch'])[1 + i % 7] "
+                    + "|| ' ' || i, 'Synthetic catalog item number ' || i || ' with generated description' "
+                    + "FROM generate_series(1, " + ROWS + ") AS i");
+            for (String ddl : PostgresSearchSchemaInitializer.STATEMENTS) {
+                statement.execute(ddl);
+            }
+            statement.execute("ANALYZE product");
+        }
+    }
+
+    private long time(Connection connection, String sql, Function<String, String[]> params)
+            throws SQLException {
+        long total = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int run = 0; run < RUNS; run++) {
+                String keyword = KEYWORDS[run % KEYWORDS.length];
+                String[] values = params.apply(keyword);
+                for (int i = 0; i < values.length; i++) {
+                    statement.setString(i + 1, values[i]);
+                }
+                long start = System.nanoTime();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                }
+                // First pass of each keyword warms the buffer cache
+                if (run >= KEYWORDS.length) {
+                    total += System.nanoTime() - start;
+                }
+            }
+        }
+        return total / (RUNS - KEYWORDS.length);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.ecom.search;
+
+import com.example.ecom.model.Product;
+import com.example.ecom.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productRepository, 2, "memory");
+
+    @Test
+    void tokenizeLowerCasesFoldsAccentsAndSplitsOnPunctuation() {
+        assertEquals(List.of("dien", "thoai", "cafe", "x2"), ProductSearchIndex.tokenize("Điện-Thoại, Café! X2"));
+        assertTrue(ProductSearchIndex.tokenize("  ").isEmpty());
+        assertTrue(ProductSearchIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void tokenMatchesInsideAWord() {
+        index.index(product(1L, "Smartphone 128GB", "black"));
+
+        assertEquals(List.of(1L), index.search("phone"));
+        assertEquals(List.of(1L), index.search("MARTPH"));
+    }
+
+    @Test
+    void trigramsSpreadOverSeveralWordsDoNotMatch() {
+        // Every trigram of "phone" (pho, hon, one) is here, but no word contains it
+        index.index(product(1L, "Photo honey", "bone china"));
+        index.index(product(2L, "Phone case", "silicone"));
+
+        assertEquals(List.of(2L), index.search("phone"));
+    }
+
+    @Test
+    void shortTokenIsAPrefixMatch() {
+        index.index(product(1L, "Phone", "basic"));
+        index.index(product(2L, "Graph paper", "notebook"));
+
+        assertEquals(List.of(1L), index.search("ph"));
+    }
+
+    @Test
+    void everyQueryTokenMustMatch() {
+        index.index(product(1L, "Red phone", "android"));
+        index.index(product(2L, "Blue phone", "android"));
+
+        assertEquals(List.of(2L), index.search("blue phone"));
+        assertTrue(index.search("green phone").isEmpty());
+    }
+
+    @Test
+    void nameAndExactTokenHitsRankFirst() {
+        index.index(product(1L, "Charger", "fits most phones"));
+        index.index(product(2L, "Smartphones", "large screen"));
+        index.index(product(3L, "Phone", "basic model"));
+
+        assertEquals(List.of(3L, 2L, 1L), index.search("phone"));
+    }
+
+    @Test
+    void reindexReplacesTheOldTerms() {
+        index.index(product(1L, "Phone", "basic"));
+        index.index(product(1L, "Tablet", "basic"));
+
+        assertTrue(index.search("phone").isEmpty());
+        assertEquals(List.of(1L), index.search("tablet"));
+    }
+
+    @Test
+    void removedAndInactiveProductsAreNotFound() {
+        index.index(product(1L, "Phone", "basic"));
+        index.index(product(2L, "Phone", "deluxe"));
+
+        index.remove(1L);
+        Product inactive = product(2L, "Phone", "deluxe");
+        inactive.setActive(false);
+        index.index(inactive);
+
+        assertTrue(index.search("phone").isEmpty());
+        assertTrue(index.search("basic").isEmpty());
+    }
+
+    @Test
+    void rebuildLoadsActiveProductsInBatches() {
+        when(productRepository.findActiveSearchFieldsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return after == 0L
+                    ? List.of(new Object[] { 1L, "Phone", "basic" }, new Object[] { 2L, "Tablet", "basic" })
+                    : after == 2L ? List.<Object[]>of(new Object[] { 3L, "Phone case", "leather" }) : List.of();
+        });
+        assertFalse(index.isReady());
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 3L), index.search("phone"));
+        assertEquals(List.of(1L, 2L), index.search("basic"));
+    }
+
+    @Test
+    void writesDuringARebuildSurviveTheSwap() {
+        when(productRepository.findActiveSearchFieldsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            if (after != 0L) {
+                return List.of();
+            }
+            // Committed while the first batch was being read: 1 renamed, 2 deleted, 3 added
+            index.index(product(1L, "Tablet", "basic"));
+            index.remove(2L);
+            index.index(product(3L, "Phone case", "leather"));
+            return List.of(new Object[] { 1L, "Phone", "basic" }, new Object[] { 2L, "Phone", "deluxe" });
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(3L), index.search("phone"));
+        assertEquals(List.of(1L), index.search("tablet"));
+        assertTrue(index.search("deluxe").isEmpty());
+    }
+
+    @Test
+    void databaseBackendKeepsTheIndexEmpty() {
+        ProductSearchIndex disabled = new ProductSearchIndex(productRepository, 2, "postgres");
+        disabled.index(product(1L, "Phone", "basic"));
+        disabled.rebuild();
+
+        assertFalse(disabled.isReady());
+        assertTrue(disabled.search("phone").isEmpty());
+    }
+
+    private static Product product(Long productId, String name, String description) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName(name);
+        product.setDescription(description);
+        product.setActive(true);
+        return product;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.checkout.CheckoutAdmissionQueue;
+import com.example.ecom.model.IdempotencyRecord;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.repositories.IdempotencyRecordRepository;
+import com.example.ecom.util.AuthUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Idempotent checkout on one node, with the record table mocked: a stored record is replayed, a concurrent
+ * repeat waits for the first checkout, and a rolled back checkout leaves nothing behind.
+ */
+class CheckoutIdempotencyServiceImplTest {
+
+    private static final String KEY = "key-1";
+    private static final String RECORD_KEY = "buyer@example.com:" + KEY;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final AtomicInteger checkouts = new AtomicInteger();
+    private CheckoutIdempotencyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        AuthUtil authUtil = mock(AuthUtil.class);
+        when(authUtil.loggedInUsername()).thenReturn("buyer");
+        when(authUtil.loggedInEmail()).thenReturn("buyer@example.com");
+        when(idempotencyRecordRepository.findById(RECORD_KEY)).thenReturn(Optional.empty());
+
+        service = new CheckoutIdempotencyServiceImpl(idempotencyRecordRepository,
+                new CheckoutAdmissionQueue(2, 10, 2, 10_000), authUtil, objectMapper, jdbcTemplate,
+                new TransactionTemplate(transactionManager), 10_000, 24);
+    }
+
+    @AfterEach
+    void stopThreads() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void completedKeyReturnsTheStoredOrdersWithoutCheckingOutAgain() throws Exception {
+        List<OrderDTO> placed = List.of(order(7L));
+        when(idempotencyRecordRepository.findById(RECORD_KEY)).thenReturn(Optional.of(new IdempotencyRecord(
+                RECORD_KEY, "buyer@example.com", objectMapper.writeValueAsString(placed), Instant.now())));
+
+        List<OrderDTO> orders = service.placeOrderOnce(KEY, checkout(List.of(order(8L))));
+
+        assertEquals(placed, orders);
+        assertEquals(0, checkouts.get());
+    }
+
+    @Test
+    void concurrentRepeatWaitsForTheFirstCheckoutAndGetsItsOrders() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<OrderDTO> placed = List.of(order(7L));
+        Future<List<OrderDTO>> first = threads.submit(() -> service.placeOrderOnce(KEY, () -> {
+            checkouts.incrementAndGet();
+            started.countDown();
+            await(release);
+            return placed;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread[] repeatThread = new Thread[1];
+        Future<List<OrderDTO>> repeat = threads.submit(() -> {
+            repeatThread[0] = Thread.currentThread();
+            return service.placeOrderOnce(KEY, checkout(List.of(order(8L))));
+        });
+        // Parked on the first checkout's future before that one completes
+        waitUntilParked(repeatThread);
+        release.countDown();
+
+        assertSame(placed, first.get(5, TimeUnit.SECONDS));
+        assertSame(placed, repeat.get(5, TimeUnit.SECONDS));
+        assertEquals(1, checkouts.get());
+    }
+
+    @Test
+    void failedCheckoutLeavesNoRecordSoARetryRunsItAgain() {
+        assertThrows(IllegalStateException.class, () -> service.placeOrderOnce(KEY, () -> {
+            checkouts.incrementAndGet();
+            throw new IllegalStateException("Out of stock");
+        }));
+        verify(transactionManager).rollback(any());
+
+        List<OrderDTO> placed = List.of(order(7L));
+        assertEquals(placed, service.placeOrderOnce(KEY, checkout(placed)));
+        assertEquals(2, checkouts.get());
+        verify(jdbcTemplate).update(eq(CheckoutIdempotencyServiceImpl.COMPLETE_SQL), any(), eq(RECORD_KEY));
+    }
+
+    private Supplier<List<OrderDTO>> checkout(List<OrderDTO> orders) {
+        return () -> {
+            checkouts.incrementAndGet();
+            return orders;
+        };
+    }
+
+    private static void waitUntilParked(Thread[] thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread[0] == null || thread[0].getState() != Thread.State.TIMED_WAITING) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Repeat never waited for the first checkout");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OrderDTO order(Long orderId) {
+        OrderDTO order = new OrderDTO();
+        order.setOrderId(orderId);
+        order.setEmail("buyer@example.com");
+        order.setOrderStatus("Order Accepted !");
+        return order;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.ecom.service.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checkout throughput on one flash-sale product: every buyer decrementing the product row versus
+ * buyers spread over stock shards. Each checkout is a transaction that takes one unit and then writes
+ * an order row, so the stock lock is held for about as long as in placeOrder. Needs Postgres (tables go
+ * to a separate hot_sku_benchmark schema), so it only runs when asked for:
+ *
+ * mvn test -Dtest=HotSkuContentionBenchmarkTest -Dhotsku.benchmark.url=jdbc:postgresql://localhost:5432/bench
+ *          -Dhotsku.benchmark.user=postgres -Dhotsku.benchmark.password=...
+ */
+@EnabledIfSystemProperty(named = "hotsku.benchmark.url", matches = ".+")
+class HotSkuContentionBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("hotsku.benchmark.threads", 64);
+    private static final int CHECKOUTS = Integer.getInteger("hotsku.benchmark.checkouts", 20_000);
+    private static final int SHARDS = Integer.getInteger("hotsku.benchmark.shards", 16);
+    private static final long PRODUCT_ID = 1L;
+
+    private static final String SHARD_DECREMENT_SQL = "UPDATE product_stock_shard SET quantity = quantity - 1 "
+            + "WHERE product_id = ? AND shard_no = ? AND quantity >= 1";
+    private static final String ORDER_SQL = "INSERT INTO checkout_order (product_id) VALUES (?)";
+
+    @Test
+    void shardedStockBeatsSingleRow() throws Exception {
+        try (HikariDataSource dataSource = dataSource()) {
+            createTables(dataSource);
+
+            double singleRow = run(dataSource, this::takeFromRow);
+            double sharded = run(dataSource, this::takeFromShard);
+
+            System.out.printf("%,d checkouts of one product on %d threads: single row %,.0f/s, "
+                    + "%d shards %,.0f/s%n", CHECKOUTS, THREADS, singleRow, SHARDS, sharded);
+            assertTrue(sharded > singleRow, "sharded stock should out-run the single product row");
+        }
+    }
+
+    private interface Take {
+        boolean take(Connection connection) throws SQLException;
+    }
+
+    private boolean takeFromRow(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(InventoryServiceImpl.DECREMENT_SQL)) {
+            statement.setInt(1, 1);
+            statement.setInt(2, 0);
+            statement.setLong(3, PRODUCT_ID);
+            statement.setInt(4, 0);
+            statement.setInt(5, 1);
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    // Same walk as HotSkuServiceImpl.take: random first shard, then the others
+    private boolean takeFromShard(Connection connection) throws SQLException {
+        int start = ThreadLocalRandom.current().nextInt(SHARDS);
+        try (PreparedStatement statement = connection.prepareStatement(SHARD_DECREMENT_SQL)) {
+            for (int i = 0; i < SHARDS; i++) {
+                statement.setLong(1, PRODUCT_ID);
+                statement.setInt(2, (start + i) % SHARDS);
+                if (statement.executeUpdate() == 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Checkouts per second
+    private double run(HikariDataSource dataSource, Take take) throws Exception {
+        resetStock(dataSource);
+        AtomicInteger remaining = new AtomicInteger(CHECKOUTS);
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService buyers = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            buyers.submit(() -> {
+                start.await();
+                try (Connection connection = dataSource.getConnection();
+                        PreparedStatement order = connection.prepareStatement(ORDER_SQL)) {
+                    connection.setAutoCommit(false);
+                    while (remaining.decrementAndGet() >= 0) {
+                        if (take.take(connection)) {
+                            order.setLong(1, PRODUCT_ID);
+                            order.executeUpdate();
+                            sold.incrementAndGet();
+                        }
+                        connection.commit();
+                    }
+                }
+                return null;
+            });
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        buyers.shutdown();
+        assertTrue(buyers.awaitTermination(10, TimeUnit.MINUTES), "buyers did not finish");
+        double seconds = (System.nanoTime() - began) / 1e9;
+        assertEquals(CHECKOUTS, sold.get(), "stock covers every checkout");
+        return CHECKOUTS / seconds;
+    }
+
+    private HikariDataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("hotsku.benchmark.url"));
+        dataSource.setUsername(System.getProperty("hotsku.benchmark.user", "postgres"));
+        dataSource.setPassword(System.getProperty("hotsku.benchmark.password", ""));
+        dataSource.setMaximumPoolSize(THREADS);
+        // Own schema so the benchmark never touches real tables
+        dataSource.setConnectionInitSql("SET search_path TO hot_sku_benchmark");
+        return dataSource;
+    }
+
+    private void createTables(HikariDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS hot_sku_benchmark");
+            statement.execute("DROP TABLE IF EXISTS hot_sku_benchmark.product");
+            statement.execute("DROP TABLE IF EXISTS hot_sku_benchmark.product_stock_shard");
+            statement.execute("DROP TABLE IF EXISTS hot_sku_benchmark.checkout_order");
+            statement.execute("CREATE TABLE hot_sku_benchmark.product (product_id bigint PRIMARY KEY, "
+                    + "quantity integer NOT NULL, reserved_quantity integer NOT NULL DEFAULT 0, updated_at timestamp, "
+                    + "hot_sku boolean NOT NULL DEFAULT false)");
+            statement.execute("CREATE TABLE hot_sku_benchmark.product_stock_shard (product_id bigint, "
+                    + "shard_no integer, quantity integer NOT NULL, PRIMARY KEY (product_id, shard_no))");
+            statement.execute("CREATE TABLE hot_sku_benchmark.checkout_order (order_id bigserial PRIMARY KEY, "
+                    + "product_id bigint)");
+        }
+    }
+
+    // Enough stock for every checkout in both modes, the same total either way
+    private void resetStock(HikariDataSource dataSource) throws SQLException {
+        int perShard = CHECKOUTS / SHARDS + 1;
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM product");
+            statement.execute("DELETE FROM product_stock_shard");
+            statement.execute("INSERT INTO product (product_id, quantity) VALUES (" + PRODUCT_ID + ", "
+                    + perShard * SHARDS + ")");
+            for (int shardNo = 0; shardNo < SHARDS; shardNo++) {
+                statement.execute("INSERT INTO product_stock_shard (product_id, shard_no, quantity) VALUES ("
+                        + PRODUCT_ID + ", " + shardNo + ", " + perShard + ")");
+            }
+        }
+    }
+}
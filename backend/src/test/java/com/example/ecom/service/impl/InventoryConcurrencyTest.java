@@ -0,0 +1,193 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.cache.ProductCatalogCache;
+import com.example.ecom.payload.StockLine;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.service.CatalogVersionService;
+import com.example.ecom.service.HotSkuService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 500 buyers check out multi-line carts against the same few products at once, each in its own
+ * transaction that rolls back when a line is short, while an admin keeps editing the products' details
+ * and images and deactivating them. Proves no product goes below zero, units sold match the stock taken (no admin
+ * edit writes back a stale quantity), and the ordered batch never deadlocks. Needs Postgres (tables go to a separate
+ * inventory_test schema), so it only runs when asked for:
+ *
+ * mvn test -Dtest=InventoryConcurrencyTest -Dinventory.test.url=jdbc:postgresql://localhost:5432/bench
+ *          -Dinventory.test.user=postgres -Dinventory.test.password=...
+ */
+@EnabledIfSystemProperty(named = "inventory.test.url", matches = ".+")
+class InventoryConcurrencyTest {
+
+    private static final int BUYERS = 500;
+    private static final int PRODUCTS = 5;
+    private static final int STOCK = 100;
+
+    @Test
+    void parallelCheckoutsNeverOversell() throws Exception {
+        try (HikariDataSource dataSource = dataSource()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            createProducts(jdbcTemplate);
+
+            InventoryServiceImpl inventoryService = new InventoryServiceImpl(jdbcTemplate,
+                    mock(ProductRepository.class), mock(HotSkuService.class), mock(CatalogVersionService.class),
+                    new ProductCatalogCache(100, 300));
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    new DataSourceTransactionManager(dataSource));
+
+            Map<Long, AtomicLong> sold = new ConcurrentHashMap<>();
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            List<Throwable> errors = new ArrayList<>();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService buyers = Executors.newFixedThreadPool(BUYERS);
+
+            for (int buyer = 0; buyer < BUYERS; buyer++) {
+                List<StockLine> cart = randomCart(new Random(buyer));
+                buyers.submit(() -> {
+                    try {
+                        start.await();
+                        boolean ok = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                            if (inventoryService.reserve(cart, Map.of()).isEmpty()) {
+                                return true;
+                            }
+                            status.setRollbackOnly();
+                            return false;
+                        }));
+                        if (ok) {
+                            accepted.incrementAndGet();
+                            cart.forEach(line -> sold.computeIfAbsent(line.productId(), id -> new AtomicLong())
+                                    .addAndGet(line.quantity()));
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                    } catch (Throwable t) {
+                        synchronized (errors) {
+                            errors.add(t);
+                        }
+                    }
+                });
+            }
+            // The admin edits ProductServiceImpl makes (update without a stock change, image upload, delete),
+            // on the same rows
+            NamedParameterJdbcTemplate admin = new NamedParameterJdbcTemplate(dataSource);
+            AtomicBoolean selling = new AtomicBoolean(true);
+            AtomicInteger adminEdits = new AtomicInteger();
+            Thread editor = new Thread(() -> {
+                try {
+                    start.await();
+                    while (selling.get() || adminEdits.get() < PRODUCTS * 3) {
+                        long productId = 1 + adminEdits.get() % PRODUCTS;
+                        Timestamp now = Timestamp.from(Instant.now());
+                        if (adminEdits.get() % 3 == 0) {
+                            Map<String, Object> details = new HashMap<>();
+                            details.put("productId", productId);
+                            details.put("productName", "Product " + productId);
+                            details.put("description", "Edit " + adminEdits.get());
+                            details.put("price", new BigDecimal("20.00"));
+                            details.put("discount", new BigDecimal("10.00"));
+                            details.put("specialPrice", new BigDecimal("18.00"));
+                            details.put("categoryId", 1L);
+                            details.put("updatedAt", now);
+                            admin.update(ProductRepository.UPDATE_DETAILS_SQL, details);
+                        } else if (adminEdits.get() % 3 == 1) {
+                            admin.update(ProductRepository.UPDATE_IMAGE_SQL, Map.of("productId", productId,
+                                    "image", "image-" + adminEdits.get() + ".png", "updatedAt", now));
+                        } else {
+                            admin.update(ProductRepository.DEACTIVATE_SQL, Map.of("productId", productId,
+                                    "updatedAt", now));
+                        }
+                        adminEdits.incrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    synchronized (errors) {
+                        errors.add(t);
+                    }
+                }
+            });
+            editor.start();
+
+            start.countDown();
+            buyers.shutdown();
+            assertTrue(buyers.awaitTermination(2, TimeUnit.MINUTES), "buyers did not finish");
+            selling.set(false);
+            editor.join();
+
+            assertTrue(errors.isEmpty(), () -> "checkouts failed (deadlock?): " + errors);
+            assertTrue(rejected.get() > 0, "demand should exceed stock");
+            for (long productId = 1; productId <= PRODUCTS; productId++) {
+                int remaining = jdbcTemplate.queryForObject(
+                        "SELECT quantity FROM product WHERE product_id = ?", Integer.class, productId);
+                long unitsSold = sold.getOrDefault(productId, new AtomicLong()).get();
+                assertTrue(remaining >= 0, "product " + productId + " oversold: " + remaining);
+                assertEquals(STOCK - unitsSold, remaining, "product " + productId);
+            }
+            assertTrue(adminEdits.get() > 0, "admin edits should run alongside the checkouts");
+            System.out.printf("%d buyers: %d orders accepted, %d rejected for stock, %d admin edits%n",
+                    BUYERS, accepted.get(), rejected.get(), adminEdits.get());
+        }
+    }
+
+    // Two or three lines in random product order, so unordered locking would deadlock
+    private List<StockLine> randomCart(Random random) {
+        List<StockLine> cart = new ArrayList<>();
+        int lines = 2 + random.nextInt(2);
+        for (int i = 0; i < lines; i++) {
+            cart.add(new StockLine(1L + random.nextInt(PRODUCTS), 1 + random.nextInt(3)));
+        }
+        return cart;
+    }
+
+    private HikariDataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("inventory.test.url"));
+        dataSource.setUsername(System.getProperty("inventory.test.user", "postgres"));
+        dataSource.setPassword(System.getProperty("inventory.test.password", ""));
+        dataSource.setMaximumPoolSize(50);
+        // Own schema so the test never touches a real product table
+        dataSource.setConnectionInitSql("SET search_path TO inventory_test");
+        return dataSource;
+    }
+
+    private void createProducts(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS inventory_test");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS inventory_test.product");
+        jdbcTemplate.execute("CREATE TABLE inventory_test.product (product_id bigint PRIMARY KEY, "
+                + "quantity integer NOT NULL, reserved_quantity integer NOT NULL DEFAULT 0, updated_at timestamp, "
+                + "hot_sku boolean NOT NULL DEFAULT false, image varchar(255), active boolean DEFAULT true, "
+                + "product_name varchar(255), description varchar(255), price numeric(19, 2), "
+                + "discount numeric(5, 2), special_price numeric(19, 2), category_id bigint)");
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            jdbcTemplate.update("INSERT INTO inventory_test.product (product_id, quantity) VALUES (?, ?)",
+                    productId, STOCK);
+        }
+    }
+}
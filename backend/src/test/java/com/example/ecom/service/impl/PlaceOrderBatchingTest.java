@@ -0,0 +1,237 @@
+package com.example.ecom.service.impl;
+
+import com.example.ecom.model.Address;
+import com.example.ecom.model.Cart;
+import com.example.ecom.model.Category;
+import com.example.ecom.model.Product;
+import com.example.ecom.model.User;
+import com.example.ecom.payload.OrderDTO;
+import com.example.ecom.repositories.AddressRepository;
+import com.example.ecom.repositories.CartRepository;
+import com.example.ecom.repositories.CategoryRepository;
+import com.example.ecom.repositories.ProductRepository;
+import com.example.ecom.repositories.UserRepository;
+import com.example.ecom.service.OrderService;
+import com.example.ecom.util.AuthUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * placeOrder sends the same number of statements whatever the size of the cart, and how long a
+ * checkout takes for 1, 10 and 50 line carts. Statements are counted on the test thread by wrapping the
+ * DataSource; one prepared statement (a query, an update or a whole batch) counts once. Needs Postgres,
+ * so it only runs when asked for:
+ *
+ * mvn test -Dtest=PlaceOrderBatchingTest -Dcheckout.test.url=jdbc:postgresql://localhost:5432/checkout_test
+ *          -Dcheckout.test.user=postgres -Dcheckout.test.password=...
+ *
+ * Statement counts and timings are printed, not recorded; only the constant statement count is asserted.
+ */
+@EnabledIfSystemProperty(named = "checkout.test.url", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${checkout.test.url}",
+        "spring.datasource.username=${checkout.test.user:postgres}",
+        "spring.datasource.password=${checkout.test.password:}",
+        "spring.jpa.show-sql=false" })
+class PlaceOrderBatchingTest {
+
+    private static final int SELLERS = 5;
+    private static final int PRODUCTS = 50;
+    private static final int ITERATIONS = Integer.getInteger("checkout.benchmark.iterations", 200);
+    private static final String INSERT_CART_ITEM_SQL = "INSERT INTO cart_items "
+            + "(cart_id, product_id, quantity, discount, product_price, price_revision) VALUES (?, ?, ?, 0, ?, 0)";
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    @TestConfiguration
+    static class StatementCounting {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? counting(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @MockBean
+    private AuthUtil authUtil;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long cartId;
+    private Long addressId;
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void createBuyerAndCatalog() {
+        String run = Long.toString(System.nanoTime(), 36);
+        User buyer = userRepository.save(new User("b" + run, "b" + run + "@checkout.test", "password"));
+        when(authUtil.loggedInEmail()).thenReturn(buyer.getEmail());
+        when(authUtil.loggedInUserId()).thenReturn(buyer.getUserId());
+
+        Cart cart = new Cart();
+        cart.setUser(buyer);
+        cartId = cartRepository.save(cart).getCartId();
+
+        Address address = new Address();
+        address.setStreet("1 Checkout Street");
+        address.setBuildingName("Block A");
+        address.setCity("Hanoi");
+        address.setState("Hanoi");
+        address.setCountry("Vietnam");
+        address.setPincode("100000");
+        address.setUser(buyer);
+        addressId = addressRepository.save(address).getAddressId();
+
+        Category category = new Category();
+        category.setCategoryName("Checkout " + run);
+        category = categoryRepository.save(category);
+
+        List<User> sellers = new ArrayList<>();
+        for (int i = 0; i < SELLERS; i++) {
+            sellers.add(userRepository.save(new User("s" + i + run, "s" + i + run + "@checkout.test", "password")));
+        }
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setProductName("Product " + i);
+            product.setDescription("Checkout test product " + i);
+            product.setQuantity(1_000_000);
+            product.setPrice(BigDecimal.valueOf(20));
+            product.setSpecialPrice(BigDecimal.valueOf(18));
+            product.setCategory(category);
+            product.setUser(sellers.get(i % SELLERS));
+            productIds.add(productRepository.save(product).getProductId());
+        }
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithCart() {
+        fillCart(1);
+        int[] oneLine = new int[1];
+        List<OrderDTO> small = count(oneLine, this::checkout);
+
+        fillCart(30);
+        int[] thirtyLines = new int[1];
+        List<OrderDTO> large = count(thirtyLines, this::checkout);
+
+        System.out.printf("placeOrder statements: 1 line %d, 30 lines over %d sellers %d%n",
+                oneLine[0], SELLERS, thirtyLines[0]);
+        assertEquals(1, small.size());
+        assertEquals(SELLERS, large.size());
+        assertEquals(30, large.stream().mapToInt(order -> order.getOrderItems().size()).sum());
+        assertEquals(oneLine[0], thirtyLines[0], "statement count should not depend on the cart size");
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_items WHERE cart_id = ?", Integer.class, cartId));
+    }
+
+    @Test
+    void checkoutLatencyBenchmark() {
+        for (int lines : new int[] { 1, 10, 50 }) {
+            for (int i = 0; i < ITERATIONS / 4; i++) {
+                fillCart(lines);
+                checkout();
+            }
+            long[] nanos = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                fillCart(lines);
+                long start = System.nanoTime();
+                checkout();
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("placeOrder, %2d-line cart: mean %.2f ms, p50 %.2f ms, p99 %.2f ms (%d runs)%n",
+                    lines, Arrays.stream(nanos).average().orElse(0) / 1e6, nanos[ITERATIONS / 2] / 1e6,
+                    nanos[ITERATIONS * 99 / 100] / 1e6, ITERATIONS);
+        }
+    }
+
+    private List<OrderDTO> checkout() {
+        return orderService.placeOrder("CARD", addressId, "pg_test", "succeeded", "ok", "Stripe");
+    }
+
+    private void fillCart(int lines) {
+        jdbcTemplate.batchUpdate(INSERT_CART_ITEM_SQL, productIds.subList(0, lines), lines, (ps, productId) -> {
+            ps.setLong(1, cartId);
+            ps.setLong(2, productId);
+            ps.setInt(3, 1);
+            ps.setBigDecimal(4, BigDecimal.valueOf(18));
+        });
+    }
+
+    private static <T> T count(int[] statements, Supplier<T> action) {
+        STATEMENTS.set(statements);
+        try {
+            return action.get();
+        } finally {
+            STATEMENTS.remove();
+        }
+    }
+
+    private static DataSource counting(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(PlaceOrderBatchingTest.class.getClassLoader(),
+                new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return result instanceof Connection connection ? counting(connection) : result;
+                });
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(PlaceOrderBatchingTest.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    int[] statements = STATEMENTS.get();
+                    if (statements != null && STATEMENT_METHODS.contains(method.getName())) {
+                        statements[0]++;
+                    }
+                    return invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
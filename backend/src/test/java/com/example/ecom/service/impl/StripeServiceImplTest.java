@@ -0,0 +1,59 @@
+package com.example.ecom.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Session expiry against the stock hold: always set, inside the range Stripe accepts, and EXPIRY_MARGIN
+ * before the hold ends.
+ */
+class StripeServiceImplTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Test
+    void defaultHoldIsRaisedToTheMinimumAndTheSessionEndsAMarginBeforeIt() {
+        // app.reservation.ttl-seconds=1800, raised by reserveCart to the minimum the Stripe call asked for
+        Instant reservedUntil = max(NOW.plusSeconds(1800), StripeServiceImpl.minimumHold(NOW));
+
+        Instant expiresAt = StripeServiceImpl.sessionExpiresAt(reservedUntil, NOW);
+
+        assertEquals(reservedUntil.minus(StripeServiceImpl.EXPIRY_MARGIN), expiresAt);
+        assertFalse(expiresAt.isBefore(NOW.plus(StripeServiceImpl.MIN_SESSION_EXPIRY)));
+    }
+
+    @Test
+    void longerHoldEndsTheSessionAMarginEarlier() {
+        Instant reservedUntil = NOW.plus(Duration.ofHours(2));
+
+        assertEquals(reservedUntil.minus(StripeServiceImpl.EXPIRY_MARGIN),
+                StripeServiceImpl.sessionExpiresAt(reservedUntil, NOW));
+    }
+
+    @Test
+    void shortHoldNeverGivesASessionStripeWouldReject() {
+        Instant expiresAt = StripeServiceImpl.sessionExpiresAt(NOW.plus(Duration.ofMinutes(5)), NOW);
+
+        assertEquals(NOW.plus(StripeServiceImpl.MIN_SESSION_EXPIRY).plus(StripeServiceImpl.REQUEST_SLACK),
+                expiresAt);
+    }
+
+    @Test
+    void holdOverADayIsCappedAtStripesMaximum() {
+        Instant reservedUntil = NOW.plus(Duration.ofHours(48));
+
+        Instant expiresAt = StripeServiceImpl.sessionExpiresAt(reservedUntil, NOW);
+
+        assertEquals(NOW.plus(StripeServiceImpl.MAX_SESSION_EXPIRY), expiresAt);
+        assertFalse(expiresAt.isAfter(reservedUntil.minus(StripeServiceImpl.EXPIRY_MARGIN)));
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.ecom.util;
+
+import com.example.ecom.exceptions.APIException;
+import com.example.ecom.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCursorCodecTest {
+
+    @Test
+    void cursorRoundTripsToTheLastRowsKeys() {
+        Product last = product();
+
+        assertEquals(Map.of("productId", 42L, "specialPrice", new BigDecimal("19.90")),
+                keys(ProductCursorCodec.decode(ProductCursorCodec.encode(last, "specialPrice"), "specialPrice")));
+        assertEquals(Map.of("productId", 42L, "discount", new BigDecimal("10")),
+                keys(ProductCursorCodec.decode(ProductCursorCodec.encode(last, "discount"), "discount")));
+        assertEquals(Map.of("productId", 42L),
+                keys(ProductCursorCodec.decode(ProductCursorCodec.encode(last, "productId"), "productId")));
+    }
+
+    @Test
+    void nameWithANewlineSurvivesTheRoundTrip() {
+        Product last = product();
+        last.setProductName("Line one\nline two");
+
+        assertEquals(Map.of("productId", 42L, "productName", "Line one\nline two"),
+                keys(ProductCursorCodec.decode(ProductCursorCodec.encode(last, "productName"), "productName")));
+    }
+
+    @Test
+    void nullSortKeyIsKeptDistinctFromAnEmptyValue() {
+        Product last = product();
+        last.setPrice(null);
+        last.setProductName(null);
+
+        assertEquals(Collections.singletonMap("price", null),
+                withoutId(ProductCursorCodec.decode(ProductCursorCodec.encode(last, "price"), "price")));
+        assertEquals(Collections.singletonMap("productName", null),
+                withoutId(ProductCursorCodec.decode(ProductCursorCodec.encode(last, "productName"), "productName")));
+
+        last.setProductName("");
+        assertEquals(Map.of("productId", 42L, "productName", ""),
+                keys(ProductCursorCodec.decode(ProductCursorCodec.encode(last, "productName"), "productName")));
+    }
+
+    @Test
+    void noCursorStartsAtTheBeginning() {
+        ScrollPosition position = ProductCursorCodec.decode(null, "productName");
+
+        assertTrue(position.isInitial());
+        assertTrue(ProductCursorCodec.decode(" ", "productName").isInitial());
+    }
+
+    @Test
+    void cursorForAnotherSortIsRejected() {
+        String cursor = ProductCursorCodec.encode(product(), "price");
+
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(cursor, "specialPrice"));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode("not base64!", "price"));
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(raw("price\n42"), "price"));
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(raw("price\nabc\n1.00"), "price"));
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(raw("price\n42\nvcheap"), "price"));
+        // Untagged key, as cursors encoded a null before
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(raw("price\n42\n"), "price"));
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(raw("price\n42\n1.00"), "price"));
+    }
+
+    @Test
+    void unsortableColumnIsRejected() {
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(null, "description"));
+        // Nullable column: a keyset seek cannot resume across NULL keys
+        assertThrows(APIException.class, () -> ProductCursorCodec.decode(null, "quantity"));
+    }
+
+    private static Product product() {
+        Product product = new Product();
+        product.setProductId(42L);
+        product.setProductName("Phone");
+        product.setSpecialPrice(new BigDecimal("19.90"));
+        product.setDiscount(new BigDecimal("10"));
+        return product;
+    }
+
+    private static Map<String, ?> keys(ScrollPosition position) {
+        return ((KeysetScrollPosition) position).getKeys();
+    }
+
+    private static Map<String, ?> withoutId(ScrollPosition position) {
+        Map<String, Object> keys = new HashMap<>(keys(position));
+        assertEquals(42L, keys.remove("productId"));
+        return keys;
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
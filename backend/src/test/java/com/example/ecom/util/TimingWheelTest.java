@@ -0,0 +1,72 @@
+package com.example.ecom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 100 ms ticks on 8 slots, so one revolution is 800 ms and deadlines further out share a slot with
+ * earlier ones.
+ */
+class TimingWheelTest {
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+
+    @Test
+    void itemIsDueAtTheFirstTickAtOrAfterItsDeadline() {
+        wheel.schedule("a", 250);
+
+        assertTrue(wheel.advance(299).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void itemARevolutionAheadStaysInItsSlotUntilItsRound() {
+        // Ticks 2 and 10 both land in slot 2
+        wheel.schedule("later", 1000);
+        wheel.schedule("now", 200);
+
+        assertEquals(List.of("now"), wheel.advance(200));
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(999).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(1000));
+    }
+
+    @Test
+    void overdueItemIsDueAtTheNextTick() {
+        wheel.advance(500);
+        wheel.schedule("late", 100);
+
+        assertTrue(wheel.advance(599).isEmpty());
+        assertEquals(List.of("late"), wheel.advance(600));
+    }
+
+    @Test
+    void fallingAWholeRevolutionBehindReturnsEverythingDueInOnePass() {
+        wheel.schedule("a", 300);
+        wheel.schedule("b", 700);
+        wheel.schedule("c", 5000);
+        wheel.schedule("d", 20_000);
+
+        List<String> due = wheel.advance(10_000);
+
+        assertEquals(3, due.size());
+        assertTrue(due.containsAll(List.of("a", "b", "c")));
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(19_999).isEmpty());
+        assertEquals(List.of("d"), wheel.advance(20_000));
+    }
+
+    @Test
+    void advancingBackwardsReturnsNothing() {
+        wheel.schedule("a", 300);
+        wheel.advance(200);
+
+        assertTrue(wheel.advance(100).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(300));
+    }
+}
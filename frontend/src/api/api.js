@@ -131,6 +131,8 @@ export const cartAPI = {
     api.post(`/carts/products/${productId}/quantity/${quantity}`),
   updateQuantity: (productId, operation) =>
     api.put(`/carts/products/${productId}/quantity/${operation}`),
+  // operations: [{ action: 'add' | 'set' | 'remove', productId, quantity }], applied together
+  updateCart: (operations) => api.put('/carts/products', operations),
   removeProduct: (cartId, productId) =>
     api.delete(`/carts/${cartId}/product/${productId}`),
 };
@@ -168,9 +170,10 @@ export const analyticsAPI = {
 
 // Orders API
 export const ordersAPI = {
-  getUserOrders: () => api.get('/order/users/orders'),
-  getSellerOrders: () => api.get('/order/seller/orders'),
-  getAllOrders: () => api.get('/order/admin/all'), // Admin: Get all orders
+  // params: { pageNumber, pageSize, from, to } (dates as yyyy-MM-dd); responses are pages with content
+  getUserOrders: (params) => api.get('/order/users/orders', { params }),
+  getSellerOrders: (params) => api.get('/order/seller/orders', { params }),
+  getAllOrders: (params) => api.get('/order/admin/all', { params }), // Admin: Get all orders
   updateStatus: (orderId, status) => api.put(`/order/${orderId}/status/${status}`),
 };
 
@@ -60,6 +60,17 @@ export function CartProvider({ children }) {
         }
     };
 
+    const updateCart = async (operations) => {
+        try {
+            const response = await cartAPI.updateCart(operations);
+            setCart(response.data);
+            return response.data;
+        } catch (error) {
+            logger.error('Failed to update cart:', error);
+            throw error;
+        }
+    };
+
     const removeFromCart = async (productId) => {
         if (!cart) return;
         try {
@@ -93,6 +104,7 @@ export function CartProvider({ children }) {
         loading,
         addToCart,
         updateQuantity,
+        updateCart,
         removeFromCart,
         refreshCart,
         clearCart,
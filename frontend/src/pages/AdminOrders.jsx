@@ -5,16 +5,26 @@ import './Admin.css';
 export default function AdminOrders() {
     const [orders, setOrders] = useState([]);
     const [loading, setLoading] = useState(true);
+    const [page, setPage] = useState(0);
+    const [totalPages, setTotalPages] = useState(0);
+    const [from, setFrom] = useState('');
+    const [to, setTo] = useState('');
     const [updating, setUpdating] = useState(null);
 
     useEffect(() => {
         fetchOrders();
-    }, []);
+    }, [page, from, to]);
 
     const fetchOrders = async () => {
         try {
-            const response = await ordersAPI.getAllOrders();
-            setOrders(response.data || []);
+            // Zero-based pages, newest first
+            const response = await ordersAPI.getAllOrders({
+                pageNumber: page,
+                from: from || undefined,
+                to: to || undefined,
+            });
+            setOrders(response.data?.content || []);
+            setTotalPages(response.data?.totalPages || 0);
         } catch (err) {
             console.error('Failed to fetch orders', err);
         } finally {
@@ -44,6 +54,17 @@ export default function AdminOrders() {
             <h1>📦 Orders Management</h1>
             <p className="subtitle">Manage all customer orders</p>
 
+            <div className="order-filters">
+                <label>
+                    From
+                    <input type="date" value={from} onChange={(e) => { setFrom(e.target.value); setPage(0); }} />
+                </label>
+                <label>
+                    To
+                    <input type="date" value={to} onChange={(e) => { setTo(e.target.value); setPage(0); }} />
+                </label>
+            </div>
+
             {orders.length === 0 ? (
                 <div className="empty-state">
                     <p>No orders found.</p>
@@ -106,6 +127,18 @@ export default function AdminOrders() {
                     </table>
                 </div>
             )}
+
+            {totalPages > 1 && (
+                <div className="pagination">
+                    <button onClick={() => setPage(p => p - 1)} disabled={page === 0}>
+                        ← Previous
+                    </button>
+                    <span>Page {page + 1} of {totalPages}</span>
+                    <button onClick={() => setPage(p => p + 1)} disabled={page >= totalPages - 1}>
+                        Next →
+                    </button>
+                </div>
+            )}
         </div>
     );
 }
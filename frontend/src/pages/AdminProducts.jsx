@@ -101,6 +101,10 @@ export default function AdminProducts() {
 
         try {
             if (editingProduct) {
+                // Stock only when it was edited, so other edits keep what checkouts have sold meanwhile
+                if (productDTO.quantity === editingProduct.quantity) {
+                    delete productDTO.quantity;
+                }
                 // Pass categoryId to update the product's category
                 await productsAPI.update(editingProduct.productId, productDTO, formData.categoryId);
                 toast.success('Product updated successfully!');
@@ -7,6 +7,10 @@ import './Orders.css';
 const Orders = () => {
     const [orders, setOrders] = useState([]);
     const [loading, setLoading] = useState(true);
+    const [page, setPage] = useState(0);
+    const [totalPages, setTotalPages] = useState(0);
+    const [from, setFrom] = useState('');
+    const [to, setTo] = useState('');
     const { isAuthenticated } = useAuth();
     const navigate = useNavigate();
 
@@ -16,12 +20,18 @@ const Orders = () => {
             return;
         }
         fetchOrders();
-    }, [isAuthenticated, navigate]);
+    }, [isAuthenticated, navigate, page, from, to]);
 
     const fetchOrders = async () => {
         try {
-            const response = await ordersAPI.getUserOrders();
-            setOrders(response.data || []);
+            // Zero-based pages, newest first
+            const response = await ordersAPI.getUserOrders({
+                pageNumber: page,
+                from: from || undefined,
+                to: to || undefined,
+            });
+            setOrders(response.data?.content || []);
+            setTotalPages(response.data?.totalPages || 0);
         } catch (error) {
             console.error('Failed to fetch orders:', error);
             setOrders([]);
@@ -38,9 +48,20 @@ const Orders = () => {
         <div className="container orders-page">
             <h1>My Orders</h1>
 
+            <div className="order-filters">
+                <label>
+                    From
+                    <input type="date" value={from} onChange={(e) => { setFrom(e.target.value); setPage(0); }} />
+                </label>
+                <label>
+                    To
+                    <input type="date" value={to} onChange={(e) => { setTo(e.target.value); setPage(0); }} />
+                </label>
+            </div>
+
             {orders.length === 0 ? (
                 <div className="empty-orders">
-                    <p>You haven't placed any orders yet.</p>
+                    <p>{from || to ? 'No orders in this period.' : "You haven't placed any orders yet."}</p>
                     <button onClick={() => navigate('/')}>Shop Now</button>
                 </div>
             ) : (
@@ -82,6 +103,18 @@ const Orders = () => {
                     ))}
                 </div>
             )}
+
+            {totalPages > 1 && (
+                <div className="pagination">
+                    <button onClick={() => setPage(p => p - 1)} disabled={page === 0}>
+                        ← Previous
+                    </button>
+                    <span>Page {page + 1} of {totalPages}</span>
+                    <button onClick={() => setPage(p => p + 1)} disabled={page >= totalPages - 1}>
+                        Next →
+                    </button>
+                </div>
+            )}
         </div>
     );
 };
@@ -33,8 +33,8 @@ export default function SellerDashboard() {
             // Fetch seller orders count
             let ordersCount = 0;
             try {
-                const ordersRes = await ordersAPI.getSellerOrders();
-                ordersCount = ordersRes.data?.length || 0;
+                const ordersRes = await ordersAPI.getSellerOrders({ pageSize: 1 });
+                ordersCount = ordersRes.data?.totalElements || 0;
             } catch (e) {
                 // Ignore
             }